@@ -0,0 +1,31 @@
+package com.example.bankingprojectfinal.benchmark;
+
+import com.example.bankingprojectfinal.BankingProjectFinalApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Boots the application on a random port against a private in-memory H2 database
+// (the security filter chain needs the servlet context, so the web server cannot be left out).
+// H2 result reuse is switched off, otherwise repeated identical queries are answered from cache.
+final class BenchmarkContexts {
+
+    private BenchmarkContexts() {
+    }
+
+    static ConfigurableApplicationContext start(String... extraProperties) {
+        List<String> properties = new ArrayList<>(List.of(
+                "spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";OPTIMIZE_REUSE_RESULTS=FALSE",
+                "server.port=0",
+                "spring.jpa.show-sql=false",
+                "logging.level.root=WARN"
+        ));
+        properties.addAll(List.of(extraProperties));
+        // Passed as command line arguments so they override application.properties
+        return new SpringApplicationBuilder(BankingProjectFinalApplication.class)
+                .run(properties.stream().map(property -> "--" + property).toArray(String[]::new));
+    }
+}
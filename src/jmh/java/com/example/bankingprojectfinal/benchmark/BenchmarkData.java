@@ -0,0 +1,64 @@
+package com.example.bankingprojectfinal.benchmark;
+
+import com.example.bankingprojectfinal.Model.Entity.AccountEntity;
+import com.example.bankingprojectfinal.Model.Entity.CardEntity;
+import com.example.bankingprojectfinal.Model.Entity.CustomerEntity;
+import com.example.bankingprojectfinal.Model.Enums.AccountStatus;
+import com.example.bankingprojectfinal.Model.Enums.CardStatus;
+import com.example.bankingprojectfinal.Model.Enums.CustomerStatus;
+import com.example.bankingprojectfinal.Repository.AccountRepository;
+import com.example.bankingprojectfinal.Repository.CardRepository;
+import com.example.bankingprojectfinal.Repository.CustomerRepository;
+import com.example.bankingprojectfinal.security.model.User;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+// Seed data for the benchmarks. seq keeps the unique columns of every row apart, so benchmark
+// threads can seed their own customers concurrently.
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static CustomerEntity customer(ConfigurableApplicationContext context, int seq) {
+        return context.getBean(CustomerRepository.class).save(CustomerEntity.builder()
+                .firstName("Bench").lastName("Customer" + seq).birthDate(LocalDate.of(1990, 1, 1))
+                .finCode(String.format("BENCH%02d", seq)).phoneNumber(String.format("+9945000000%02d", seq))
+                .registrationDate(LocalDate.now()).status(CustomerStatus.REGULAR)
+                .build());
+    }
+
+    static AccountEntity account(ConfigurableApplicationContext context, CustomerEntity customer, int seq) {
+        return context.getBean(AccountRepository.class).save(AccountEntity.builder()
+                .accountNumber(String.format("ACCBENCH%04d", seq)).customer(customer)
+                .balance(BigDecimal.valueOf(1_000_000))
+                .openingDate(LocalDate.now()).expireDate(LocalDate.now().plusYears(10))
+                .status(AccountStatus.ACTIVE)
+                .build());
+    }
+
+    static String card(ConfigurableApplicationContext context, AccountEntity account, int seq) {
+        return context.getBean(CardRepository.class).save(CardEntity.builder()
+                .cardNumber(String.format("5000%012d", seq)).account(account)
+                .issueDate(LocalDate.now()).expireDate(LocalDate.now().plusYears(5))
+                .status(CardStatus.ACTIVE)
+                .build()).getCardNumber();
+    }
+
+    static User user(CustomerEntity customer, int seq) {
+        User user = new User("bench" + seq, "bench" + seq + "@bench.local", "secret");
+        user.setCustomer(customer);
+        return user;
+    }
+
+    // Same principal JwtAuthenticationFilter would install; the security context is per thread
+    static void signIn(User user) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, List.of()));
+    }
+}
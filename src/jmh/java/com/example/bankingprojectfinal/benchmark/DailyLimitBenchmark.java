@@ -0,0 +1,108 @@
+package com.example.bankingprojectfinal.benchmark;
+
+import com.example.bankingprojectfinal.Model.Entity.AccountEntity;
+import com.example.bankingprojectfinal.Model.Entity.CustomerEntity;
+import com.example.bankingprojectfinal.Model.Entity.TransactionEntity;
+import com.example.bankingprojectfinal.Model.Enums.AccountStatus;
+import com.example.bankingprojectfinal.Model.Enums.CustomerStatus;
+import com.example.bankingprojectfinal.Model.Enums.TransactionStatus;
+import com.example.bankingprojectfinal.Model.Enums.TransactionType;
+import com.example.bankingprojectfinal.Repository.AccountRepository;
+import com.example.bankingprojectfinal.Repository.CustomerDailySpendRepository;
+import com.example.bankingprojectfinal.Repository.CustomerRepository;
+import com.example.bankingprojectfinal.Repository.TransactionRepository;
+import com.example.bankingprojectfinal.Service.Concrete.DailySpendBackfillJob;
+import com.example.bankingprojectfinal.Service.Concrete.InMemoryDailyLimitService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Cost of answering "how much has this customer transferred today?" three ways, as the customer's
+// history grows: the SUM over the transaction table, the customer_daily_spend counter, and the
+// in-memory limit engine.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DailyLimitBenchmark {
+
+    @Param({"10", "10000"})
+    int historySize;
+
+    ConfigurableApplicationContext context;
+    TransactionRepository transactionRepository;
+    CustomerDailySpendRepository dailySpendRepository;
+    InMemoryDailyLimitService inMemoryLimits;
+    Integer customerId;
+    LocalDate today;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContexts.start("banking.limits.engine=MEMORY");
+        transactionRepository = context.getBean(TransactionRepository.class);
+        dailySpendRepository = context.getBean(CustomerDailySpendRepository.class);
+        inMemoryLimits = context.getBean(InMemoryDailyLimitService.class);
+        today = LocalDate.now();
+
+        CustomerEntity customer = context.getBean(CustomerRepository.class).save(CustomerEntity.builder()
+                .firstName("Bench").lastName("Customer").birthDate(LocalDate.of(1990, 1, 1))
+                .finCode("BENCH01").phoneNumber("+994500000001")
+                .registrationDate(today).status(CustomerStatus.REGULAR)
+                .build());
+        customerId = customer.getId();
+        AccountRepository accountRepository = context.getBean(AccountRepository.class);
+        AccountEntity from = accountRepository.save(account(customer, "ACCBENCH0001"));
+        AccountEntity to = accountRepository.save(account(customer, "ACCBENCH0002"));
+
+        List<TransactionEntity> history = new ArrayList<>(historySize);
+        for (int i = 0; i < historySize; i++) {
+            history.add(TransactionEntity.builder()
+                    .debitAccount(from).creditAccount(to)
+                    .amount(BigDecimal.ONE)
+                    .transactionDate(today.minusDays(i % 30))
+                    .status(TransactionStatus.COMPLETED)
+                    .transactionType(TransactionType.TRANSFER)
+                    .build());
+        }
+        transactionRepository.saveAll(history);
+
+        context.getBean(DailySpendBackfillJob.class).rebuild(today, today);
+        inMemoryLimits.rebuildFromTransactions();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BigDecimal transactionTableSum() {
+        return transactionRepository.getTodayTotalTransferAmountByDebitAccountCustomer(customerId, today);
+    }
+
+    @Benchmark
+    public BigDecimal dailySpendCounter() {
+        return dailySpendRepository.findTotal(customerId, today).orElse(BigDecimal.ZERO);
+    }
+
+    @Benchmark
+    public BigDecimal inMemoryBuckets() {
+        return inMemoryLimits.todayTotal(customerId);
+    }
+
+    private static AccountEntity account(CustomerEntity customer, String number) {
+        return AccountEntity.builder()
+                .accountNumber(number).customer(customer)
+                .balance(BigDecimal.valueOf(1_000_000))
+                .openingDate(LocalDate.now()).expireDate(LocalDate.now().plusYears(10))
+                .status(AccountStatus.ACTIVE)
+                .build();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.bankingprojectfinal.benchmark;
+
+import com.example.bankingprojectfinal.DTOS.Card.DepositCardRequest;
+import com.example.bankingprojectfinal.Model.Entity.AccountEntity;
+import com.example.bankingprojectfinal.Model.Entity.CustomerEntity;
+import com.example.bankingprojectfinal.Service.Abstraction.AccountService;
+import com.example.bankingprojectfinal.Service.Abstraction.CardService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.ConcurrencyFailureException;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+// Credits per second into a single merchant account from 8 threads, as a plain account (slots = 0)
+// and as a hot account with K balance slots. Credits that still lost the race after the optimistic
+// lock retries are counted separately, so the throughput only counts credits that went through.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class HotAccountCreditBenchmark {
+    private static final BigDecimal AMOUNT = new BigDecimal("0.01");
+
+    @Param({"0", "1", "4", "16"})
+    int slots;
+
+    ConfigurableApplicationContext context;
+    CardService cardService;
+    DepositCardRequest deposit;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContexts.start("banking.accounts.hot.slot-choice=THREAD");
+        cardService = context.getBean(CardService.class);
+
+        CustomerEntity merchant = BenchmarkData.customer(context, 1);
+        AccountEntity account = BenchmarkData.account(context, merchant, 1);
+        deposit = new DepositCardRequest(BenchmarkData.card(context, account, 1), AMOUNT);
+        if (slots > 0) {
+            context.getBean(AccountService.class).setHotSlots(account.getAccountNumber(), slots);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Outcome {
+        public long credited;
+        public long conflicts;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            credited = 0;
+            conflicts = 0;
+        }
+    }
+
+    @Benchmark
+    public void credit(Outcome outcome) {
+        try {
+            cardService.depositCard(deposit);
+            outcome.credited++;
+        } catch (ConcurrencyFailureException e) {
+            outcome.conflicts++;
+        }
+    }
+}
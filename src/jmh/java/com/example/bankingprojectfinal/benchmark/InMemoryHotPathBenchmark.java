@@ -0,0 +1,121 @@
+package com.example.bankingprojectfinal.benchmark;
+
+import com.example.bankingprojectfinal.DTOS.Transaction.TransactionDto;
+import com.example.bankingprojectfinal.DTOS.Transaction.TransactionMapper;
+import com.example.bankingprojectfinal.DTOS.Transaction.TransactionMapperImpl;
+import com.example.bankingprojectfinal.Model.Entity.AccountEntity;
+import com.example.bankingprojectfinal.Model.Entity.TransactionEntity;
+import com.example.bankingprojectfinal.Model.Enums.TransactionStatus;
+import com.example.bankingprojectfinal.Model.Enums.TransactionType;
+import com.example.bankingprojectfinal.Model.Enums.VelocityRuleType;
+import com.example.bankingprojectfinal.Service.Abstraction.VelocityRule.TransferAttempt;
+import com.example.bankingprojectfinal.Service.Concrete.VelocityRuleEngine;
+import com.example.bankingprojectfinal.Utils.AccountNumberGenerator;
+import com.example.bankingprojectfinal.config.VelocityProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Hot paths that do not touch the database: account number generation, mapping a page of
+// transactions to DTOs and the velocity rules. No Spring context, the generated MapStruct mapper and
+// the rule engine are used directly.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InMemoryHotPathBenchmark {
+
+    // Blocks come from a counter instead of the database high-water mark; one block fetch per 100 numbers
+    final AtomicLong highWater = new AtomicLong();
+    final AccountNumberGenerator accountNumberGenerator = new AccountNumberGenerator(highWater::getAndAdd, 100);
+    final TransactionMapper transactionMapper = new TransactionMapperImpl();
+
+    // The size of a history page, only the mapping benchmark depends on it
+    @State(Scope.Benchmark)
+    public static class History {
+        @Param({"20", "1000"})
+        int transactionCount;
+
+        List<TransactionEntity> transactions;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            AccountEntity debit = AccountEntity.builder().id(1).accountNumber("ACCBENCH0001").build();
+            AccountEntity credit = AccountEntity.builder().id(2).accountNumber("ACCBENCH0002").build();
+            transactions = new ArrayList<>(transactionCount);
+            for (int i = 0; i < transactionCount; i++) {
+                transactions.add(TransactionEntity.builder()
+                        .transactionId(UUID.randomUUID())
+                        .debitAccount(debit).creditAccount(credit)
+                        .amount(BigDecimal.valueOf(i, 2))
+                        .transactionDate(LocalDate.now())
+                        .status(TransactionStatus.COMPLETED)
+                        .transactionType(TransactionType.TRANSFER)
+                        .build());
+            }
+        }
+    }
+
+    // The default rule set from application.properties over 10000 customers with 2 cards each, so
+    // the per-key windows are mostly warm, as they are for active customers
+    @State(Scope.Benchmark)
+    public static class Velocity {
+        static final int CUSTOMERS = 10_000;
+
+        VelocityRuleEngine engine;
+        TransferAttempt[] attempts;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            VelocityProperties properties = new VelocityProperties();
+            properties.getRules().add(rule("card-burst", VelocityRuleType.TRANSFERS_PER_CARD, 10, Duration.ofMinutes(1)));
+            properties.getRules().add(rule("recipient-fanout", VelocityRuleType.DISTINCT_RECIPIENTS, 10, Duration.ofHours(1)));
+            properties.getRules().add(rule("repeated-amount", VelocityRuleType.REPEATED_AMOUNT, 5, Duration.ofMinutes(10)));
+            engine = new VelocityRuleEngine(properties, List.of(), null, new SimpleMeterRegistry());
+            attempts = new TransferAttempt[CUSTOMERS * 4];
+            for (int i = 0; i < attempts.length; i++) {
+                int customer = i % CUSTOMERS;
+                attempts[i] = new TransferAttempt(customer, "DEBIT-" + customer + "-" + (i / CUSTOMERS % 2),
+                        "CREDIT-" + (i * 31 % CUSTOMERS), BigDecimal.valueOf(i % 50, 2));
+            }
+        }
+
+        private static VelocityProperties.Rule rule(String name, VelocityRuleType type, int limit, Duration window) {
+            VelocityProperties.Rule rule = new VelocityProperties.Rule();
+            rule.setName(name);
+            rule.setType(type);
+            rule.setLimit(limit);
+            rule.setWindow(window);
+            return rule;
+        }
+    }
+
+    @Benchmark
+    public String generateAccountNumber() {
+        return accountNumberGenerator.generate();
+    }
+
+    @Benchmark
+    public List<TransactionDto> mapTransactionList(History history) {
+        return transactionMapper.mapToTransactionDtoList(history.transactions);
+    }
+
+    // One transfer through all three rules; the scope is single threaded, so next needs no atomicity
+    @Benchmark
+    public List<String> velocityRules(Velocity velocity) {
+        TransferAttempt attempt = velocity.attempts[velocity.next];
+        velocity.next = (velocity.next + 1) % velocity.attempts.length;
+        return velocity.engine.evaluate(attempt);
+    }
+}
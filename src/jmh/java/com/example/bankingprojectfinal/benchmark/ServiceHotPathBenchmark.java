@@ -0,0 +1,94 @@
+package com.example.bankingprojectfinal.benchmark;
+
+import com.example.bankingprojectfinal.DTOS.Card.DepositCardRequest;
+import com.example.bankingprojectfinal.DTOS.Card.DepositCardResponse;
+import com.example.bankingprojectfinal.DTOS.Transaction.TransactionDto;
+import com.example.bankingprojectfinal.Model.Entity.CustomerEntity;
+import com.example.bankingprojectfinal.Repository.CustomerDailySpendRepository;
+import com.example.bankingprojectfinal.Service.Abstraction.CardService;
+import com.example.bankingprojectfinal.Service.Abstraction.TransactionService;
+import com.example.bankingprojectfinal.security.model.User;
+import com.example.bankingprojectfinal.security.service.JwtService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// Single-threaded latency of the calls every request goes through: a transfer, a card deposit and the
+// JWT checks JwtAuthenticationFilter runs. Seeded with one customer owning two active cards.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServiceHotPathBenchmark {
+    private static final BigDecimal AMOUNT = new BigDecimal("0.01");
+
+    ConfigurableApplicationContext context;
+    TransactionService transactionService;
+    CardService cardService;
+    JwtService jwtService;
+    String fromCard;
+    String toCard;
+    DepositCardRequest deposit;
+    User user;
+    String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContexts.start("banking.transfer.mode=JPA");
+        transactionService = context.getBean(TransactionService.class);
+        cardService = context.getBean(CardService.class);
+        jwtService = context.getBean(JwtService.class);
+
+        CustomerEntity customer = BenchmarkData.customer(context, 1);
+        fromCard = BenchmarkData.card(context, BenchmarkData.account(context, customer, 1), 1);
+        toCard = BenchmarkData.card(context, BenchmarkData.account(context, customer, 2), 2);
+        deposit = new DepositCardRequest(toCard, AMOUNT);
+        user = BenchmarkData.user(customer, 1);
+        token = jwtService.generateToken(user);
+    }
+
+    // JMH may run the benchmark methods on a different thread than the setup
+    @Setup(Level.Iteration)
+    public void signIn() {
+        BenchmarkData.signIn(user);
+    }
+
+    // The daily limit would stop the benchmark customer within a few iterations
+    @Setup(Level.Iteration)
+    public void resetDailyLimits() {
+        LocalDate today = LocalDate.now();
+        context.getBean(TransactionTemplate.class).executeWithoutResult(status ->
+                context.getBean(CustomerDailySpendRepository.class).deleteByDayRange(today, today));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public TransactionDto transfer() {
+        return transactionService.transfer(fromCard, toCard, AMOUNT);
+    }
+
+    @Benchmark
+    public DepositCardResponse depositCard() {
+        return cardService.depositCard(deposit);
+    }
+
+    @Benchmark
+    public String jwtExtractUsername() {
+        return jwtService.extractUsername(token);
+    }
+
+    @Benchmark
+    public boolean jwtIsTokenValid() {
+        return jwtService.isTokenValid(token, user);
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.bankingprojectfinal.benchmark;
+
+import com.example.bankingprojectfinal.Utils.TimeOrderedUuidGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// Insert throughput into a transaction-shaped table keyed by random (v4) or time ordered (v7) UUIDs,
+// on top of existingRows rows keyed the same way. Uses a file database with H2's default page cache,
+// so once the primary key outgrows the cache, random keys have to touch pages all over the index
+// while time ordered keys keep appending to its last pages. One operation is one committed batch of
+// BATCH rows.
+//
+// The default preload keeps a run to a few minutes; the tens-of-millions case is
+//   gradle jmh -Pjmh.include=TransactionIdInsert -Pjmh.args="-p existingRows=20000000"
+// which needs a few GB of disk under build/ and a long preload, mostly for the random keys.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionIdInsertBenchmark {
+    private static final int BATCH = 100;
+    private static final int PRELOAD_BATCH = 10_000;
+    // Preloaded ids are dated a month back, as history written before the benchmark would be
+    private static final long PRELOAD_AGE_MILLIS = Duration.ofDays(30).toMillis();
+
+    @Param({"RANDOM", "TIME_ORDERED"})
+    String idType;
+
+    @Param({"1000000"})
+    long existingRows;
+
+    Path directory;
+    Connection connection;
+    PreparedStatement insert;
+    Supplier<UUID> ids;
+    final BigDecimal amount = new BigDecimal("10.00");
+    final Date today = Date.valueOf(LocalDate.now());
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createDirectories(Path.of("build", "jmh-transaction-id", idType + "-" + existingRows));
+        deleteDatabase();
+        connection = DriverManager.getConnection("jdbc:h2:file:" + directory.resolve("bench").toAbsolutePath());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE transaction (transaction_id UUID PRIMARY KEY, debit_account_id INT, " +
+                    "credit_account_id INT, amount DECIMAL(19, 2), transaction_date DATE)");
+        }
+        connection.setAutoCommit(false);
+        insert = connection.prepareStatement("INSERT INTO transaction VALUES (?, ?, ?, ?, ?)");
+
+        TimeOrderedUuidGenerator preloadIds = new TimeOrderedUuidGenerator(() -> System.currentTimeMillis() - PRELOAD_AGE_MILLIS);
+        Supplier<UUID> preload = idType.equals("RANDOM") ? UUID::randomUUID : preloadIds::generate;
+        for (long written = 0; written < existingRows; written += PRELOAD_BATCH) {
+            insertBatch(preload, (int) Math.min(PRELOAD_BATCH, existingRows - written));
+        }
+        ids = idType.equals("RANDOM") ? UUID::randomUUID : TimeOrderedUuidGenerator::nextId;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        insert.close();
+        connection.close();
+        deleteDatabase();
+    }
+
+    @Benchmark
+    public int insertBatch() throws SQLException {
+        return insertBatch(ids, BATCH);
+    }
+
+    private int insertBatch(Supplier<UUID> ids, int rows) throws SQLException {
+        for (int i = 0; i < rows; i++) {
+            insert.setObject(1, ids.get());
+            insert.setInt(2, i);
+            insert.setInt(3, i + 1);
+            insert.setBigDecimal(4, amount);
+            insert.setDate(5, today);
+            insert.addBatch();
+        }
+        int inserted = insert.executeBatch().length;
+        connection.commit();
+        return inserted;
+    }
+
+    private void deleteDatabase() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).filter(path -> !path.equals(directory)).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.bankingprojectfinal.benchmark;
+
+import com.example.bankingprojectfinal.DTOS.Transaction.TransactionDto;
+import com.example.bankingprojectfinal.Model.Entity.CustomerEntity;
+import com.example.bankingprojectfinal.Repository.CustomerDailySpendRepository;
+import com.example.bankingprojectfinal.Service.Abstraction.TransactionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Transfers per second through TransactionService.transfer in the default JPA mode and in LEDGER mode.
+// Every benchmark thread is its own customer moving money between its own two cards, so the numbers
+// show the cost of a transfer rather than contention on shared accounts.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class TransferThroughputBenchmark {
+    private static final BigDecimal AMOUNT = new BigDecimal("0.01");
+
+    @Param({"JPA", "LEDGER"})
+    String mode;
+
+    ConfigurableApplicationContext context;
+    TransactionService transactionService;
+    final AtomicInteger customerSequence = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContexts.start("banking.transfer.mode=" + mode);
+        transactionService = context.getBean(TransactionService.class);
+    }
+
+    // The daily limit would stop the benchmark customers within a few iterations
+    @Setup(Level.Iteration)
+    public void resetDailyLimits() {
+        LocalDate today = LocalDate.now();
+        context.getBean(TransactionTemplate.class).executeWithoutResult(status ->
+                context.getBean(CustomerDailySpendRepository.class).deleteByDayRange(today, today));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Customer {
+        String fromCard;
+        String toCard;
+
+        @Setup(Level.Trial)
+        public void setUp(TransferThroughputBenchmark benchmark) {
+            int seq = benchmark.customerSequence.incrementAndGet();
+            ConfigurableApplicationContext context = benchmark.context;
+            CustomerEntity customer = BenchmarkData.customer(context, seq);
+            fromCard = BenchmarkData.card(context, BenchmarkData.account(context, customer, seq * 2), seq * 2);
+            toCard = BenchmarkData.card(context, BenchmarkData.account(context, customer, seq * 2 + 1), seq * 2 + 1);
+            BenchmarkData.signIn(BenchmarkData.user(customer, seq));
+        }
+    }
+
+    @Benchmark
+    public TransactionDto transfer(Customer customer) {
+        return transactionService.transfer(customer.fromCard, customer.toCard, AMOUNT);
+    }
+}
@@ -13,6 +13,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 
@@ -169,4 +170,45 @@ public class AccountController {
     ) {
         return accountService.createAccount(customerId);
     }
-}
\ No newline at end of file
+
+    @Operation(summary = "Flag account as hot (Admin)",
+            description = "Credits to a hot account are spread over the given number of balance slots instead of all updating the account row")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Account flagged as hot"),
+            @ApiResponse(responseCode = "400", description = "Slot count out of range"),
+            @ApiResponse(responseCode = "403", description = "Access denied - ADMIN role required"),
+            @ApiResponse(responseCode = "404", description = "Account not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PutMapping("/admin/{accountNumber}/hot")
+    @PreAuthorize("hasRole('ADMIN')")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void markAccountHot(
+            @Parameter(description = "Account number", required = true) @PathVariable String accountNumber,
+            @Parameter(description = "Number of balance slots", example = "8") @RequestParam(defaultValue = "8") Integer slots
+    ) {
+        // The service rejects a slot count out of range with IllegalArgumentException
+        try {
+            accountService.setHotSlots(accountNumber, slots);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    @Operation(summary = "Clear hot account flag (Admin)",
+            description = "Moves the balance slots back into the account balance")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Hot flag cleared"),
+            @ApiResponse(responseCode = "403", description = "Access denied - ADMIN role required"),
+            @ApiResponse(responseCode = "404", description = "Account not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @DeleteMapping("/admin/{accountNumber}/hot")
+    @PreAuthorize("hasRole('ADMIN')")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void clearAccountHot(
+            @Parameter(description = "Account number", required = true) @PathVariable String accountNumber
+    ) {
+        accountService.setHotSlots(accountNumber, null);
+    }
+}
@@ -1,5 +1,8 @@
 package com.example.bankingprojectfinal.Controller;
 
+import com.example.bankingprojectfinal.DTOS.Transaction.BatchTransferRequest;
+import com.example.bankingprojectfinal.DTOS.Transaction.BatchTransferResponse;
+import com.example.bankingprojectfinal.DTOS.Transaction.TransactionCursorPage;
 import com.example.bankingprojectfinal.DTOS.Transaction.TransactionDto;
 import com.example.bankingprojectfinal.DTOS.Transaction.TransferRequest;
 import com.example.bankingprojectfinal.Service.Abstraction.TransactionService;
@@ -17,6 +20,9 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity; // Use ResponseEntity for more control
 import org.springframework.security.access.prepost.PreAuthorize; // For role-based authorization
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/v1/transactions")
@@ -59,6 +65,26 @@ public class TransactionController {
         return result;
     }
 
+    @Operation(summary = "Initiate a batch of card-to-card transfers",
+            description = "Executes up to the configured maximum number of transfers in one request. Each transfer is validated on its own; failed items are reported in the response and do not stop the rest of the batch.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch processed; see the per-item results"),
+            @ApiResponse(responseCode = "400", description = "Empty batch or batch larger than the configured maximum"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized: Authentication required"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping("/transfer/batch")
+    @PreAuthorize("hasRole('CUSTOMER')")
+    public BatchTransferResponse initiateBatchTransfer(
+            @Parameter(description = "Transfers to execute, in order", required = true)
+            @Valid @RequestBody BatchTransferRequest request
+    ) {
+        log.info("Received batch transfer request with {} transfers", request.getTransfers().size());
+        BatchTransferResponse result = badRequestOnInvalidArgument(() -> transactionService.transferBatch(request.getTransfers()));
+        log.info("Batch transfer finished: {} succeeded, {} failed", result.getSuccessCount(), result.getFailureCount());
+        return result;
+    }
+
     @Operation(summary = "Get transactions for the currently authenticated user",
             description = "Retrieves a paginated list of transactions where the authenticated user is either the sender or receiver.")
     @ApiResponses(value = {
@@ -79,6 +105,27 @@ public class TransactionController {
         return transactionService.getTransactionsByCurrentUser(page, size);
     }
 
+    @Operation(summary = "Get transactions for the currently authenticated user, cursor paged",
+            description = "Retrieves the authenticated user's transactions newest first. Pass the returned nextCursor as 'after' to get the next page; it is null on the last page. No total count is computed, and deep pages are as fast as the first.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved a page of transactions for the current user"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor, or page size not between 1 and 100"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized: Authentication required"),
+            @ApiResponse(responseCode = "403", description = "Forbidden: Not a customer or customer profile not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/my/cursor")
+    @PreAuthorize("hasRole('CUSTOMER')")
+    public TransactionCursorPage getTransactionsByCurrentUserAfter(
+            @Parameter(description = "nextCursor of the previous page; omit for the first page")
+            @RequestParam(required = false) String after,
+            @Parameter(description = "Number of items per page", example = "10")
+            @RequestParam(defaultValue = "10", required = false) Integer size
+    ) {
+        log.info("Fetching transactions for current authenticated customer (After: {}, Size: {})", after, size);
+        return badRequestOnInvalidArgument(() -> transactionService.getTransactionsByCurrentUserAfter(after, size));
+    }
+
     // --- Admin-only Endpoints ---
 
     @Operation(summary = "ADMIN: Get transactions by customer ID",
@@ -123,4 +170,103 @@ public class TransactionController {
         log.info("Admin fetching all transactions (Page: {}, Size: {})", page, size);
         return transactionService.getAllTransactions(page, size);
     }
-}
\ No newline at end of file
+
+    @Operation(summary = "ADMIN: Get transactions by customer ID, cursor paged",
+            description = "Retrieves a customer's transactions newest first. Pass the returned nextCursor as 'after' to get the next page; it is null on the last page. Requires ADMIN role.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved a page of transactions for the customer"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor, or page size not between 1 and 100"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized: Authentication required"),
+            @ApiResponse(responseCode = "403", description = "Forbidden: User does not have ADMIN role"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/admin/byCustomer/{customerId}/cursor")
+    @PreAuthorize("hasRole('ADMIN')")
+    public TransactionCursorPage getTransactionsByCustomerIdAfter(
+            @Parameter(description = "ID of the customer to retrieve transactions for", required = true, example = "101")
+            @PathVariable Integer customerId,
+            @Parameter(description = "nextCursor of the previous page; omit for the first page")
+            @RequestParam(required = false) String after,
+            @Parameter(description = "Number of items per page", example = "10")
+            @RequestParam(defaultValue = "10", required = false) Integer size
+    ) {
+        log.info("Admin fetching transactions for customer ID: {} (After: {}, Size: {})", customerId, after, size);
+        return badRequestOnInvalidArgument(() -> transactionService.getTransactionsByCustomerIdAfter(customerId, after, size));
+    }
+
+    @Operation(summary = "ADMIN: Get all transactions, cursor paged",
+            description = "Retrieves all bank transactions newest first. Pass the returned nextCursor as 'after' to get the next page; it is null on the last page. Requires ADMIN role.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved a page of transactions"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor, or page size not between 1 and 100"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized: Authentication required"),
+            @ApiResponse(responseCode = "403", description = "Forbidden: User does not have ADMIN role"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/admin/all/cursor")
+    @PreAuthorize("hasRole('ADMIN')")
+    public TransactionCursorPage getAllTransactionsAfter(
+            @Parameter(description = "nextCursor of the previous page; omit for the first page")
+            @RequestParam(required = false) String after,
+            @Parameter(description = "Number of items per page", example = "10")
+            @RequestParam(defaultValue = "10", required = false) Integer size
+    ) {
+        log.info("Admin fetching all transactions (After: {}, Size: {})", after, size);
+        return badRequestOnInvalidArgument(() -> transactionService.getAllTransactionsAfter(after, size));
+    }
+
+    @Operation(summary = "ADMIN: Backfill the per-customer transaction feed",
+            description = "Writes the feed rows missing for the transaction history, e.g. once after upgrading a database whose history predates the feed. Walks the whole transaction table in chunks and can be run again safely. Requires ADMIN role.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Backfill finished; returns the number of feed rows written (0 if another node is running it)"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized: Authentication required"),
+            @ApiResponse(responseCode = "403", description = "Forbidden: User does not have ADMIN role"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping("/admin/feed/backfill")
+    @PreAuthorize("hasRole('ADMIN')")
+    public int backfillTransactionFeed() {
+        log.info("Admin requested a transaction feed backfill");
+        return transactionService.backfillTransactionFeed();
+    }
+
+    @Operation(summary = "ADMIN: Rebuild today's daily spend counters",
+            description = "Recomputes today's per-customer daily spend counters from the transaction table, e.g. once after upgrading a database whose transfers predate the counters. Replaces the counters, so run it while transfers are quiet. Requires ADMIN role.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Rebuild finished; returns the number of counters rebuilt (0 if another node is running it)"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized: Authentication required"),
+            @ApiResponse(responseCode = "403", description = "Forbidden: User does not have ADMIN role"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping("/admin/limits/daily-spend/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public int rebuildDailySpend() {
+        log.info("Admin requested a daily spend rebuild");
+        return transactionService.rebuildDailySpend();
+    }
+
+    @Operation(summary = "ADMIN: Rebuild the customer activity window",
+            description = "Recomputes the per-customer daily activity buckets of the rolling window from the transaction table, e.g. once after upgrading a database whose transfers predate the buckets. Replaces the buckets, so run it while transfers are quiet. Requires ADMIN role.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Rebuild finished; returns the number of buckets rebuilt (0 if another node is running it)"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized: Authentication required"),
+            @ApiResponse(responseCode = "403", description = "Forbidden: User does not have ADMIN role"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping("/admin/activity/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public int rebuildCustomerActivity() {
+        log.info("Admin requested a customer activity rebuild");
+        return transactionService.rebuildCustomerActivity();
+    }
+
+    // The cursor services reject a malformed cursor or page size, and the batch service an empty or oversized
+    // batch, with IllegalArgumentException
+    private <T> T badRequestOnInvalidArgument(Supplier<T> call) {
+        try {
+            return call.get();
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.bankingprojectfinal.DTOS.Transaction;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferItemResult {
+    private int index; // Position of the transfer in the request
+    private boolean success;
+    private String message;
+    private TransactionDto transaction; // Only set when the transfer succeeded
+}
@@ -0,0 +1,23 @@
+package com.example.bankingprojectfinal.DTOS.Transaction;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Request DTO for submitting several card-to-card transfers at once")
+public class BatchTransferRequest {
+
+    @NotEmpty(message = "Batch must contain at least one transfer")
+    // Items are validated one by one by the service so a bad item fails on its own instead of the whole batch
+    @Schema(description = "Transfers to execute, in order")
+    private List<TransferRequest> transfers;
+}
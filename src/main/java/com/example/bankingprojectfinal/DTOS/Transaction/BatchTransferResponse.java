@@ -0,0 +1,19 @@
+package com.example.bankingprojectfinal.DTOS.Transaction;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferResponse {
+    private int totalCount;
+    private int successCount;
+    private int failureCount;
+    private List<BatchTransferItemResult> results; // One per requested transfer, in request order
+}
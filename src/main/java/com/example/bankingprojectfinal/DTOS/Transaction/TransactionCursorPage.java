@@ -0,0 +1,17 @@
+package com.example.bankingprojectfinal.DTOS.Transaction;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionCursorPage {
+    private List<TransactionDto> content; // Newest first
+    private String nextCursor; // Pass as 'after' for the next page; null on the last page
+}
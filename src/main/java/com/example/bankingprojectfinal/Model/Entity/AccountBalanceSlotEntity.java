@@ -0,0 +1,28 @@
+package com.example.bankingprojectfinal.Model.Entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// Credits received by a hot account that have not been moved into account.balance yet. Concurrent
+// credits land on different slots, so they do not queue on the account row or on each other.
+@Entity
+@Table(name = "account_balance_slot")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountBalanceSlotEntity {
+    @EmbeddedId
+    private AccountBalanceSlotId id;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+}
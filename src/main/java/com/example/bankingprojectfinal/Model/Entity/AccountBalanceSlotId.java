@@ -0,0 +1,21 @@
+package com.example.bankingprojectfinal.Model.Entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountBalanceSlotId implements Serializable {
+    @Column(name = "account_id")
+    private Integer accountId;
+
+    @Column(name = "slot")
+    private Integer slot;
+}
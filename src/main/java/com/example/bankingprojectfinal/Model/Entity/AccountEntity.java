@@ -36,6 +36,14 @@ public class AccountEntity {
     @Enumerated(EnumType.STRING)
     private AccountStatus status;
 
+    // Lets concurrent writers of the same account detect each other instead of overwriting the balance
+    @Version
+    private Long version;
+
+    // Number of balance slots when the account is flagged hot, null otherwise (see HotAccountBalances)
+    @Column(name = "balance_slots")
+    private Integer balanceSlots;
+
     @OneToMany(mappedBy = "account", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<CardEntity> cards;
 
@@ -5,7 +5,10 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.springframework.data.domain.Persistable;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -17,7 +20,7 @@ import java.time.LocalDate;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-public class CardEntity {
+public class CardEntity implements Persistable<String> {
     @Id
     private String cardNumber;
 
@@ -29,4 +32,23 @@ public class CardEntity {
 
     @Enumerated(EnumType.STRING)
     private CardStatus status;
+
+    // The card number is assigned, not generated, so without this save() would merge a new card and
+    // SELECT its number first
+    @Transient
+    @Builder.Default
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private boolean isNew = true;
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        isNew = false;
+    }
+
+    @Override
+    public String getId() {
+        return cardNumber;
+    }
 }
\ No newline at end of file
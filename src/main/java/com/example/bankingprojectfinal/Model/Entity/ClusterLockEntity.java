@@ -0,0 +1,34 @@
+package com.example.bankingprojectfinal.Model.Entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Lease on a scheduled job: lockedBy holds it until lockUntil (database time). The row stays after the
+// lease ends and is taken over by the next node that asks for it.
+@Entity
+@Table(name = "cluster_lock")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClusterLockEntity {
+    @Id
+    private String name;
+
+    @Column(nullable = false)
+    private String lockedBy;
+
+    @Column(nullable = false)
+    private LocalDateTime lockedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime lockUntil;
+}
@@ -0,0 +1,28 @@
+package com.example.bankingprojectfinal.Model.Entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// Total of a customer's completed transactions for one day, sent or received, so the rolling
+// activity window used by the suspicion check is a sum over a handful of primary key rows.
+@Entity
+@Table(name = "customer_daily_activity")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerDailyActivityEntity {
+    @EmbeddedId
+    private CustomerDailyActivityId id;
+
+    @Column(nullable = false)
+    private BigDecimal total;
+}
@@ -0,0 +1,28 @@
+package com.example.bankingprojectfinal.Model.Entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// Running total of a customer's completed outgoing transfers for one day, kept in step with the
+// transaction table so the daily limit check is a primary key lookup instead of a SUM.
+@Entity
+@Table(name = "customer_daily_spend")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerDailySpendEntity {
+    @EmbeddedId
+    private CustomerDailySpendId id;
+
+    @Column(nullable = false)
+    private BigDecimal total;
+}
@@ -0,0 +1,22 @@
+package com.example.bankingprojectfinal.Model.Entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerDailySpendId implements Serializable {
+    @Column(name = "customer_id")
+    private Integer customerId;
+
+    @Column(name = "spend_day")
+    private LocalDate spendDay;
+}
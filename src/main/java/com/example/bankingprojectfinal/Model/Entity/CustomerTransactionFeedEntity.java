@@ -0,0 +1,44 @@
+package com.example.bankingprojectfinal.Model.Entity;
+
+import com.example.bankingprojectfinal.Model.Enums.FeedDirection;
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// One row per customer taking part in a completed or failed transaction, written with the transaction
+// (see TransactionFeedWriter), so a customer's history is one range of idx_feed_customer_occurred
+// instead of transaction -> account -> customer joined twice under an OR.
+// occurred_at is the transaction's date; within a day the time ordered transaction id orders the rows.
+@Entity
+@Table(name = "customer_transaction_feed")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerTransactionFeedEntity {
+    @EmbeddedId
+    private CustomerTransactionFeedId id;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDate occurredAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private FeedDirection direction;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    // Account number on the other side; null for deposits
+    private String counterparty;
+}
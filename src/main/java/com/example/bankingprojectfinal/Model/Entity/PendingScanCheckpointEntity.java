@@ -0,0 +1,42 @@
+package com.example.bankingprojectfinal.Model.Entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Progress of a batch run over the pending transactions: the (transaction_date, transaction_id) keyset
+// position of the last chunk it finished. A run that is not completed is continued from here.
+@Entity
+@Table(name = "pending_scan_checkpoint")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PendingScanCheckpointEntity {
+    @Id
+    private String name;
+
+    private LocalDate lastTransactionDate;
+    private UUID lastTransactionId;
+
+    @Column(nullable = false)
+    private long scanned;
+
+    @Column(nullable = false)
+    private long processed;
+
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+
+    @Column(nullable = false)
+    private boolean completed;
+}
@@ -2,14 +2,17 @@ package com.example.bankingprojectfinal.Model.Entity;
 
 import com.example.bankingprojectfinal.Model.Enums.TransactionStatus;
 import com.example.bankingprojectfinal.Model.Enums.TransactionType;
+import com.example.bankingprojectfinal.Utils.TimeOrderedUuidGenerator;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UuidGenerator;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "transaction")
@@ -18,8 +21,10 @@ import java.time.LocalDate;
 @NoArgsConstructor
 @AllArgsConstructor
 public class TransactionEntity {
+    // Time ordered, so inserts append to the primary key index and ids sort by creation time
     @Id
     @GeneratedValue
+    @UuidGenerator(algorithm = TimeOrderedUuidGenerator.HibernateAlgorithm.class)
     private java.util.UUID transactionId;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -41,4 +46,8 @@ public class TransactionEntity {
 
     @Enumerated(EnumType.STRING)
     private TransactionType transactionType;
+
+    // Set while a pending transaction is being completed by one instance (TransactionSchedule)
+    private java.util.UUID claimId;
+    private LocalDateTime claimedUntil;
 }
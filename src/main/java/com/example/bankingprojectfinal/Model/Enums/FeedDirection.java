@@ -0,0 +1,8 @@
+package com.example.bankingprojectfinal.Model.Enums;
+
+// How a transaction looks from the customer whose feed row it is
+public enum FeedDirection {
+    OUTGOING,       // Sent to another customer
+    INCOMING,       // Received from another customer, or deposited
+    OWN_ACCOUNTS    // Moved between two accounts of the same customer
+}
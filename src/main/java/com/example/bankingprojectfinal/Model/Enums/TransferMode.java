@@ -0,0 +1,8 @@
+package com.example.bankingprojectfinal.Model.Enums;
+
+public enum TransferMode {
+    JPA,            // Read balances into entities, check in Java, save both accounts (default)
+    ATOMIC,         // Guarded UPDATE for the debit, unconditional increment for the credit
+    ORDERED_LOCK,   // PESSIMISTIC_WRITE on both accounts in ascending id order, then the JPA path
+    LEDGER          // Balances held by the in-memory single-writer ledger, persisted asynchronously in batches
+}
@@ -0,0 +1,7 @@
+package com.example.bankingprojectfinal.Model.Enums;
+
+public enum VelocityRuleType {
+    TRANSFERS_PER_CARD,     // More than limit transfers from one card within the window
+    DISTINCT_RECIPIENTS,    // More than limit different credit cards paid by one customer within the window
+    REPEATED_AMOUNT         // More than limit transfers of the same amount by one customer within the window
+}
@@ -0,0 +1,41 @@
+package com.example.bankingprojectfinal.Repository;
+
+import com.example.bankingprojectfinal.Model.Entity.AccountBalanceSlotEntity;
+import com.example.bankingprojectfinal.Model.Entity.AccountBalanceSlotId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface AccountBalanceSlotRepository extends JpaRepository<AccountBalanceSlotEntity, AccountBalanceSlotId> {
+
+    // Returns 0 when the slot does not exist (the account is no longer hot)
+    @Modifying
+    @Query("UPDATE AccountBalanceSlotEntity s SET s.amount = s.amount + :amount " +
+            "WHERE s.id.accountId = :accountId AND s.id.slot = :slot")
+    int addToSlot(@Param("accountId") Integer accountId,
+                  @Param("slot") Integer slot,
+                  @Param("amount") BigDecimal amount);
+
+    // Row locks on every slot of the account, held until the surrounding transaction ends. Reads the
+    // amounts only, so no slot entities end up in the persistence context next to the bulk updates.
+    @Query(nativeQuery = true, value =
+            "SELECT amount FROM account_balance_slot WHERE account_id = :accountId ORDER BY slot FOR UPDATE")
+    List<BigDecimal> lockSlotAmounts(@Param("accountId") Integer accountId);
+
+    @Modifying
+    @Query("UPDATE AccountBalanceSlotEntity s SET s.amount = 0 WHERE s.id.accountId = :accountId")
+    int clearSlots(@Param("accountId") Integer accountId);
+
+    @Query("SELECT COALESCE(SUM(s.amount), 0) FROM AccountBalanceSlotEntity s WHERE s.id.accountId = :accountId")
+    BigDecimal sumSlots(@Param("accountId") Integer accountId);
+
+    @Modifying
+    @Query("DELETE FROM AccountBalanceSlotEntity s WHERE s.id.accountId = :accountId")
+    int deleteSlots(@Param("accountId") Integer accountId);
+}
@@ -2,23 +2,69 @@ package com.example.bankingprojectfinal.Repository;
 
 import com.example.bankingprojectfinal.Model.Entity.AccountEntity;
 import com.example.bankingprojectfinal.Model.Enums.AccountStatus;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface AccountRepository extends JpaRepository<AccountEntity, String> {
-    List<AccountEntity> findByCustomer_Id(Integer customerId);
+public interface AccountRepository extends JpaRepository<AccountEntity, Integer> {
+    // Written out because the derived query outer joins customer to compare its id, which keeps the
+    // planner off idx_account_customer; a.customer.id is the account's own customer_id column
+    @Query("SELECT a FROM AccountEntity a WHERE a.customer.id = :customerId")
+    List<AccountEntity> findByCustomer_Id(@Param("customerId") Integer customerId);
     Page<AccountEntity> findByStatus(AccountStatus status, Pageable pageable);
     Boolean existsByAccountNumber(String accountNumber);
     Optional<AccountEntity> findByAccountNumber(String accountNumber);
-    int countByCustomer_Id(Integer customerId);
-    List<AccountEntity> findByExpireDateBeforeAndStatusNot(LocalDate date, AccountStatus status);
+    @Query("SELECT COUNT(a) FROM AccountEntity a WHERE a.customer.id = :customerId")
+    int countByCustomer_Id(@Param("customerId") Integer customerId);
+
+    // Expiry sweep: the next chunk of accounts past their expire date, walked in id order
+    @Query("SELECT a.id FROM AccountEntity a WHERE a.id > :afterId AND a.expireDate < :today " +
+            "AND a.status <> com.example.bankingprojectfinal.Model.Enums.AccountStatus.EXPIRED ORDER BY a.id")
+    List<Integer> findExpiredIdsAfter(@Param("afterId") Integer afterId, @Param("today") LocalDate today, Pageable pageable);
+
+    // The version is bumped so a transfer still holding one of these accounts fails its optimistic check
+    @Modifying
+    @Query("UPDATE AccountEntity a SET a.status = com.example.bankingprojectfinal.Model.Enums.AccountStatus.EXPIRED, " +
+            "a.version = a.version + 1 WHERE a.id IN :ids AND a.expireDate < :today " +
+            "AND a.status <> com.example.bankingprojectfinal.Model.Enums.AccountStatus.EXPIRED")
+    int markExpired(@Param("ids") Collection<Integer> ids, @Param("today") LocalDate today);
+
+    // Debits only if the balance stays at or above minBalance; returns 0 when the guard rejects the update
+    @Modifying
+    @Query("UPDATE AccountEntity a SET a.balance = a.balance - :amount, a.version = a.version + 1 " +
+            "WHERE a.id = :id AND a.balance - :amount >= :minBalance")
+    int debitIfBalanceAllows(@Param("id") Integer id,
+                             @Param("amount") BigDecimal amount,
+                             @Param("minBalance") BigDecimal minBalance);
+
+    @Modifying
+    @Query("UPDATE AccountEntity a SET a.balance = a.balance + :amount, a.version = a.version + 1 WHERE a.id = :id")
+    int credit(@Param("id") Integer id, @Param("amount") BigDecimal amount);
+
+    // Row lock held until the surrounding transaction ends. Callers locking several accounts
+    // must do so in ascending id order so that crossing transfers cannot deadlock.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM AccountEntity a WHERE a.id = :id")
+    Optional<AccountEntity> findByIdForUpdate(@Param("id") Integer id);
+
+    // Id only, so that a following findByIdForUpdate is the first read of the entity
+    @Query("SELECT a.id FROM AccountEntity a WHERE a.accountNumber = :accountNumber")
+    Optional<Integer> findIdByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    // Reads the committed balance, bypassing whatever copy is held in the persistence context
+    @Query("SELECT a.balance FROM AccountEntity a WHERE a.id = :id")
+    BigDecimal findBalanceById(@Param("id") Integer id);
 }
\ No newline at end of file
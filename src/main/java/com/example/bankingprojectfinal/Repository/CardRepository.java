@@ -1,36 +1,86 @@
 package com.example.bankingprojectfinal.Repository;
 
 import com.example.bankingprojectfinal.Model.Entity.CardEntity;
+import com.example.bankingprojectfinal.Model.Enums.AccountStatus;
 import com.example.bankingprojectfinal.Model.Enums.CardStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import javax.smartcardio.Card;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CardRepository extends JpaRepository<CardEntity, String> {
 
-    boolean existsByCardNumber(String cardNumber);
-    List<CardEntity> findByAccount_Customer_Id(Integer customerId);
+    // The queries through the account are written out: derived ones outer join account and filter on
+    // it, so the planner has to read every card first. Inner joined, it starts from the account's index
+    // and reaches the cards through idx_card_account.
+    @Query("SELECT c FROM CardEntity c JOIN c.account a WHERE a.customer.id = :customerId")
+    List<CardEntity> findByAccount_Customer_Id(@Param("customerId") Integer customerId);
     // Counts active/new cards for a specific account.
-    Integer countByAccount_AccountNumber(String accountNumber);
+    @Query("SELECT COUNT(c) FROM CardEntity c JOIN c.account a WHERE a.accountNumber = :accountNumber")
+    Integer countByAccount_AccountNumber(@Param("accountNumber") String accountNumber);
     Optional<CardEntity> findByCardNumber(String cardNumber);
     // New: Find cards associated with a specific account number, with pagination.
-    Page<CardEntity> findByAccount_AccountNumber(String accountNumber, Pageable pageable);
+    @Query("SELECT c FROM CardEntity c JOIN c.account a WHERE a.accountNumber = :accountNumber")
+    Page<CardEntity> findByAccount_AccountNumber(@Param("accountNumber") String accountNumber, Pageable pageable);
 
     // New: Find cards associated with a specific customer ID (via account), with pagination.
-    Page<CardEntity> findByAccount_Customer_Id(Integer customerId, Pageable pageable);
+    @Query("SELECT c FROM CardEntity c JOIN c.account a WHERE a.customer.id = :customerId")
+    Page<CardEntity> findByAccount_Customer_Id(@Param("customerId") Integer customerId, Pageable pageable);
 
     // New: Find all cards with a specific status, with pagination.
     Page<CardEntity> findByStatus(CardStatus status, Pageable pageable);
 
     // New: Get all cards by account number as a List (non-paginated).
     // Use with caution for large result sets.
-    List<CardEntity> findByAccount_AccountNumber(String accountNumber);
+    @Query("SELECT c FROM CardEntity c JOIN c.account a WHERE a.accountNumber = :accountNumber")
+    List<CardEntity> findByAccount_AccountNumber(@Param("accountNumber") String accountNumber);
 
-    Integer countByAccount_Id(Integer id);
-}
\ No newline at end of file
+    @Query("SELECT COUNT(c) FROM CardEntity c WHERE c.account.id = :id")
+    Integer countByAccount_Id(@Param("id") Integer id);
+
+    interface CardRoute {
+        String getCardNumber();
+        Integer getAccountId();
+        Integer getCustomerId();
+        CardStatus getCardStatus();
+        AccountStatus getAccountStatus();
+    }
+
+    // What a transfer needs to know about a card, without loading the entities
+    @Query("SELECT c.cardNumber AS cardNumber, a.id AS accountId, a.customer.id AS customerId, " +
+            "c.status AS cardStatus, a.status AS accountStatus " +
+            "FROM CardEntity c JOIN c.account a WHERE c.cardNumber = :cardNumber")
+    Optional<CardRoute> findRouteByCardNumber(@Param("cardNumber") String cardNumber);
+
+    // Both cards of a transfer with their accounts and the accounts' customers, in one statement
+    @Query("SELECT c FROM CardEntity c JOIN FETCH c.account a JOIN FETCH a.customer " +
+            "WHERE c.cardNumber = :debitCardNumber OR c.cardNumber = :creditCardNumber")
+    List<CardEntity> findTransferCards(@Param("debitCardNumber") String debitCardNumber,
+                                       @Param("creditCardNumber") String creditCardNumber);
+
+    // Loads every card of a batch with its account and the account's customer in a single query
+    @Query("SELECT c FROM CardEntity c JOIN FETCH c.account a JOIN FETCH a.customer WHERE c.cardNumber IN :cardNumbers")
+    List<CardEntity> findAllWithAccountByCardNumberIn(@Param("cardNumbers") Collection<String> cardNumbers);
+
+    // Expiry sweep: the next chunk of cards past their expire date, walked in card number order
+    @Query("SELECT c.cardNumber FROM CardEntity c WHERE c.cardNumber > :afterCardNumber AND c.expireDate < :today " +
+            "AND c.status <> com.example.bankingprojectfinal.Model.Enums.CardStatus.EXPIRED ORDER BY c.cardNumber")
+    List<String> findExpiredCardNumbersAfter(@Param("afterCardNumber") String afterCardNumber,
+                                             @Param("today") LocalDate today, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE CardEntity c SET c.status = com.example.bankingprojectfinal.Model.Enums.CardStatus.EXPIRED " +
+            "WHERE c.cardNumber IN :cardNumbers AND c.expireDate < :today " +
+            "AND c.status <> com.example.bankingprojectfinal.Model.Enums.CardStatus.EXPIRED")
+    int markExpired(@Param("cardNumbers") Collection<String> cardNumbers, @Param("today") LocalDate today);
+}
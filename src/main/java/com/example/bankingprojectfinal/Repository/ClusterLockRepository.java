@@ -0,0 +1,36 @@
+package com.example.bankingprojectfinal.Repository;
+
+import com.example.bankingprojectfinal.Model.Entity.ClusterLockEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+// Times come from the database clock, so nodes whose clocks disagree still agree on the leases
+@Repository
+public interface ClusterLockRepository extends JpaRepository<ClusterLockEntity, String> {
+
+    // Takes over a lease that has run out, or renews one the owner already holds
+    @Modifying
+    @Query(nativeQuery = true, value =
+            "UPDATE cluster_lock SET locked_by = :owner, locked_at = LOCALTIMESTAMP, " +
+            "lock_until = DATEADD(MILLISECOND, :lockAtMostMs, LOCALTIMESTAMP) " +
+            "WHERE name = :name AND (lock_until <= LOCALTIMESTAMP OR locked_by = :owner)")
+    int acquire(@Param("name") String name, @Param("owner") String owner, @Param("lockAtMostMs") long lockAtMostMs);
+
+    // First use of a lock name; two nodes inserting at once fail on the key, and the loser does not get the lock
+    @Modifying
+    @Query(nativeQuery = true, value =
+            "INSERT INTO cluster_lock (name, locked_by, locked_at, lock_until) " +
+            "SELECT :name, :owner, LOCALTIMESTAMP, DATEADD(MILLISECOND, :lockAtMostMs, LOCALTIMESTAMP) " +
+            "WHERE NOT EXISTS (SELECT 1 FROM cluster_lock WHERE name = :name)")
+    int create(@Param("name") String name, @Param("owner") String owner, @Param("lockAtMostMs") long lockAtMostMs);
+
+    // Ends the lease now, but not before lockAtLeastMs after it was taken
+    @Modifying
+    @Query(nativeQuery = true, value =
+            "UPDATE cluster_lock SET lock_until = GREATEST(LOCALTIMESTAMP, DATEADD(MILLISECOND, :lockAtLeastMs, locked_at)) " +
+            "WHERE name = :name AND locked_by = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner, @Param("lockAtLeastMs") long lockAtLeastMs);
+}
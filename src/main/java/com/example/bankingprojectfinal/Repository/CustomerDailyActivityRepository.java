@@ -0,0 +1,61 @@
+package com.example.bankingprojectfinal.Repository;
+
+import com.example.bankingprojectfinal.Model.Entity.CustomerDailyActivityEntity;
+import com.example.bankingprojectfinal.Model.Entity.CustomerDailyActivityId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Repository
+public interface CustomerDailyActivityRepository extends JpaRepository<CustomerDailyActivityEntity, CustomerDailyActivityId> {
+
+    // Adds the amount to the day's bucket, creating it with the first transaction of the day
+    @Modifying
+    @Query(nativeQuery = true, value =
+            "MERGE INTO customer_daily_activity a " +
+            "USING (VALUES (CAST(:customerId AS INTEGER), CAST(:day AS DATE), CAST(:amount AS NUMERIC(38,2)))) " +
+            "AS v(customer_id, activity_day, amount) " +
+            "ON a.customer_id = v.customer_id AND a.activity_day = v.activity_day " +
+            "WHEN MATCHED THEN UPDATE SET total = a.total + v.amount " +
+            "WHEN NOT MATCHED THEN INSERT (customer_id, activity_day, total) VALUES (v.customer_id, v.activity_day, v.amount)")
+    int add(@Param("customerId") Integer customerId,
+            @Param("day") LocalDate day,
+            @Param("amount") BigDecimal amount);
+
+    @Query("SELECT COALESCE(SUM(a.total), 0) FROM CustomerDailyActivityEntity a " +
+            "WHERE a.id.customerId = :customerId AND a.id.activityDay BETWEEN :from AND :to")
+    BigDecimal sumBetween(@Param("customerId") Integer customerId,
+                          @Param("from") LocalDate from,
+                          @Param("to") LocalDate to);
+
+    @Modifying
+    @Query("DELETE FROM CustomerDailyActivityEntity a WHERE a.id.activityDay BETWEEN :from AND :to")
+    int deleteByDayRange(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @Query("DELETE FROM CustomerDailyActivityEntity a WHERE a.id.activityDay < :day")
+    int deleteBefore(@Param("day") LocalDate day);
+
+    // Rebuilds the buckets for a date range from the completed transactions. Like
+    // TransactionRepository.getMonthlyTotalByCustomer, a transaction between two accounts of the
+    // same customer counts once for that customer.
+    @Modifying
+    @Query(nativeQuery = true, value =
+            "INSERT INTO customer_daily_activity (customer_id, activity_day, total) " +
+            "SELECT p.customer_id, p.transaction_date, SUM(p.amount) FROM (" +
+            "  SELECT da.customer_id, t.transaction_date, t.amount " +
+            "  FROM transaction t JOIN account da ON da.id = t.debit_account_id " +
+            "  WHERE t.status = 'COMPLETED' AND t.transaction_date BETWEEN :from AND :to " +
+            "  UNION ALL " +
+            "  SELECT ca.customer_id, t.transaction_date, t.amount " +
+            "  FROM transaction t JOIN account da ON da.id = t.debit_account_id JOIN account ca ON ca.id = t.credit_account_id " +
+            "  WHERE t.status = 'COMPLETED' AND t.transaction_date BETWEEN :from AND :to " +
+            "  AND ca.customer_id <> da.customer_id" +
+            ") p GROUP BY p.customer_id, p.transaction_date")
+    int rebuildFromTransactions(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -0,0 +1,65 @@
+package com.example.bankingprojectfinal.Repository;
+
+import com.example.bankingprojectfinal.Model.Entity.CustomerDailySpendEntity;
+import com.example.bankingprojectfinal.Model.Entity.CustomerDailySpendId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Repository
+public interface CustomerDailySpendRepository extends JpaRepository<CustomerDailySpendEntity, CustomerDailySpendId> {
+
+    // Adds the amount to the day's total only if the result stays within the limit.
+    // Returns 0 when the limit would be exceeded, 1 when the amount was counted.
+    @Modifying
+    @Query(nativeQuery = true, value =
+            "MERGE INTO customer_daily_spend s " +
+            "USING (VALUES (CAST(:customerId AS INTEGER), CAST(:day AS DATE), CAST(:amount AS NUMERIC(38,2)))) " +
+            "AS v(customer_id, spend_day, amount) " +
+            "ON s.customer_id = v.customer_id AND s.spend_day = v.spend_day " +
+            "WHEN MATCHED AND s.total + v.amount <= :limit THEN UPDATE SET total = s.total + v.amount " +
+            "WHEN NOT MATCHED AND v.amount <= :limit THEN " +
+            "INSERT (customer_id, spend_day, total) VALUES (v.customer_id, v.spend_day, v.amount)")
+    int addIfWithinLimit(@Param("customerId") Integer customerId,
+                         @Param("day") LocalDate day,
+                         @Param("amount") BigDecimal amount,
+                         @Param("limit") BigDecimal limit);
+
+    // Unconditional variant for transfers that were already approved (e.g. completed by the scheduler), and
+    // for the spend the in-memory limit engine counted since its last flush
+    @Modifying
+    @Query(nativeQuery = true, value =
+            "MERGE INTO customer_daily_spend s " +
+            "USING (VALUES (CAST(:customerId AS INTEGER), CAST(:day AS DATE), CAST(:amount AS NUMERIC(38,2)))) " +
+            "AS v(customer_id, spend_day, amount) " +
+            "ON s.customer_id = v.customer_id AND s.spend_day = v.spend_day " +
+            "WHEN MATCHED THEN UPDATE SET total = s.total + v.amount " +
+            "WHEN NOT MATCHED THEN INSERT (customer_id, spend_day, total) VALUES (v.customer_id, v.spend_day, v.amount)")
+    int add(@Param("customerId") Integer customerId,
+            @Param("day") LocalDate day,
+            @Param("amount") BigDecimal amount);
+
+    @Query("SELECT s.total FROM CustomerDailySpendEntity s WHERE s.id.customerId = :customerId AND s.id.spendDay = :day")
+    Optional<BigDecimal> findTotal(@Param("customerId") Integer customerId, @Param("day") LocalDate day);
+
+    @Modifying
+    @Query("DELETE FROM CustomerDailySpendEntity s WHERE s.id.spendDay BETWEEN :from AND :to")
+    int deleteByDayRange(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Rebuilds the counters for a date range from the completed transfers in the transaction table
+    @Modifying
+    @Query(nativeQuery = true, value =
+            "INSERT INTO customer_daily_spend (customer_id, spend_day, total) " +
+            "SELECT a.customer_id, t.transaction_date, SUM(t.amount) " +
+            "FROM transaction t JOIN account a ON a.id = t.debit_account_id " +
+            "WHERE t.status = 'COMPLETED' AND t.transaction_type = 'TRANSFER' " +
+            "AND t.transaction_date BETWEEN :from AND :to " +
+            "GROUP BY a.customer_id, t.transaction_date")
+    int rebuildFromTransactions(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
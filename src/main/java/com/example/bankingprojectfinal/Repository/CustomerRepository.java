@@ -5,6 +5,9 @@ import com.example.bankingprojectfinal.Model.Enums.CustomerStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -12,4 +15,9 @@ public interface CustomerRepository extends JpaRepository<CustomerEntity, Intege
     Page<CustomerEntity> findByStatus(CustomerStatus status, Pageable pageable);
     boolean existsByFinCode(String finCode);
     boolean existsByPhoneNumber(String phoneNumber);
+
+    // Changes the status only if it is still the expected one
+    @Modifying
+    @Query("UPDATE CustomerEntity c SET c.status = :to WHERE c.id = :id AND c.status = :from")
+    int updateStatus(@Param("id") Integer id, @Param("from") CustomerStatus from, @Param("to") CustomerStatus to);
 }
\ No newline at end of file
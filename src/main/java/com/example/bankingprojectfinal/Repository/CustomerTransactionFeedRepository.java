@@ -0,0 +1,67 @@
+package com.example.bankingprojectfinal.Repository;
+
+import com.example.bankingprojectfinal.Model.Entity.CustomerTransactionFeedEntity;
+import com.example.bankingprojectfinal.Model.Entity.CustomerTransactionFeedId;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface CustomerTransactionFeedRepository extends JpaRepository<CustomerTransactionFeedEntity, CustomerTransactionFeedId> {
+
+    // A customer's history newest first; each reads idx_feed_customer_occurred from the customer's
+    // newest row (or the cursor) onwards. The Page variant serves the offset endpoints and counts the
+    // customer's range of the index as well. customer_id is fixed, but leading the ORDER BY with it lines
+    // the sort up with the index columns, which is how the planner recognises the index as already sorted.
+    @Query(value = "SELECT f FROM CustomerTransactionFeedEntity f WHERE f.id.customerId = :customerId " +
+            "ORDER BY f.id.customerId, f.occurredAt DESC, f.id.transactionId DESC",
+            countQuery = "SELECT COUNT(f) FROM CustomerTransactionFeedEntity f WHERE f.id.customerId = :customerId")
+    Page<CustomerTransactionFeedEntity> findNewestFirstPage(@Param("customerId") Integer customerId, Pageable pageable);
+
+    @Query("SELECT f FROM CustomerTransactionFeedEntity f WHERE f.id.customerId = :customerId " +
+            "ORDER BY f.id.customerId, f.occurredAt DESC, f.id.transactionId DESC")
+    List<CustomerTransactionFeedEntity> findNewestFirst(@Param("customerId") Integer customerId, Pageable pageable);
+
+    @Query("SELECT f FROM CustomerTransactionFeedEntity f WHERE f.id.customerId = :customerId " +
+            "AND (f.occurredAt < :beforeDate OR (f.occurredAt = :beforeDate AND f.id.transactionId < :beforeId)) " +
+            "ORDER BY f.id.customerId, f.occurredAt DESC, f.id.transactionId DESC")
+    List<CustomerTransactionFeedEntity> findNewestFirstBefore(@Param("customerId") Integer customerId,
+                                                              @Param("beforeDate") LocalDate beforeDate,
+                                                              @Param("beforeId") UUID beforeId,
+                                                              Pageable pageable);
+
+    // Consistency checks, see TransactionFeedJob. Every transaction that is no longer PENDING should
+    // have a row for its debit customer and one for its credit customer (one when they are the same).
+
+    @Query(nativeQuery = true, value =
+            "SELECT COUNT(*) FROM (" +
+            "  SELECT t.transaction_id, da.customer_id FROM transaction t JOIN account da ON da.id = t.debit_account_id " +
+            "  WHERE t.status <> 'PENDING' " +
+            "  UNION " +
+            "  SELECT t.transaction_id, ca.customer_id FROM transaction t JOIN account ca ON ca.id = t.credit_account_id " +
+            "  WHERE t.status <> 'PENDING'" +
+            ") e WHERE NOT EXISTS (SELECT 1 FROM customer_transaction_feed f " +
+            "  WHERE f.customer_id = e.customer_id AND f.transaction_id = e.transaction_id)")
+    long countMissing();
+
+    // Rows whose transaction is gone, still PENDING, or does not involve the row's customer
+    @Query(nativeQuery = true, value =
+            "SELECT COUNT(*) FROM customer_transaction_feed f WHERE NOT EXISTS (" +
+            "  SELECT 1 FROM transaction t " +
+            "  JOIN account da ON da.id = t.debit_account_id JOIN account ca ON ca.id = t.credit_account_id " +
+            "  WHERE t.transaction_id = f.transaction_id AND t.status <> 'PENDING' " +
+            "  AND f.customer_id IN (da.customer_id, ca.customer_id))")
+    long countOrphaned();
+
+    @Query(nativeQuery = true, value =
+            "SELECT COUNT(*) FROM customer_transaction_feed f JOIN transaction t ON t.transaction_id = f.transaction_id " +
+            "WHERE f.amount <> t.amount OR f.occurred_at <> t.transaction_date")
+    long countMismatched();
+}
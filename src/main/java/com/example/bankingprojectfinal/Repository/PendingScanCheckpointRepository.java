@@ -0,0 +1,9 @@
+package com.example.bankingprojectfinal.Repository;
+
+import com.example.bankingprojectfinal.Model.Entity.PendingScanCheckpointEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PendingScanCheckpointRepository extends JpaRepository<PendingScanCheckpointEntity, String> {
+}
@@ -2,16 +2,19 @@ package com.example.bankingprojectfinal.Repository;
 
 import com.example.bankingprojectfinal.Model.Entity.TransactionEntity;
 import com.example.bankingprojectfinal.Model.Enums.TransactionStatus;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.UUID;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<TransactionEntity, String> {
@@ -20,14 +23,38 @@ public interface TransactionRepository extends JpaRepository<TransactionEntity,
     // Sums amounts where the customer's account is the debit account and the transaction is completed on today's date.
     @Query("SELECT COALESCE(SUM(t.amount), 0) FROM TransactionEntity t " +
             "WHERE t.debitAccount.customer.id = :customerId " +
-            "AND DATE(t.transactionDate) = :transactionDate " +
+            "AND t.transactionDate = :transactionDate " +
             "AND t.status = 'COMPLETED'")
     BigDecimal getTodayTotalTransferAmountByDebitAccountCustomer(
             @Param("customerId") Integer customerId,
             @Param("transactionDate") LocalDate transactionDate);
 
-    // Find all transactions where a customer is either the debit account holder or the credit account holder
-    Page<TransactionEntity> findByDebitAccount_Customer_IdOrCreditAccount_Customer_Id(Integer debitCustomerId, Integer creditCustomerId, Pageable pageable);
+    // History newest first, keyset paged by (transactionDate, transactionId): the page after a cursor
+    // costs the same however deep it is and nothing is counted. Both accounts are fetched because the
+    // DTO shows their numbers. They are outer joined, though never missing, so the planner keeps the
+    // transaction table first and reads it in index order; inner joins let it start from account.
+    @Query("SELECT t FROM TransactionEntity t LEFT JOIN FETCH t.debitAccount LEFT JOIN FETCH t.creditAccount " +
+            "ORDER BY t.transactionDate DESC, t.transactionId DESC")
+    List<TransactionEntity> findNewestFirst(Pageable pageable);
+
+    @Query("SELECT t FROM TransactionEntity t LEFT JOIN FETCH t.debitAccount LEFT JOIN FETCH t.creditAccount " +
+            "WHERE t.transactionDate < :beforeDate OR (t.transactionDate = :beforeDate AND t.transactionId < :beforeId) " +
+            "ORDER BY t.transactionDate DESC, t.transactionId DESC")
+    List<TransactionEntity> findNewestFirstBefore(@Param("beforeDate") LocalDate beforeDate,
+                                                  @Param("beforeId") UUID beforeId,
+                                                  Pageable pageable);
+
+    // The transactions behind a page of a customer's feed (CustomerTransactionFeedRepository)
+    @Query("SELECT t FROM TransactionEntity t JOIN FETCH t.debitAccount JOIN FETCH t.creditAccount " +
+            "WHERE t.transactionId IN :transactionIds")
+    List<TransactionEntity> findWithAccountsByTransactionIdIn(@Param("transactionIds") Collection<UUID> transactionIds);
+
+    // Next chunk of transactions that are no longer PENDING, in primary key order, for the feed backfill;
+    // outer joined like findNewestFirst
+    @Query("SELECT t FROM TransactionEntity t LEFT JOIN FETCH t.debitAccount LEFT JOIN FETCH t.creditAccount " +
+            "WHERE t.status <> 'PENDING' AND t.transactionId > :afterId " +
+            "ORDER BY t.transactionId")
+    List<TransactionEntity> findFinishedAfter(@Param("afterId") UUID afterId, Pageable pageable);
 
     // Get monthly total for a customer (as either sender or receiver) for suspicion checks
     @Query("SELECT COALESCE(SUM(t.amount), 0) FROM TransactionEntity t " +
@@ -39,6 +66,68 @@ public interface TransactionRepository extends JpaRepository<TransactionEntity,
             @Param("startDate") LocalDate startDate,
             @Param("endDate") LocalDate endDate);
 
-    // Find pending transactions (used by the scheduler)
-    List<TransactionEntity> findByStatus(TransactionStatus status);
+    interface CustomerAmount {
+        Integer getCustomerId();
+        BigDecimal getTotal();
+    }
+
+    // Completed outgoing transfers of one day, summed per debiting customer (rebuilds in-memory limit state)
+    @Query("SELECT t.debitAccount.customer.id AS customerId, SUM(t.amount) AS total FROM TransactionEntity t " +
+            "WHERE t.transactionDate = :day " +
+            "AND t.status = 'COMPLETED' AND t.transactionType = 'TRANSFER' " +
+            "GROUP BY t.debitAccount.customer.id")
+    List<CustomerAmount> sumCompletedTransfersByDebitCustomer(@Param("day") LocalDate day);
+
+    interface PendingTransactionRef {
+        UUID getTransactionId();
+        LocalDate getTransactionDate();
+        Integer getDebitAccountId();
+    }
+
+    // Oldest pending transactions that no instance holds a live claim on; only ids are read so a chunk stays
+    // small in memory
+    @Query("SELECT t.transactionId AS transactionId, t.transactionDate AS transactionDate, t.debitAccount.id AS debitAccountId " +
+            "FROM TransactionEntity t " +
+            "WHERE t.status = 'PENDING' AND (t.claimedUntil IS NULL OR t.claimedUntil < :now) " +
+            "ORDER BY t.transactionDate, t.transactionId")
+    List<PendingTransactionRef> findPendingRefs(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Next chunk after a keyset position in the same order as findPendingRefs, so a long scan neither
+    // skips nor revisits rows and every chunk costs the same however far the scan has got
+    @Query("SELECT t.transactionId AS transactionId, t.transactionDate AS transactionDate, t.debitAccount.id AS debitAccountId " +
+            "FROM TransactionEntity t " +
+            "WHERE t.status = 'PENDING' AND (t.claimedUntil IS NULL OR t.claimedUntil < :now) " +
+            "AND (t.transactionDate > :afterDate OR (t.transactionDate = :afterDate AND t.transactionId > :afterId)) " +
+            "ORDER BY t.transactionDate, t.transactionId")
+    List<PendingTransactionRef> findPendingRefsAfter(@Param("afterDate") LocalDate afterDate,
+                                                     @Param("afterId") UUID afterId,
+                                                     @Param("now") LocalDateTime now,
+                                                     Pageable pageable);
+
+    // Claims those of the given transactions that are still pending and not claimed by a live claim.
+    // Concurrent claims on the same rows serialize on the row locks, so each row ends up in one claim.
+    @Modifying
+    @Query("UPDATE TransactionEntity t SET t.claimId = :claimId, t.claimedUntil = :claimedUntil " +
+            "WHERE t.transactionId IN :transactionIds AND t.status = 'PENDING' " +
+            "AND (t.claimedUntil IS NULL OR t.claimedUntil < :now)")
+    int claim(@Param("transactionIds") Collection<UUID> transactionIds,
+              @Param("claimId") UUID claimId,
+              @Param("claimedUntil") LocalDateTime claimedUntil,
+              @Param("now") LocalDateTime now);
+
+    // The rows a claim got, in processing order
+    @Query("SELECT t.transactionId AS transactionId, t.transactionDate AS transactionDate, t.debitAccount.id AS debitAccountId " +
+            "FROM TransactionEntity t " +
+            "WHERE t.claimId = :claimId " +
+            "ORDER BY t.transactionDate, t.transactionId")
+    List<PendingTransactionRef> findClaimedRefs(@Param("claimId") UUID claimId);
+
+    // Ends a claim; rows it could not complete are free for the next poll at once
+    @Modifying
+    @Query("UPDATE TransactionEntity t SET t.claimId = NULL, t.claimedUntil = NULL WHERE t.claimId = :claimId")
+    int releaseClaim(@Param("claimId") UUID claimId);
+
+    boolean existsByStatus(TransactionStatus status);
+
+    List<TransactionEntity> findByTransactionIdIn(Collection<UUID> transactionIds);
 }
\ No newline at end of file
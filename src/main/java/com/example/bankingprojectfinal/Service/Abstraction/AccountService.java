@@ -15,6 +15,8 @@ public interface AccountService {
     Page<AccountResponse> getAllExpiredAccounts(Integer page, Integer size);
     Page<AccountResponse> getAllDeletedAccounts(Integer page, Integer size);
     List<AccountResponse> getAccountsByCustomerId(Integer customerId);
+    // Flags the account hot with this many balance slots, or back to a plain account for null
+    void setHotSlots(String accountNumber, Integer slots);
 
     // Customer self-service methods
     AccountCreateResponse createAccountForCurrentUser();
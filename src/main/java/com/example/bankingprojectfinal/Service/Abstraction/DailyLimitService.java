@@ -0,0 +1,19 @@
+package com.example.bankingprojectfinal.Service.Abstraction;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public interface DailyLimitService {
+    // Counts a customer-initiated transfer against today's limit; throws LimitExceedsException if it does not fit.
+    // Must be called inside the transfer's transaction so the amount is released again if it rolls back.
+    void reserve(Integer customerId, BigDecimal amount);
+
+    // Gives back an amount reserved earlier in a transaction that is going to commit anyway
+    void release(Integer customerId, BigDecimal amount);
+
+    // Amount already spent by the customer today, including reservations of transfers still in flight
+    BigDecimal todayTotal(Integer customerId);
+
+    // Counts a transfer that was approved elsewhere (e.g. completed by the scheduler), without a limit check
+    void recordCompleted(Integer customerId, LocalDate day, BigDecimal amount);
+}
@@ -1,16 +1,31 @@
 package com.example.bankingprojectfinal.Service.Abstraction;
 
+import com.example.bankingprojectfinal.DTOS.Transaction.BatchTransferResponse;
+import com.example.bankingprojectfinal.DTOS.Transaction.TransactionCursorPage;
 import com.example.bankingprojectfinal.DTOS.Transaction.TransactionDto;
+import com.example.bankingprojectfinal.DTOS.Transaction.TransferRequest;
 import org.springframework.data.domain.Page;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 public interface TransactionService {
     // Customer methods
     TransactionDto transfer(String debitCardNumber, String creditCardNumber, BigDecimal amount);
+    BatchTransferResponse transferBatch(List<TransferRequest> transfers);
     Page<TransactionDto> getTransactionsByCurrentUser(Integer page, Integer size);
+    // Keyset paged variants: after is the nextCursor of the previous page, null for the first page
+    TransactionCursorPage getTransactionsByCurrentUserAfter(String after, Integer size);
 
     // Admin methods
     Page<TransactionDto> getTransactionsByCustomerId(Integer customerId, Integer page, Integer size);
     Page<TransactionDto> getAllTransactions(Integer page, Integer size);
+    TransactionCursorPage getTransactionsByCustomerIdAfter(Integer customerId, String after, Integer size);
+    TransactionCursorPage getAllTransactionsAfter(String after, Integer size);
+    // Writes the feed rows missing for the transaction history; returns how many were written
+    int backfillTransactionFeed();
+    // Rebuilds today's daily spend counters from the transactions; returns how many were rebuilt
+    int rebuildDailySpend();
+    // Rebuilds the customer activity window from the transactions; returns how many buckets were rebuilt
+    int rebuildCustomerActivity();
 }
\ No newline at end of file
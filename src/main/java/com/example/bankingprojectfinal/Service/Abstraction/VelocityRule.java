@@ -0,0 +1,19 @@
+package com.example.bankingprojectfinal.Service.Abstraction;
+
+import java.math.BigDecimal;
+
+// A sliding-window check run in memory on every transfer before it commits. The rules configured under
+// banking.velocity.rules are built by VelocityRuleEngine; any other bean implementing this interface is
+// evaluated next to them.
+public interface VelocityRule {
+
+    record TransferAttempt(Integer customerId, String debitCardNumber, String creditCardNumber, BigDecimal amount) {
+    }
+
+    // Used as the rule tag of banking.velocity.hits and in the log line of a hit
+    String name();
+
+    // Counts the attempt and returns whether it takes its key over the rule's limit. Called concurrently
+    // and on the transfer's thread, so it must not block or touch the database.
+    boolean record(TransferAttempt attempt, long nowNanos);
+}
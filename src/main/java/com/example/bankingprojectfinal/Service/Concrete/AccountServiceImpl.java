@@ -19,7 +19,6 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -38,6 +37,8 @@ public class AccountServiceImpl implements AccountService {
     private final CustomerRepository customerRepository;
     private final LimitProperties limitProperties;
     private final AccountNumberGenerator accountNumberGenerator;
+    private final CardResolutionCache cardResolutionCache;
+    private final HotAccountBalances hotAccounts;
 
     // Get current authenticated user from JWT token
     private User getCurrentUser() {
@@ -75,10 +76,8 @@ public class AccountServiceImpl implements AccountService {
             throw new IllegalStateException("Customer has reached the maximum account limit of " + limitProperties.getMaxAccountCountPerCustomer());
         }
 
-        String accountNumber;
-        do {
-            accountNumber = accountNumberGenerator.generate();
-        } while (accountRepository.existsByAccountNumber(accountNumber));
+        // Unique by construction, no existence check needed
+        String accountNumber = accountNumberGenerator.generate();
 
         AccountEntity createdAccount = AccountEntity.builder()
                 .accountNumber(accountNumber)
@@ -145,6 +144,7 @@ public class AccountServiceImpl implements AccountService {
         account.setStatus(AccountStatus.ACTIVE);
         account.setExpireDate(LocalDate.now().plusYears(1));
         accountRepository.save(account);
+        cardResolutionCache.evictAccount(account.getId());
         log.info("Account {} activated successfully by customer ID: {}", accountNumber, currentCustomer.getId());
     }
 
@@ -167,10 +167,8 @@ public class AccountServiceImpl implements AccountService {
             throw new IllegalStateException("Customer with ID " + customerId + " has reached the maximum account limit.");
         }
 
-        String accountNumber;
-        do {
-            accountNumber = accountNumberGenerator.generate();
-        } while (accountRepository.existsByAccountNumber(accountNumber));
+        // Unique by construction, no existence check needed
+        String accountNumber = accountNumberGenerator.generate();
 
         AccountEntity createdAccount = AccountEntity.builder()
                 .accountNumber(accountNumber)
@@ -194,6 +192,18 @@ public class AccountServiceImpl implements AccountService {
                 .build();
     }
 
+    @Override
+    @Transactional
+    public void setHotSlots(String accountNumber, Integer slots) {
+        log.info("Admin setting balance slots of account {} to {}", accountNumber, slots);
+        Integer accountId = accountRepository.findIdByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountNotFoundException("Account not found: " + accountNumber));
+        // Serializes with transfers and deposits writing the account row while the slots are rebuilt
+        AccountEntity account = accountRepository.findByIdForUpdate(accountId)
+                .orElseThrow(() -> new AccountNotFoundException("Account not found: " + accountNumber));
+        hotAccounts.changeSlots(account, slots);
+    }
+
     @Override
     public List<AccountResponse> getAccountsByCustomerId(Integer customerId) {
         CustomerEntity customer = customerRepository.findById(customerId)
@@ -242,7 +252,7 @@ public class AccountServiceImpl implements AccountService {
         return AccountResponse.builder()
                 .accountNumber(entity.getAccountNumber())
                 .customerId(entity.getCustomer().getId())
-                .balance(entity.getBalance())
+                .balance(hotAccounts.visibleBalance(entity))
                 .openingDate(entity.getOpeningDate())
                 .expireDate(entity.getExpireDate())
                 .status(entity.getStatus())
@@ -256,21 +266,4 @@ public class AccountServiceImpl implements AccountService {
 
         return new PageImpl<>(accountResponseList, pageable, accountEntityPage.getTotalElements());
     }
-
-    @Scheduled(cron = "0 0 0 * * ?")
-    @Transactional
-    public void expireAccounts() {
-        LocalDate today = LocalDate.now();
-        List<AccountEntity> expiredAccounts = accountRepository.findByExpireDateBeforeAndStatusNot(
-                today, AccountStatus.EXPIRED);
-
-        for (AccountEntity account : expiredAccounts) {
-            account.setStatus(AccountStatus.EXPIRED);
-            log.info("Account {} expired automatically", account.getAccountNumber());
-        }
-
-        if (!expiredAccounts.isEmpty()) {
-            accountRepository.saveAll(expiredAccounts);
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,146 @@
+package com.example.bankingprojectfinal.Service.Concrete;
+
+import com.example.bankingprojectfinal.Model.Entity.CardEntity;
+import com.example.bankingprojectfinal.Model.Enums.AccountStatus;
+import com.example.bankingprojectfinal.Model.Enums.CardStatus;
+import com.example.bankingprojectfinal.Repository.CardRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Card number -> the account, customer and statuses a transfer validates against, so the checks that do
+// not need a balance are answered without the database. Unknown cards are not cached.
+// Whatever changes a card's or an account's status must evict it; inside a transaction the entry is
+// evicted again after commit, so a reader that reloaded it meanwhile cannot keep the old status.
+// Entries also expire shortly after they are written, which bounds how long a status changed by anything
+// that does not evict (another instance, a manual update) stays visible.
+// cardsByAccount indexes the cached card numbers by account for the account evictions. It may name cards
+// that are no longer cached, which only costs a no-op invalidation. A card is indexed before it is cached
+// and unindexed after it left the cache, so a cached card is missing from the index only when a reload
+// races its removal, and then only until it expires.
+@Component
+@Slf4j
+public class CardResolutionCache {
+    private final CardRepository cardRepository;
+    private final Cache<String, ResolvedCard> cache;
+    private final ConcurrentHashMap<Integer, Set<String>> cardsByAccount = new ConcurrentHashMap<>();
+
+    public CardResolutionCache(CardRepository cardRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${banking.cards.cache.max-size:100000}") long maxSize,
+                               @Value("${banking.cards.cache.expire-after-write-ms:60000}") long expireAfterWriteMs) {
+        this.cardRepository = cardRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(expireAfterWriteMs))
+                // Run on the removing thread, so the index is cleaned before the removal returns
+                .executor(Runnable::run)
+                .removalListener((String number, ResolvedCard card, RemovalCause cause) -> {
+                    // A replaced entry is still cached under the same number
+                    if (card != null && cause != RemovalCause.REPLACED) {
+                        unindex(card);
+                    }
+                })
+                .recordStats()
+                .build();
+        // cache.gets{result=hit|miss}, cache.evictions, cache.size tagged cache=cardResolution
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "cardResolution");
+    }
+
+    public record ResolvedCard(String cardNumber, Integer accountId, Integer customerId,
+                               CardStatus cardStatus, AccountStatus accountStatus) {
+
+        public static ResolvedCard of(CardEntity card) {
+            return new ResolvedCard(card.getCardNumber(), card.getAccount().getId(),
+                    card.getAccount().getCustomer().getId(), card.getStatus(), card.getAccount().getStatus());
+        }
+    }
+
+    public Optional<ResolvedCard> resolve(String cardNumber) {
+        return Optional.ofNullable(cache.get(cardNumber, number -> cardRepository.findRouteByCardNumber(number)
+                .map(route -> index(new ResolvedCard(route.getCardNumber(), route.getAccountId(), route.getCustomerId(),
+                        route.getCardStatus(), route.getAccountStatus())))
+                .orElse(null)));
+    }
+
+    public Optional<ResolvedCard> cached(String cardNumber) {
+        return Optional.ofNullable(cache.getIfPresent(cardNumber));
+    }
+
+    // For callers that loaded the card themselves anyway
+    public ResolvedCard put(ResolvedCard card) {
+        cache.put(card.cardNumber(), index(card));
+        return card;
+    }
+
+    public void evictCard(String cardNumber) {
+        afterCommitToo(() -> cache.invalidate(cardNumber));
+    }
+
+    // Status changes of an account apply to every card on it
+    public void evictAccount(Integer accountId) {
+        afterCommitToo(() -> evictIndexed(accountId));
+    }
+
+    public void evictAccounts(Collection<Integer> accountIds) {
+        Set<Integer> ids = Set.copyOf(accountIds);
+        afterCommitToo(() -> ids.forEach(this::evictIndexed));
+    }
+
+    public void evictCards(Collection<String> cardNumbers) {
+        List<String> numbers = List.copyOf(cardNumbers);
+        afterCommitToo(() -> cache.invalidateAll(numbers));
+    }
+
+    private void evictIndexed(Integer accountId) {
+        Set<String> numbers = cardsByAccount.get(accountId);
+        if (numbers != null) {
+            cache.invalidateAll(List.copyOf(numbers));
+        }
+    }
+
+    private ResolvedCard index(ResolvedCard card) {
+        cardsByAccount.compute(card.accountId(), (id, numbers) -> {
+            Set<String> indexed = numbers != null ? numbers : ConcurrentHashMap.newKeySet();
+            indexed.add(card.cardNumber());
+            return indexed;
+        });
+        return card;
+    }
+
+    // Keeps the number while the card is cached again meanwhile, e.g. reloaded after an eviction
+    private void unindex(ResolvedCard card) {
+        cardsByAccount.computeIfPresent(card.accountId(), (id, numbers) -> {
+            if (!cache.asMap().containsKey(card.cardNumber())) {
+                numbers.remove(card.cardNumber());
+            }
+            return numbers.isEmpty() ? null : numbers;
+        });
+    }
+
+    private void afterCommitToo(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.bankingprojectfinal.Service.Concrete;
+
+import com.example.bankingprojectfinal.Repository.ClusterLockRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.UUID;
+
+// Lease locks in the cluster_lock table, shared by every node on the same database. A lease is taken
+// with one conditional UPDATE (or an INSERT the first time a name is used), so a node that does not
+// get it finds out with a single statement and no waiting. A node may take a lease it already holds
+// again; overlapping runs on one node are the job's own business.
+@Component
+@Slf4j
+public class ClusterLocks {
+    private final ClusterLockRepository lockRepository;
+    private final TransactionTemplate ownTransaction;
+    private final String nodeId;
+
+    public ClusterLocks(ClusterLockRepository lockRepository,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${banking.cluster-lock.node-id:}") String nodeId) {
+        this.lockRepository = lockRepository;
+        this.ownTransaction = new TransactionTemplate(transactionManager);
+        this.ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.nodeId = nodeId.isBlank() ? hostName() + "-" + UUID.randomUUID().toString().substring(0, 8) : nodeId;
+        log.info("Cluster locks are taken as node {}", this.nodeId);
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    public boolean tryLock(String name, Duration lockAtMostFor) {
+        long lockAtMostMs = lockAtMostFor.toMillis();
+        try {
+            return Boolean.TRUE.equals(ownTransaction.execute(status ->
+                    lockRepository.acquire(name, nodeId, lockAtMostMs) > 0
+                            || lockRepository.create(name, nodeId, lockAtMostMs) > 0));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Cluster lock {} was created by another node at the same time", name);
+            return false;
+        }
+    }
+
+    public void unlock(String name, Duration lockAtLeastFor) {
+        ownTransaction.executeWithoutResult(status -> {
+            if (lockRepository.release(name, nodeId, lockAtLeastFor.toMillis()) == 0) {
+                log.warn("Cluster lock {} was no longer held by node {} when its job finished; the job ran longer than lockAtMostFor", name, nodeId);
+            }
+        });
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown-host";
+        }
+    }
+}
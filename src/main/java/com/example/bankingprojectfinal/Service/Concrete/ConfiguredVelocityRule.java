@@ -0,0 +1,58 @@
+package com.example.bankingprojectfinal.Service.Concrete;
+
+import com.example.bankingprojectfinal.Model.Enums.VelocityRuleType;
+import com.example.bankingprojectfinal.Service.Abstraction.VelocityRule;
+import com.example.bankingprojectfinal.config.VelocityProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.math.BigDecimal;
+
+// One rule from banking.velocity.rules. A key's window is dropped once the key has been idle for a
+// whole window, when it can no longer contribute to a hit, or earlier if maxKeysPerRule is reached.
+class ConfiguredVelocityRule implements VelocityRule {
+    private final String name;
+    private final VelocityRuleType type;
+    private final int limit;
+    private final long windowNanos;
+    private final Cache<Object, VelocityWindow> windows;
+
+    private record CustomerAmount(Integer customerId, BigDecimal amount) {
+    }
+
+    ConfiguredVelocityRule(VelocityProperties.Rule rule, long maxKeys) {
+        if (rule.getType() == null || rule.getLimit() < 1 || rule.getWindow() == null || rule.getWindow().isNegative()
+                || rule.getWindow().isZero()) {
+            throw new IllegalArgumentException("Velocity rule " + rule.getName() + " needs a type, a limit of at least 1 and a positive window");
+        }
+        this.name = rule.getName() != null ? rule.getName() : rule.getType().name().toLowerCase();
+        this.type = rule.getType();
+        this.limit = rule.getLimit();
+        this.windowNanos = rule.getWindow().toNanos();
+        this.windows = Caffeine.newBuilder()
+                .expireAfterAccess(rule.getWindow())
+                .maximumSize(maxKeys)
+                .build();
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public boolean record(TransferAttempt attempt, long nowNanos) {
+        return switch (type) {
+            case TRANSFERS_PER_CARD -> window(attempt.debitCardNumber()).record(nowNanos, windowNanos);
+            case DISTINCT_RECIPIENTS ->
+                    window(attempt.customerId()).recordDistinct(nowNanos, windowNanos, attempt.creditCardNumber());
+            // 10.0 and 10.00 are the same amount
+            case REPEATED_AMOUNT -> window(new CustomerAmount(attempt.customerId(), attempt.amount().stripTrailingZeros()))
+                    .record(nowNanos, windowNanos);
+        };
+    }
+
+    private VelocityWindow window(Object key) {
+        return windows.get(key, k -> new VelocityWindow(limit));
+    }
+}
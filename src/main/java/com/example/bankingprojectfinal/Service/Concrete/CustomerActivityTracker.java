@@ -0,0 +1,151 @@
+package com.example.bankingprojectfinal.Service.Concrete;
+
+import com.example.bankingprojectfinal.Model.Entity.CustomerEntity;
+import com.example.bankingprojectfinal.Model.Entity.TransactionEntity;
+import com.example.bankingprojectfinal.Model.Enums.CustomerStatus;
+import com.example.bankingprojectfinal.Repository.CustomerDailyActivityRepository;
+import com.example.bankingprojectfinal.Repository.CustomerRepository;
+import com.example.bankingprojectfinal.Utils.LimitProperties;
+import com.example.bankingprojectfinal.config.ClusterLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Keeps customer_daily_activity in step with the completed transactions and answers the rolling
+// activity total from it: at most window-days bucket rows per customer instead of a SUM over the
+// transaction table. Every path that writes a COMPLETED transaction records it here in the same
+// database transaction.
+@Component
+@Slf4j
+public class CustomerActivityTracker {
+    private final CustomerDailyActivityRepository activityRepository;
+    private final CustomerRepository customerRepository;
+    private final LimitProperties limitProperties;
+    private final int windowDays;
+    private final boolean backfillOnStartup;
+
+    public CustomerActivityTracker(CustomerDailyActivityRepository activityRepository,
+                                   CustomerRepository customerRepository,
+                                   LimitProperties limitProperties,
+                                   @Value("${banking.activity.window-days:30}") int windowDays,
+                                   @Value("${banking.activity.backfill-on-startup:false}") boolean backfillOnStartup) {
+        this.activityRepository = activityRepository;
+        this.customerRepository = customerRepository;
+        this.limitProperties = limitProperties;
+        this.windowDays = windowDays;
+        this.backfillOnStartup = backfillOnStartup;
+    }
+
+    private record Bucket(Integer customerId, LocalDate day) {
+    }
+
+    public void recordCompleted(TransactionEntity transaction) {
+        recordCompleted(List.of(transaction));
+    }
+
+    // One update per customer and day however many of the transactions fall into it
+    public void recordCompleted(Collection<TransactionEntity> transactions) {
+        Map<Bucket, BigDecimal> totals = new LinkedHashMap<>();
+        for (TransactionEntity transaction : transactions) {
+            Integer debitCustomerId = transaction.getDebitAccount().getCustomer().getId();
+            Integer creditCustomerId = transaction.getCreditAccount().getCustomer().getId();
+            totals.merge(new Bucket(debitCustomerId, transaction.getTransactionDate()), transaction.getAmount(), BigDecimal::add);
+            if (!creditCustomerId.equals(debitCustomerId)) {
+                totals.merge(new Bucket(creditCustomerId, transaction.getTransactionDate()), transaction.getAmount(), BigDecimal::add);
+            }
+        }
+        totals.forEach(this::add);
+    }
+
+    // The first transactions of a customer's day can both miss the bucket and race to insert it. The
+    // loser's statement fails on the key and leaves its transaction rollback-only, so it is reported as a
+    // lost optimistic race: @RetryOnOptimisticLock callers run again and find the bucket.
+    private void add(Bucket bucket, BigDecimal amount) {
+        try {
+            activityRepository.add(bucket.customerId(), bucket.day(), amount);
+        } catch (DataIntegrityViolationException e) {
+            throw new OptimisticLockingFailureException("Activity bucket " + bucket + " was created concurrently", e);
+        }
+    }
+
+    // Completed transactions sent or received over the last window-days days, today included
+    public BigDecimal rollingTotal(Integer customerId) {
+        LocalDate today = LocalDate.now();
+        return activityRepository.sumBetween(customerId, today.minusDays(windowDays - 1L), today);
+    }
+
+    // Escalates the customer's status when the rolling total passes the suspicion or the blocking limit.
+    // Statuses are never lowered here.
+    public void checkLimits(CustomerEntity customer) {
+        if (customer.getStatus() == CustomerStatus.BLOCKED || customer.getStatus() == CustomerStatus.DELETED) {
+            return;
+        }
+        BigDecimal total = rollingTotal(customer.getId());
+        if (total.compareTo(limitProperties.getMonthlyTransactionBlockedLimit()) > 0) {
+            customer.setStatus(CustomerStatus.BLOCKED);
+            customerRepository.save(customer);
+            log.warn("Customer ID {} BLOCKED: transactions of the last {} days ({}) exceed the blocking limit ({}).",
+                    customer.getId(), windowDays, total, limitProperties.getMonthlyTransactionBlockedLimit());
+        } else if (customer.getStatus() == CustomerStatus.REGULAR
+                && total.compareTo(limitProperties.getMonthlyTransactionSuspectLimit()) > 0) {
+            customer.setStatus(CustomerStatus.SUSPECTED);
+            customerRepository.save(customer);
+            log.warn("Customer ID {} detected as SUSPECTED: transactions of the last {} days ({}) exceed the suspicion limit ({}).",
+                    customer.getId(), windowDays, total, limitProperties.getMonthlyTransactionSuspectLimit());
+        }
+    }
+
+    // Buckets are only maintained from this version on, so the window is rebuilt once from whatever
+    // history the database already holds. Rebuilding replaces the buckets the transfers of the running
+    // nodes keep up to date, so that is an admin step (rebuildWindow,
+    // POST /api/v1/transactions/admin/activity/rebuild) rather than part of every startup;
+    // banking.activity.backfill-on-startup runs it at startup for deployments that want that instead.
+    @EventListener(ApplicationReadyEvent.class)
+    @ClusterLock("activity-backfill")
+    @Transactional
+    public void backfillWindow() {
+        if (backfillOnStartup) {
+            LocalDate today = LocalDate.now();
+            rebuild(today.minusDays(windowDays - 1L), today);
+        }
+    }
+
+    // Returns the number of buckets rebuilt, 0 when another node is running it
+    @ClusterLock("activity-backfill")
+    @Transactional
+    public int rebuildWindow() {
+        LocalDate today = LocalDate.now();
+        return rebuild(today.minusDays(windowDays - 1L), today);
+    }
+
+    // Returns the number of buckets rebuilt
+    @Transactional
+    public int rebuild(LocalDate from, LocalDate to) {
+        int removed = activityRepository.deleteByDayRange(from, to);
+        int rebuilt = activityRepository.rebuildFromTransactions(from, to);
+        log.info("Customer activity buckets rebuilt for {} to {}: {} removed, {} rebuilt from transactions",
+                from, to, removed, rebuilt);
+        return rebuilt;
+    }
+
+    @Scheduled(cron = "0 30 0 * * *")
+    @ClusterLock("activity-purge")
+    @Transactional
+    public void purgeExpiredBuckets() {
+        int removed = activityRepository.deleteBefore(LocalDate.now().minusDays(windowDays - 1L));
+        log.info("Removed {} customer activity buckets older than {} days", removed, windowDays);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.bankingprojectfinal.Service.Concrete;
+
+import com.example.bankingprojectfinal.Repository.CustomerDailySpendRepository;
+import com.example.bankingprojectfinal.config.ClusterLock;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class DailySpendBackfillJob {
+    private final CustomerDailySpendRepository dailySpendRepository;
+
+    @Value("${banking.daily-spend.backfill-on-startup:false}")
+    private boolean backfillOnStartup;
+
+    // Counters are only maintained from this version on, so today's totals are rebuilt once from
+    // whatever history the database already holds. Rebuilding replaces the counters the transfers of the
+    // running nodes keep up to date, so that is an admin step (rebuildToday,
+    // POST /api/v1/transactions/admin/limits/daily-spend/rebuild) rather than part of every startup;
+    // banking.daily-spend.backfill-on-startup runs it at startup for deployments that want that instead.
+    @EventListener(ApplicationReadyEvent.class)
+    @ClusterLock("daily-spend-backfill")
+    @Transactional
+    public void backfillToday() {
+        if (backfillOnStartup) {
+            LocalDate today = LocalDate.now();
+            rebuild(today, today);
+        }
+    }
+
+    // Returns the number of counters rebuilt, 0 when another node is running it
+    @ClusterLock("daily-spend-backfill")
+    @Transactional
+    public int rebuildToday() {
+        LocalDate today = LocalDate.now();
+        return rebuild(today, today);
+    }
+
+    // Returns the number of counters rebuilt
+    @Transactional
+    public int rebuild(LocalDate from, LocalDate to) {
+        int removed = dailySpendRepository.deleteByDayRange(from, to);
+        int rebuilt = dailySpendRepository.rebuildFromTransactions(from, to);
+        log.info("Daily spend counters rebuilt for {} to {}: {} removed, {} rebuilt from transactions",
+                from, to, removed, rebuilt);
+        return rebuilt;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.bankingprojectfinal.Service.Concrete;
+
+import com.example.bankingprojectfinal.Exception.LimitExceedsException;
+import com.example.bankingprojectfinal.Repository.CustomerDailySpendRepository;
+import com.example.bankingprojectfinal.Service.Abstraction.DailyLimitService;
+import com.example.bankingprojectfinal.Utils.LimitProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "banking.limits.engine", havingValue = "DATABASE", matchIfMissing = true)
+public class DatabaseDailyLimitService implements DailyLimitService {
+    private final CustomerDailySpendRepository dailySpendRepository;
+    private final LimitProperties limitProperties;
+
+    // Counts the amount against today's running total and checks the limit in the same statement, so
+    // the cost does not grow with the customer's history. The counter is rolled back with the transfer.
+    @Override
+    public void reserve(Integer customerId, BigDecimal amount) {
+        LocalDate today = LocalDate.now();
+        BigDecimal dailyLimit = limitProperties.getDailyTransactionLimit();
+
+        if (dailySpendRepository.addIfWithinLimit(customerId, today, amount, dailyLimit) == 0) {
+            BigDecimal dailyTotal = dailySpendRepository.findTotal(customerId, today).orElse(BigDecimal.ZERO);
+            throw new LimitExceedsException(
+                    "Daily transfer limit of " + dailyLimit +
+                            " exceeded. Today's transfers: " + dailyTotal + ", requested: " + amount
+            );
+        }
+    }
+
+    @Override
+    public void release(Integer customerId, BigDecimal amount) {
+        dailySpendRepository.add(customerId, LocalDate.now(), amount.negate());
+    }
+
+    @Override
+    public BigDecimal todayTotal(Integer customerId) {
+        return dailySpendRepository.findTotal(customerId, LocalDate.now()).orElse(BigDecimal.ZERO);
+    }
+
+    @Override
+    public void recordCompleted(Integer customerId, LocalDate day, BigDecimal amount) {
+        dailySpendRepository.add(customerId, day, amount);
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.bankingprojectfinal.Service.Concrete;
+
+import com.example.bankingprojectfinal.Repository.AccountRepository;
+import com.example.bankingprojectfinal.Repository.CardRepository;
+import com.example.bankingprojectfinal.config.ClusterLock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+// Nightly sweeps that set accounts and cards past their expire date to EXPIRED. Each chunk is one
+// transaction: the next chunk-size keys after the last one swept, then a bulk UPDATE of those keys
+// that re-checks the expiry condition. No entities are loaded, so memory depends on the chunk size
+// only, and a failure keeps the chunks already committed; the next run picks up the rest.
+//
+// banking.expiry.expired{target} counts the rows changed, banking.expiry.sweep{target, outcome} times
+// the sweeps, with target = account | card.
+@Component
+@Slf4j
+public class ExpirySweepJob {
+    private final AccountRepository accountRepository;
+    private final CardRepository cardRepository;
+    private final CardResolutionCache cardResolutionCache;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int chunkSize;
+
+    public ExpirySweepJob(AccountRepository accountRepository,
+                          CardRepository cardRepository,
+                          CardResolutionCache cardResolutionCache,
+                          TransactionTemplate transactionTemplate,
+                          MeterRegistry meterRegistry,
+                          @Value("${banking.expiry.chunk-size:1000}") int chunkSize) {
+        this.accountRepository = accountRepository;
+        this.cardRepository = cardRepository;
+        this.cardResolutionCache = cardResolutionCache;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(cron = "${banking.expiry.accounts-cron:0 0 0 * * *}")
+    @ClusterLock("expire-accounts")
+    public int expireAccounts() {
+        LocalDate today = LocalDate.now();
+        Pageable chunk = PageRequest.of(0, chunkSize);
+        return sweep("account", 0,
+                afterId -> accountRepository.findExpiredIdsAfter(afterId, today, chunk),
+                ids -> {
+                    cardResolutionCache.evictAccounts(ids);
+                    return accountRepository.markExpired(ids, today);
+                });
+    }
+
+    @Scheduled(cron = "${banking.expiry.cards-cron:0 5 0 * * *}")
+    @ClusterLock("expire-cards")
+    public int expireCards() {
+        LocalDate today = LocalDate.now();
+        Pageable chunk = PageRequest.of(0, chunkSize);
+        return sweep("card", "",
+                afterCardNumber -> cardRepository.findExpiredCardNumbersAfter(afterCardNumber, today, chunk),
+                cardNumbers -> {
+                    cardResolutionCache.evictCards(cardNumbers);
+                    return cardRepository.markExpired(cardNumbers, today);
+                });
+    }
+
+    private record Chunk<K>(List<K> keys, int expired) {
+    }
+
+    private <K> int sweep(String target, K start, Function<K, List<K>> keysAfter, ToIntFunction<List<K>> markExpired) {
+        Counter expiredCounter = Counter.builder("banking.expiry.expired")
+                .description("Rows set to EXPIRED by the expiry sweeps")
+                .tag("target", target)
+                .register(meterRegistry);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        int expired = 0;
+        try {
+            K after = start;
+            while (true) {
+                K from = after;
+                Chunk<K> chunk = transactionTemplate.execute(status -> {
+                    List<K> keys = keysAfter.apply(from);
+                    return new Chunk<>(keys, keys.isEmpty() ? 0 : markExpired.applyAsInt(keys));
+                });
+                if (chunk.keys().isEmpty()) {
+                    break;
+                }
+                expired += chunk.expired();
+                expiredCounter.increment(chunk.expired());
+                after = chunk.keys().get(chunk.keys().size() - 1);
+            }
+            outcome = "success";
+            return expired;
+        } finally {
+            long nanos = sample.stop(Timer.builder("banking.expiry.sweep")
+                    .description("Duration of a nightly expiry sweep")
+                    .tag("target", target)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+            log.info("Expiry sweep ({}): {} {} rows set to EXPIRED in {} ms", outcome, expired, target, nanos / 1_000_000);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.bankingprojectfinal.Service.Concrete;
+
+import com.example.bankingprojectfinal.Model.Entity.AccountBalanceSlotEntity;
+import com.example.bankingprojectfinal.Model.Entity.AccountBalanceSlotId;
+import com.example.bankingprojectfinal.Model.Entity.AccountEntity;
+import com.example.bankingprojectfinal.Repository.AccountBalanceSlotRepository;
+import com.example.bankingprojectfinal.Repository.AccountRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+// Balance handling for hot accounts: accounts (typically merchants) flagged by an admin to take their
+// credits in K balance slots instead of on the account row. Credits then contend only with the
+// credits that picked the same slot. The visible balance is account.balance plus the slots; a debit
+// the account balance does not cover locks the slots and moves them into the balance first.
+// Accounts that are not hot are credited on the account row as before.
+@Component
+@Slf4j
+public class HotAccountBalances {
+    public enum SlotChoice { RANDOM, THREAD }
+
+    private final AccountBalanceSlotRepository slotRepository;
+    private final AccountRepository accountRepository;
+    private final SlotChoice slotChoice;
+    private final int maxSlots;
+
+    public HotAccountBalances(AccountBalanceSlotRepository slotRepository,
+                              AccountRepository accountRepository,
+                              @Value("${banking.accounts.hot.slot-choice:RANDOM}") SlotChoice slotChoice,
+                              @Value("${banking.accounts.hot.max-slots:64}") int maxSlots) {
+        this.slotRepository = slotRepository;
+        this.accountRepository = accountRepository;
+        this.slotChoice = slotChoice;
+        this.maxSlots = maxSlots;
+    }
+
+    public boolean isHot(AccountEntity account) {
+        return account.getBalanceSlots() != null && account.getBalanceSlots() > 0;
+    }
+
+    // For callers that change balances through the loaded (managed) account entity
+    public void credit(AccountEntity account, BigDecimal amount) {
+        if (!creditSlot(account, amount)) {
+            account.setBalance(account.getBalance().add(amount));
+        }
+    }
+
+    // For callers that change balances with UPDATE statements (ATOMIC transfers)
+    public void creditAtomically(AccountEntity account, BigDecimal amount) {
+        if (!creditSlot(account, amount)) {
+            accountRepository.credit(account.getId(), amount);
+        }
+    }
+
+    // Makes the slots part of the entity's balance when the balance alone is below required
+    public void consolidateIfShort(AccountEntity account, BigDecimal required) {
+        if (isHot(account) && account.getBalance().compareTo(required) < 0) {
+            account.setBalance(account.getBalance().add(drainSlots(account.getId())));
+        }
+    }
+
+    // UPDATE-statement variant of consolidateIfShort; returns whether any money was moved
+    public boolean consolidateAtomically(AccountEntity account) {
+        if (!isHot(account)) {
+            return false;
+        }
+        BigDecimal drained = drainSlots(account.getId());
+        if (drained.signum() == 0) {
+            return false;
+        }
+        accountRepository.credit(account.getId(), drained);
+        return true;
+    }
+
+    public BigDecimal visibleBalance(AccountEntity account) {
+        return isHot(account) ? account.getBalance().add(slotRepository.sumSlots(account.getId())) : account.getBalance();
+    }
+
+    // Flags the account hot with the given number of slots, or clears the flag for null. The caller
+    // holds the account row lock; money in the old slots is moved into the balance first.
+    public void changeSlots(AccountEntity account, Integer slots) {
+        if (slots != null && (slots < 1 || slots > maxSlots)) {
+            throw new IllegalArgumentException("Hot account slot count must be between 1 and " + maxSlots + ".");
+        }
+        if (isHot(account)) {
+            account.setBalance(account.getBalance().add(drainSlots(account.getId())));
+            slotRepository.deleteSlots(account.getId());
+        }
+        account.setBalanceSlots(slots);
+        if (slots != null) {
+            slotRepository.saveAll(IntStream.range(0, slots)
+                    .mapToObj(slot -> AccountBalanceSlotEntity.builder()
+                            .id(new AccountBalanceSlotId(account.getId(), slot))
+                            .amount(BigDecimal.ZERO)
+                            .build())
+                    .toList());
+        }
+        log.info("Account {} balance slots set to {}", account.getAccountNumber(), slots);
+    }
+
+    // False when the account is not hot, or stopped being hot after it was loaded
+    private boolean creditSlot(AccountEntity account, BigDecimal amount) {
+        return isHot(account) && slotRepository.addToSlot(account.getId(), pickSlot(account.getBalanceSlots()), amount) == 1;
+    }
+
+    private int pickSlot(int slots) {
+        return switch (slotChoice) {
+            case RANDOM -> ThreadLocalRandom.current().nextInt(slots);
+            case THREAD -> (int) (Thread.currentThread().getId() % slots);
+        };
+    }
+
+    private BigDecimal drainSlots(Integer accountId) {
+        BigDecimal total = slotRepository.lockSlotAmounts(accountId).stream()
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        if (total.signum() != 0) {
+            slotRepository.clearSlots(accountId);
+        }
+        return total;
+    }
+}
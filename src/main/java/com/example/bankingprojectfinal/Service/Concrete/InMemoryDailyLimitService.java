@@ -0,0 +1,238 @@
+package com.example.bankingprojectfinal.Service.Concrete;
+
+import com.example.bankingprojectfinal.Exception.LimitExceedsException;
+import com.example.bankingprojectfinal.Repository.CustomerDailySpendRepository;
+import com.example.bankingprojectfinal.Repository.TransactionRepository;
+import com.example.bankingprojectfinal.Service.Abstraction.DailyLimitService;
+import com.example.bankingprojectfinal.Utils.LimitProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Keeps each customer's spend in memory, in one LongAdder per hour of the last 24 hours, so the daily
+// limit is answered without a query. State is per instance: it is rebuilt from the transaction table
+// at startup and written to customer_daily_spend in the background, never read back from it. Every
+// instance adds what it counted since its last flush, so the table holds the spend of the whole cluster.
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "banking.limits.engine", havingValue = "MEMORY")
+public class InMemoryDailyLimitService implements DailyLimitService {
+    private static final int HOURS = 24;
+
+    private final TransactionRepository transactionRepository;
+    private final CustomerDailySpendRepository dailySpendRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final BigDecimal dailyLimit;
+    private final long dailyLimitCents;
+
+    private volatile Map<Integer, SpendWindow> windows = new ConcurrentHashMap<>();
+    private final Set<Integer> unflushedCustomers = ConcurrentHashMap.newKeySet();
+
+    public InMemoryDailyLimitService(TransactionRepository transactionRepository,
+                                     CustomerDailySpendRepository dailySpendRepository,
+                                     TransactionTemplate transactionTemplate,
+                                     LimitProperties limitProperties) {
+        this.transactionRepository = transactionRepository;
+        this.dailySpendRepository = dailySpendRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.dailyLimit = limitProperties.getDailyTransactionLimit();
+        this.dailyLimitCents = toCents(dailyLimit);
+    }
+
+    @Override
+    public void reserve(Integer customerId, BigDecimal amount) {
+        long cents = toCents(amount);
+        long hour = currentHour();
+        SpendWindow window = windows.computeIfAbsent(customerId, id -> new SpendWindow());
+
+        // Add first and check afterwards: concurrent reservations may both be refused near the limit,
+        // but they can never both be accepted past it
+        LongAdder bucket = window.bucketFor(hour);
+        bucket.add(cents);
+        long todayTotal = window.totalBetween(startOfTodayHour(), hour);
+        if (todayTotal > dailyLimitCents) {
+            bucket.add(-cents);
+            throw new LimitExceedsException(
+                    "Daily transfer limit of " + dailyLimit +
+                            " exceeded. Today's transfers: " + fromCents(todayTotal - cents) + ", requested: " + amount
+            );
+        }
+        unflushedCustomers.add(customerId);
+        undoUnlessCommitted(customerId, bucket, cents);
+    }
+
+    @Override
+    public void release(Integer customerId, BigDecimal amount) {
+        SpendWindow window = windows.get(customerId);
+        if (window != null) {
+            window.bucketFor(currentHour()).add(-toCents(amount));
+            unflushedCustomers.add(customerId);
+        }
+    }
+
+    @Override
+    public void recordCompleted(Integer customerId, LocalDate day, BigDecimal amount) {
+        if (!day.equals(LocalDate.now())) {
+            return; // only today's spend is ever checked
+        }
+        long cents = toCents(amount);
+        LongAdder bucket = windows.computeIfAbsent(customerId, id -> new SpendWindow()).bucketFor(currentHour());
+        bucket.add(cents);
+        unflushedCustomers.add(customerId);
+        undoUnlessCommitted(customerId, bucket, cents);
+    }
+
+    // The spend is counted as soon as it is made so concurrent checks see it; a rolled back (and possibly
+    // retried) transaction takes it out again, so a retry does not count it twice
+    private void undoUnlessCommitted(Integer customerId, LongAdder bucket, long cents) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        bucket.add(-cents);
+                        unflushedCustomers.add(customerId);
+                    }
+                }
+            });
+        }
+    }
+
+    @Override
+    public BigDecimal todayTotal(Integer customerId) {
+        SpendWindow window = windows.get(customerId);
+        return window == null ? BigDecimal.ZERO : fromCents(window.totalBetween(startOfTodayHour(), currentHour()));
+    }
+
+    // The transaction table only has the date of each transfer, so today's history goes into the first hour of today.
+    // Runs while the context starts, before the web server and the schedulers can reserve anything; the state
+    // is built aside and swapped in whole, so a reservation is never dropped by a half-rebuilt map. That history
+    // is in customer_daily_spend already, so it counts as flushed.
+    @PostConstruct
+    public void rebuildFromTransactions() {
+        LocalDate today = LocalDate.now();
+        long firstHour = startOfTodayHour();
+        Map<Integer, SpendWindow> rebuilt = new ConcurrentHashMap<>();
+        for (TransactionRepository.CustomerAmount spend : transactionRepository.sumCompletedTransfersByDebitCustomer(today)) {
+            SpendWindow window = rebuilt.computeIfAbsent(spend.getCustomerId(), id -> new SpendWindow());
+            window.bucketFor(firstHour).add(toCents(spend.getTotal()));
+            window.markFlushed(firstHour, window.totalBetween(firstHour, firstHour));
+        }
+        windows = rebuilt;
+        log.info("In-memory daily limit state rebuilt for {} customers", rebuilt.size());
+    }
+
+    // Also runs on shutdown, where the call does not go through a proxy, so the transaction is opened here
+    @Scheduled(fixedDelayString = "${banking.limits.memory.flush-interval-ms:5000}")
+    @PreDestroy
+    public void flushSnapshots() {
+        transactionTemplate.executeWithoutResult(status -> writeSnapshots());
+    }
+
+    private void writeSnapshots() {
+        LocalDate today = LocalDate.now();
+        long firstHour = startOfTodayHour();
+        long hour = currentHour();
+        int flushed = 0;
+        for (Integer customerId : unflushedCustomers) {
+            unflushedCustomers.remove(customerId);
+            SpendWindow window = windows.get(customerId);
+            if (window != null) {
+                // Only what this instance counted since its last flush: other instances add their own spend
+                long unflushed = window.unflushedSince(firstHour, window.totalBetween(firstHour, hour));
+                if (unflushed != 0) {
+                    dailySpendRepository.add(customerId, today, fromCents(unflushed));
+                    flushed++;
+                }
+            }
+        }
+        // Customers that have not spent anything since yesterday hold nothing the limit can still see
+        windows.values().removeIf(window -> window.lastHour < firstHour);
+        if (flushed > 0) {
+            log.debug("Flushed daily spend snapshots for {} customers", flushed);
+        }
+    }
+
+    private static long currentHour() {
+        return LocalDateTime.now().toEpochSecond(ZoneOffset.UTC) / 3600;
+    }
+
+    private static long startOfTodayHour() {
+        return LocalDate.now().atStartOfDay().toEpochSecond(ZoneOffset.UTC) / 3600;
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    // Ring of hourly buckets indexed by hour % 24; a slot is replaced (by CAS) when its hour has passed
+    private static final class SpendWindow {
+        private final AtomicReferenceArray<HourBucket> buckets = new AtomicReferenceArray<>(HOURS);
+        private volatile long lastHour;
+        // Today's total as of the last flush; only the flushing thread touches these
+        private long flushedDayHour;
+        private long flushedCents;
+
+        LongAdder bucketFor(long hour) {
+            int slot = (int) (hour % HOURS);
+            while (true) {
+                HourBucket current = buckets.get(slot);
+                if (current != null && current.hour() >= hour) {
+                    return current.cents();
+                }
+                HourBucket fresh = new HourBucket(hour, new LongAdder());
+                if (buckets.compareAndSet(slot, current, fresh)) {
+                    lastHour = Math.max(lastHour, hour);
+                    return fresh.cents();
+                }
+            }
+        }
+
+        void markFlushed(long dayHour, long cents) {
+            flushedDayHour = dayHour;
+            flushedCents = cents;
+        }
+
+        // What today's total has grown (or shrunk) by since the last flush, which it then marks flushed
+        long unflushedSince(long dayHour, long todayCents) {
+            long since = flushedDayHour == dayHour ? flushedCents : 0;
+            markFlushed(dayHour, todayCents);
+            return todayCents - since;
+        }
+
+        long totalBetween(long fromHour, long toHour) {
+            long total = 0;
+            for (int slot = 0; slot < HOURS; slot++) {
+                HourBucket bucket = buckets.get(slot);
+                if (bucket != null && bucket.hour() >= fromHour && bucket.hour() <= toHour) {
+                    total += bucket.cents().sum();
+                }
+            }
+            return total;
+        }
+    }
+
+    private record HourBucket(long hour, LongAdder cents) {
+    }
+}
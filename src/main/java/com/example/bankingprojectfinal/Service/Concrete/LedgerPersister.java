@@ -0,0 +1,253 @@
+package com.example.bankingprojectfinal.Service.Concrete;
+
+import com.example.bankingprojectfinal.Model.Entity.TransactionEntity;
+import com.example.bankingprojectfinal.Model.Enums.TransactionType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// Writes transfers and deposits accepted by the ledger to the database from one background thread. Each
+// batch is one JDBC transaction: the transaction rows are inserted (or a PENDING row is completed) and the
+// balance changes are applied as per-account deltas.
+//
+// The transfers are already confirmed to the clients, so a failed batch is retried, up to max-attempts
+// times. A batch that still fails is written one transfer at a time so one bad transfer does not hold
+// back the others, and a transfer that fails on its own goes to ledger_dead_letter to be replayed by
+// hand. An interrupt (a shutdown that is taking too long) cuts the retries short.
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "banking.transfer.mode", havingValue = "LEDGER")
+public class LedgerPersister {
+    private static final String UPSERT_TRANSACTION =
+            "MERGE INTO transaction t " +
+                    "USING (VALUES (CAST(? AS UUID), CAST(? AS INTEGER), CAST(? AS INTEGER), CAST(? AS VARCHAR(255)), " +
+                    "CAST(? AS VARCHAR(255)), CAST(? AS DATE), CAST(? AS NUMERIC(38,2)), CAST(? AS VARCHAR(20)), CAST(? AS VARCHAR(20)))) " +
+                    "AS v(transaction_id, debit_account_id, credit_account_id, debit_card_number, credit_card_number, " +
+                    "transaction_date, amount, status, transaction_type) " +
+                    "ON t.transaction_id = v.transaction_id " +
+                    "WHEN MATCHED AND t.status = 'PENDING' THEN UPDATE SET status = v.status, transaction_date = v.transaction_date " +
+                    "WHEN NOT MATCHED THEN INSERT (transaction_id, debit_account_id, credit_account_id, debit_card_number, " +
+                    "credit_card_number, transaction_date, amount, status, transaction_type) " +
+                    "VALUES (v.transaction_id, v.debit_account_id, v.credit_account_id, v.debit_card_number, " +
+                    "v.credit_card_number, v.transaction_date, v.amount, v.status, v.transaction_type)";
+    private static final String APPLY_DELTA =
+            "UPDATE account SET balance = balance + ?, version = version + 1 WHERE id = ?";
+    private static final String INSERT_DEAD_LETTER =
+            "INSERT INTO ledger_dead_letter (transaction_id, debit_account_id, credit_account_id, debit_card_number, " +
+                    "credit_card_number, transaction_date, amount, status, transaction_type, failed_at, error) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CustomerActivityTracker activityTracker;
+    private final TransactionFeedWriter feedWriter;
+    private final BlockingQueue<Entry> queue;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+    private final Counter persisted;
+    private final Counter deadLettered;
+    private final Thread writer;
+    private volatile boolean running = true;
+    private boolean interrupted; // Only touched by the writer thread
+
+    public LedgerPersister(JdbcTemplate jdbcTemplate,
+                           TransactionTemplate transactionTemplate,
+                           CustomerActivityTracker activityTracker,
+                           TransactionFeedWriter feedWriter,
+                           MeterRegistry meterRegistry,
+                           @Value("${banking.ledger.persist.queue-capacity:100000}") int queueCapacity,
+                           @Value("${banking.ledger.persist.batch-size:500}") int batchSize,
+                           @Value("${banking.ledger.persist.flush-interval-ms:50}") long flushIntervalMs,
+                           @Value("${banking.ledger.persist.max-attempts:5}") int maxAttempts,
+                           @Value("${banking.ledger.persist.retry-backoff-ms:1000}") long retryBackoffMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.activityTracker = activityTracker;
+        this.feedWriter = feedWriter;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMs = retryBackoffMs;
+        this.persisted = meterRegistry.counter("banking.ledger.persisted");
+        this.deadLettered = meterRegistry.counter("banking.ledger.dead-lettered");
+        meterRegistry.gauge("banking.ledger.persist.backlog", queue, BlockingQueue::size);
+        this.writer = new Thread(this::run, "ledger-persister");
+        this.writer.start();
+    }
+
+    // Blocks when the backlog is full, which pushes back on the ledger partitions. written is completed
+    // once the transaction is in the database, or exceptionally once it has been dead-lettered.
+    void enqueue(TransactionEntity transaction, CompletableFuture<Void> written) {
+        try {
+            queue.put(new Entry(transaction, written));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while handing a transfer to the ledger persister", e);
+        }
+    }
+
+    private void run() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            Entry first;
+            try {
+                first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                // Shutdown: what is left is still drained, with one attempt per batch
+                interrupted = true;
+                running = false;
+                continue;
+            }
+            if (first == null) {
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, batchSize - 1);
+            store(batch);
+            batch.clear();
+        }
+    }
+
+    private void store(List<Entry> batch) {
+        RuntimeException failure = null;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                write(batch);
+                return;
+            } catch (RuntimeException e) {
+                failure = e;
+                log.error("Failed to persist {} ledger transfers (attempt {} of {}): {}", batch.size(), attempt, maxAttempts, e.getMessage());
+                if (attempt == maxAttempts || !pauseBeforeRetry(attempt)) {
+                    break;
+                }
+            }
+        }
+        if (batch.size() == 1) {
+            deadLetter(batch.get(0), failure);
+            return;
+        }
+        for (Entry entry : batch) {
+            try {
+                write(List.of(entry));
+            } catch (RuntimeException e) {
+                deadLetter(entry, e);
+            }
+        }
+    }
+
+    // False when the writer has been interrupted, in which case there is no further retry
+    private boolean pauseBeforeRetry(int attempt) {
+        if (interrupted) {
+            return false;
+        }
+        try {
+            Thread.sleep(Math.min(retryBackoffMs * attempt, retryBackoffMs * 10));
+            return true;
+        } catch (InterruptedException e) {
+            interrupted = true;
+            running = false;
+            return false;
+        }
+    }
+
+    // The ledger's balances already include the transfer, so it is kept where it can be replayed from
+    private void deadLetter(Entry entry, RuntimeException cause) {
+        TransactionEntity transaction = entry.transaction();
+        Object[] row = row(transaction);
+        Object[] deadLetter = Arrays.copyOf(row, row.length + 2);
+        deadLetter[row.length] = Timestamp.valueOf(LocalDateTime.now());
+        String error = String.valueOf(cause.getMessage());
+        deadLetter[row.length + 1] = error.length() > 1000 ? error.substring(0, 1000) : error;
+        try {
+            jdbcTemplate.update(INSERT_DEAD_LETTER, deadLetter);
+            log.error("Ledger transfer {} could not be persisted and was moved to ledger_dead_letter: {}",
+                    transaction.getTransactionId(), cause.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Ledger transfer could not be persisted nor dead-lettered, it has to be replayed from this log: {}",
+                    Arrays.toString(row), e);
+        }
+        deadLettered.increment();
+        entry.written().completeExceptionally(
+                new IllegalStateException("Ledger transfer " + transaction.getTransactionId() + " could not be persisted", cause));
+    }
+
+    private static Object[] row(TransactionEntity transaction) {
+        return new Object[]{
+                transaction.getTransactionId(), transaction.getDebitAccount().getId(), transaction.getCreditAccount().getId(),
+                transaction.getDebitCardNumber(), transaction.getCreditCardNumber(),
+                Date.valueOf(transaction.getTransactionDate()), transaction.getAmount(),
+                transaction.getStatus().name(), transaction.getTransactionType().name()
+        };
+    }
+
+    private void write(List<Entry> entries) {
+        List<TransactionEntity> batch = entries.stream().map(Entry::transaction).toList();
+        Map<Integer, BigDecimal> deltas = new LinkedHashMap<>();
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        for (TransactionEntity transaction : batch) {
+            rows.add(row(transaction));
+            // A deposit names its account on both sides but only credits it
+            if (transaction.getTransactionType() != TransactionType.DEPOSIT) {
+                deltas.merge(transaction.getDebitAccount().getId(), transaction.getAmount().negate(), BigDecimal::add);
+            }
+            deltas.merge(transaction.getCreditAccount().getId(), transaction.getAmount(), BigDecimal::add);
+        }
+
+        List<Object[]> updates = new ArrayList<>(deltas.size());
+        // Ascending ids, like the other writers, so concurrent row locks are taken in one order
+        deltas.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(delta -> updates.add(new Object[]{delta.getValue(), delta.getKey()}));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(UPSERT_TRANSACTION, rows);
+            jdbcTemplate.batchUpdate(APPLY_DELTA, updates);
+            activityTracker.recordCompleted(batch);
+            feedWriter.record(batch);
+        });
+        persisted.increment(batch.size());
+        entries.forEach(entry -> entry.written().complete(null));
+        log.debug("Persisted {} ledger transfers touching {} accounts", batch.size(), deltas.size());
+    }
+
+    // Called by the engine after its partitions have stopped, so nothing is enqueued any more
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        running = false;
+        writer.join(30_000);
+        if (writer.isAlive()) {
+            // Still retrying a failing batch: the rest is written or dead-lettered without further retries
+            writer.interrupt();
+            writer.join(30_000);
+        }
+        if (!queue.isEmpty()) {
+            log.error("Ledger persister stopped with {} transfers not written", queue.size());
+        }
+    }
+
+    private record Entry(TransactionEntity transaction, CompletableFuture<Void> written) {
+    }
+}
@@ -0,0 +1,256 @@
+package com.example.bankingprojectfinal.Service.Concrete;
+
+import com.example.bankingprojectfinal.Exception.AccountNotFoundException;
+import com.example.bankingprojectfinal.Exception.LimitExceedsException;
+import com.example.bankingprojectfinal.Exception.NotEnoughFundsException;
+import com.example.bankingprojectfinal.Model.Entity.TransactionEntity;
+import com.example.bankingprojectfinal.Repository.AccountRepository;
+import com.example.bankingprojectfinal.Utils.LimitProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Account balances for LEDGER mode. Accounts are split into partitions by id and each partition has
+// exactly one writer thread that owns its balances, so they are read and changed without locks.
+// A transfer is a command on the debit account's partition: it checks and debits, then posts the
+// credit to the credit account's partition, which applies it and hands the transfer to the
+// LedgerPersister. A deposit is a command on the account's partition that credits and hands it on.
+//
+// A balance is taken from the caller's copy of the account the first time its partition sees the
+// account and is kept from then on, so every balance change of an account has to go through the ledger: transfers,
+// deposits (CardServiceImpl) and pending transactions (PendingTransactionProcessor). A change only
+// reaches the persister after every partition it touches has applied it, so while a partition does not
+// hold an account's balance, no ledger change to it has been written and the caller's copy is current.
+// Taking it from the caller also keeps the writers off the connection pool the waiting callers hold.
+// Transfers confirmed but not yet persisted are lost if the process dies.
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "banking.transfer.mode", havingValue = "LEDGER")
+public class LedgerTransferEngine {
+    private final AccountRepository accountRepository;
+    private final LedgerPersister persister;
+    private final BigDecimal minBalance;
+    private final long commandTimeoutMs;
+    private final Partition[] partitions;
+    // Bounds the transfers waiting in the engine. The partition queues themselves are unbounded, because a
+    // writer posting a credit must never block on another writer that may be posting back to it.
+    private final Semaphore admissions;
+    // Commands posted but not finished yet, across all partitions; writers only stop once it is zero
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile boolean running = true;
+
+    public LedgerTransferEngine(AccountRepository accountRepository,
+                                LedgerPersister persister,
+                                LimitProperties limitProperties,
+                                @Value("${banking.ledger.partitions:4}") int partitionCount,
+                                @Value("${banking.ledger.queue-capacity:10000}") int queueCapacity,
+                                @Value("${banking.ledger.command-timeout-ms:5000}") long commandTimeoutMs) {
+        this.accountRepository = accountRepository;
+        this.persister = persister;
+        this.minBalance = limitProperties.getMinAcceptableAccountBalance();
+        this.commandTimeoutMs = commandTimeoutMs;
+        this.admissions = new Semaphore(queueCapacity);
+        this.partitions = new Partition[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new Partition(i);
+        }
+    }
+
+    // Returns once the debit partition has accepted the transfer, or throws the reason it refused it.
+    // The transaction must carry its id, accounts, amount and final status; it is persisted as given,
+    // over the row of a PENDING transaction with the same id. The returned future completes once it has
+    // been written, or exceptionally if the persister had to give it up.
+    public CompletableFuture<Void> transfer(TransactionEntity transaction) {
+        CompletableFuture<Void> written = new CompletableFuture<>();
+        // Read on the caller's thread, where the accounts were loaded
+        BigDecimal debitBalance = transaction.getDebitAccount().getBalance();
+        BigDecimal creditBalance = transaction.getCreditAccount().getBalance();
+        this.<Void>submit(transaction.getDebitAccount().getId(),
+                accepted -> debit(transaction, debitBalance, creditBalance, accepted, written));
+        return written;
+    }
+
+    // Credits the deposit's (credit) account and returns its new balance; persisted like a transfer
+    public BigDecimal deposit(TransactionEntity transaction) {
+        BigDecimal balance = transaction.getCreditAccount().getBalance();
+        return this.<BigDecimal>submit(transaction.getCreditAccount().getId(), accepted -> deposit(transaction, balance, accepted));
+    }
+
+    private <T> T submit(Integer accountId, Consumer<CompletableFuture<T>> command) {
+        CompletableFuture<T> accepted = new CompletableFuture<>();
+        try {
+            if (!admissions.tryAcquire(commandTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Ledger is busy, try again later");
+            }
+            try {
+                partitionOf(accountId).post(() -> command.accept(accepted));
+                return awaitAcceptance(accepted);
+            } finally {
+                admissions.release();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Ledger command failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the ledger", e);
+        }
+    }
+
+    // A command that timed out is cancelled, and the writer skips cancelled commands, so a transfer
+    // reported as failed can never be applied afterwards
+    private <T> T awaitAcceptance(CompletableFuture<T> accepted) throws ExecutionException, InterruptedException {
+        try {
+            return accepted.get(commandTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (accepted.cancel(false)) {
+                throw new IllegalStateException("Ledger did not answer within " + commandTimeoutMs + " ms");
+            }
+            return accepted.get(); // Completed while we were cancelling
+        }
+    }
+
+    // Runs on the debit account's writer thread
+    private void debit(TransactionEntity transaction, BigDecimal debitBalance, BigDecimal creditBalance,
+                       CompletableFuture<Void> accepted, CompletableFuture<Void> written) {
+        Integer debitAccountId = transaction.getDebitAccount().getId();
+        Integer creditAccountId = transaction.getCreditAccount().getId();
+        BigDecimal amount = transaction.getAmount();
+
+        Partition partition = partitionOf(debitAccountId);
+        BigDecimal balance;
+        try {
+            balance = partition.balance(debitAccountId, debitBalance);
+        } catch (RuntimeException e) {
+            accepted.completeExceptionally(e);
+            return;
+        }
+        if (balance.compareTo(amount) < 0) {
+            accepted.completeExceptionally(new NotEnoughFundsException("Insufficient funds in your account. Current balance: " + balance));
+            return;
+        }
+        BigDecimal balanceAfterTransfer = balance.subtract(amount);
+        if (balanceAfterTransfer.compareTo(minBalance) < 0) {
+            accepted.completeExceptionally(new LimitExceedsException(
+                    "Transfer would leave your balance (" + balanceAfterTransfer + ") below the minimum limit (" + minBalance + ")."));
+            return;
+        }
+
+        // Fails only if the caller has already given up on this transfer
+        if (!accepted.complete(null)) {
+            return;
+        }
+        partition.balances.put(debitAccountId, balanceAfterTransfer);
+        partitionOf(creditAccountId).post(() -> {
+            try {
+                partitionOf(creditAccountId).credit(creditAccountId, creditBalance, amount);
+            } finally {
+                // The debit has happened, so the transfer is written even if the credit failed
+                persister.enqueue(transaction, written);
+            }
+        });
+    }
+
+    // Runs on the account's writer thread
+    private void deposit(TransactionEntity transaction, BigDecimal balance, CompletableFuture<BigDecimal> accepted) {
+        Integer accountId = transaction.getCreditAccount().getId();
+        Partition partition = partitionOf(accountId);
+        BigDecimal balanceAfterDeposit;
+        try {
+            balanceAfterDeposit = partition.balance(accountId, balance).add(transaction.getAmount());
+        } catch (RuntimeException e) {
+            accepted.completeExceptionally(e);
+            return;
+        }
+        if (!accepted.complete(balanceAfterDeposit)) {
+            return;
+        }
+        partition.balances.put(accountId, balanceAfterDeposit);
+        persister.enqueue(transaction, new CompletableFuture<>());
+    }
+
+    private Partition partitionOf(Integer accountId) {
+        return partitions[Math.floorMod(accountId, partitions.length)];
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        // Writers keep going until no command is left anywhere, since a debit may still post a credit
+        running = false;
+        for (Partition partition : partitions) {
+            partition.writer.join(10_000);
+        }
+    }
+
+    private final class Partition {
+        final BlockingQueue<Runnable> commands;
+        final Map<Integer, BigDecimal> balances = new HashMap<>(); // Only touched by the writer thread
+        final Thread writer;
+
+        Partition(int index) {
+            this.commands = new LinkedBlockingQueue<>();
+            this.writer = new Thread(this::run, "ledger-partition-" + index);
+            this.writer.start();
+        }
+
+        void post(Runnable command) {
+            inFlight.incrementAndGet();
+            commands.add(command);
+        }
+
+        // loaded is the caller's copy, used when the partition does not hold the balance yet
+        BigDecimal balance(Integer accountId, BigDecimal loaded) {
+            BigDecimal balance = balances.get(accountId);
+            if (balance == null) {
+                balance = loaded != null ? loaded : accountRepository.findBalanceById(accountId);
+                if (balance == null) {
+                    throw new AccountNotFoundException("Account not found with ID: " + accountId);
+                }
+                balances.put(accountId, balance);
+            }
+            return balance;
+        }
+
+        void credit(Integer accountId, BigDecimal loaded, BigDecimal amount) {
+            balances.put(accountId, balance(accountId, loaded).add(amount));
+        }
+
+        private void run() {
+            while (running || inFlight.get() > 0) {
+                Runnable command;
+                try {
+                    command = commands.poll(100, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (command == null) {
+                    continue;
+                }
+                try {
+                    command.run();
+                } catch (RuntimeException e) {
+                    log.error("Ledger command failed on {}: {}", Thread.currentThread().getName(), e.getMessage(), e);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            }
+        }
+    }
+}
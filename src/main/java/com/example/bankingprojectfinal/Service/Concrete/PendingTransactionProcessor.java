@@ -0,0 +1,198 @@
+package com.example.bankingprojectfinal.Service.Concrete;
+
+import com.example.bankingprojectfinal.Exception.AccountNotActiveException;
+import com.example.bankingprojectfinal.Exception.LimitExceedsException;
+import com.example.bankingprojectfinal.Exception.NotEnoughFundsException;
+import com.example.bankingprojectfinal.Model.Entity.AccountEntity;
+import com.example.bankingprojectfinal.Model.Entity.TransactionEntity;
+import com.example.bankingprojectfinal.Model.Enums.AccountStatus;
+import com.example.bankingprojectfinal.Model.Enums.TransactionStatus;
+import com.example.bankingprojectfinal.Model.Enums.TransactionType;
+import com.example.bankingprojectfinal.Repository.AccountRepository;
+import com.example.bankingprojectfinal.Repository.TransactionRepository;
+import com.example.bankingprojectfinal.Service.Abstraction.DailyLimitService;
+import com.example.bankingprojectfinal.config.RetryOnOptimisticLock;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Completes pending transactions of one debit account in their own transaction, so a chunk is
+// committed piece by piece and a failing account does not roll back the others.
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class PendingTransactionProcessor {
+    TransactionRepository transactionRepository;
+    AccountRepository accountRepository;
+    DailyLimitService dailyLimitService;
+    HotAccountBalances hotAccounts;
+    CustomerActivityTracker activityTracker;
+    TransactionFeedWriter feedWriter;
+    ObjectProvider<LedgerTransferEngine> ledgerEngine; // Only present in LEDGER mode
+
+    // Holds pending rows whose ledger transfer is in ledger_dead_letter; releasing a poll's claim leaves them be
+    private static final UUID DEAD_LETTER_CLAIM = new UUID(0L, 0L);
+    private static final LocalDateTime DEAD_LETTER_CLAIMED_UNTIL = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    // Ids must be in processing order; all of them debit the same account and were claimed with claimId
+    @Transactional
+    @RetryOnOptimisticLock("pending-transactions")
+    public int processInOrder(UUID claimId, List<UUID> transactionIds) {
+        Map<UUID, TransactionEntity> transactions = transactionRepository.findByTransactionIdIn(transactionIds).stream()
+                .collect(Collectors.toMap(TransactionEntity::getTransactionId, Function.identity()));
+
+        int processed = 0;
+        for (UUID transactionId : transactionIds) {
+            TransactionEntity transaction = transactions.get(transactionId);
+            // Already handled by an earlier run whose result we are looking at now, or the claim ran out and
+            // another instance took the row over
+            if (transaction == null || transaction.getStatus() != TransactionStatus.PENDING
+                    || !claimId.equals(transaction.getClaimId())) {
+                continue;
+            }
+            process(transaction);
+            processed++;
+        }
+        return processed;
+    }
+
+    private void process(TransactionEntity transaction) {
+        LedgerTransferEngine ledger = ledgerEngine.getIfAvailable();
+        if (ledger != null) {
+            processInLedger(ledger, transaction);
+            return;
+        }
+        try {
+            // Ensure accounts are fetched correctly (they are already part of TransactionEntity)
+            AccountEntity debitAccount = transaction.getDebitAccount();
+            AccountEntity creditAccount = transaction.getCreditAccount();
+
+            // A hot account may keep part of its money in balance slots
+            hotAccounts.consolidateIfShort(debitAccount, transaction.getAmount());
+
+            // Perform checks before debiting/crediting
+            validateAccountForTransaction(debitAccount, transaction.getAmount(), false);
+            validateAccountForTransaction(creditAccount, transaction.getAmount(), true); // No balance check for credit account
+
+            // Update account balances
+            debitAccount.setBalance(debitAccount.getBalance().subtract(transaction.getAmount()));
+            hotAccounts.credit(creditAccount, transaction.getAmount());
+
+            // Save both accounts
+            accountRepository.save(debitAccount);
+            accountRepository.save(creditAccount);
+
+            transaction.setStatus(TransactionStatus.COMPLETED);
+            transaction.setTransactionDate(LocalDate.from(LocalDateTime.now()));
+            transactionRepository.save(transaction);
+            if (transaction.getTransactionType() == TransactionType.TRANSFER) {
+                dailyLimitService.recordCompleted(debitAccount.getCustomer().getId(), transaction.getTransactionDate(), transaction.getAmount());
+            }
+            log.info("Transaction ID {} successfully processed and marked as COMPLETED. Debited: {}, Credited: {}",
+                    transaction.getTransactionId(), debitAccount.getAccountNumber(), creditAccount.getAccountNumber());
+
+            // After successful transaction, check the customer's recent activity for suspicion
+            activityTracker.recordCompleted(transaction);
+            feedWriter.record(transaction);
+            activityTracker.checkLimits(debitAccount.getCustomer());
+
+        } catch (IllegalStateException | AccountNotActiveException | NotEnoughFundsException e) {
+            fail(transaction, e);
+        }
+    }
+
+    // LEDGER mode: the ledger owns the balances, so it checks the funds (and the minimum balance, as for
+    // transfers), moves the money, and its persister completes the row. The group waits until the row is
+    // written, so it is no longer PENDING when the claim is released. A ledger that is busy or stopping
+    // throws, which leaves the row PENDING for a later poll.
+    private void processInLedger(LedgerTransferEngine ledger, TransactionEntity transaction) {
+        AccountEntity debitAccount = transaction.getDebitAccount();
+        AccountEntity creditAccount = transaction.getCreditAccount();
+        try {
+            validateAccountForTransaction(debitAccount, transaction.getAmount(), true); // Funds are the ledger's
+            validateAccountForTransaction(creditAccount, transaction.getAmount(), true);
+        } catch (IllegalStateException | AccountNotActiveException e) {
+            fail(transaction, e);
+            return;
+        }
+
+        // A copy, so the loaded row is not written by this transaction as well
+        TransactionEntity completed = TransactionEntity.builder()
+                .transactionId(transaction.getTransactionId())
+                .debitAccount(debitAccount)
+                .creditAccount(creditAccount)
+                .debitCardNumber(transaction.getDebitCardNumber())
+                .creditCardNumber(transaction.getCreditCardNumber())
+                .amount(transaction.getAmount())
+                .transactionDate(LocalDate.now())
+                .status(TransactionStatus.COMPLETED)
+                .transactionType(transaction.getTransactionType())
+                .build();
+        try {
+            ledger.transfer(completed).join();
+        } catch (NotEnoughFundsException | LimitExceedsException e) {
+            fail(transaction, e);
+            return;
+        } catch (CompletionException e) {
+            // Dead-lettered by the persister: the ledger has applied the transfer, so the row is neither failed
+            // nor free to be applied again. It stays PENDING under a claim that never runs out until the
+            // dead letter is replayed.
+            park(transaction, e);
+            return;
+        }
+
+        if (completed.getTransactionType() == TransactionType.TRANSFER) {
+            dailyLimitService.recordCompleted(debitAccount.getCustomer().getId(), completed.getTransactionDate(), completed.getAmount());
+        }
+        log.info("Transaction ID {} completed by the ledger. Debited: {}, Credited: {}",
+                completed.getTransactionId(), debitAccount.getAccountNumber(), creditAccount.getAccountNumber());
+        activityTracker.checkLimits(debitAccount.getCustomer());
+    }
+
+    private void park(TransactionEntity transaction, RuntimeException e) {
+        log.error("Transaction ID {} was applied by the ledger but dead-lettered by the persister; left PENDING for recovery: {}",
+                transaction.getTransactionId(), e.getMessage());
+        transaction.setClaimId(DEAD_LETTER_CLAIM);
+        transaction.setClaimedUntil(DEAD_LETTER_CLAIMED_UNTIL);
+        transactionRepository.save(transaction);
+    }
+
+    private void fail(TransactionEntity transaction, RuntimeException e) {
+        log.error("Failed to process transaction ID {} (from debit account {} to credit account {}): {}",
+                transaction.getTransactionId(),
+                transaction.getDebitAccount() != null ? transaction.getDebitAccount().getAccountNumber() : "N/A",
+                transaction.getCreditAccount() != null ? transaction.getCreditAccount().getAccountNumber() : "N/A",
+                e.getMessage());
+        transaction.setStatus(TransactionStatus.FAILED);
+        transactionRepository.save(transaction);
+        feedWriter.record(transaction);
+    }
+
+    private void validateAccountForTransaction(AccountEntity account, BigDecimal amount, boolean isCredit) {
+        if (account == null) {
+            throw new IllegalStateException("Account entity is null for transaction processing.");
+        }
+        if (!account.getStatus().equals(AccountStatus.ACTIVE)) {
+            throw new AccountNotActiveException("Account is not active: " + account.getAccountNumber());
+        }
+        if (!isCredit && account.getBalance().compareTo(amount) < 0) {
+            throw new NotEnoughFundsException("Insufficient funds in debit account: " + account.getAccountNumber());
+        }
+        // Add more specific checks if needed, e.g., credit account limits
+    }
+}
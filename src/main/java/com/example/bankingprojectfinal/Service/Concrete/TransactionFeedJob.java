@@ -0,0 +1,137 @@
+package com.example.bankingprojectfinal.Service.Concrete;
+
+import com.example.bankingprojectfinal.Model.Entity.TransactionEntity;
+import com.example.bankingprojectfinal.Repository.CustomerTransactionFeedRepository;
+import com.example.bankingprojectfinal.Repository.TransactionRepository;
+import com.example.bankingprojectfinal.config.ClusterLock;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Maintenance of customer_transaction_feed.
+// backfill writes the rows missing for transactions that are no longer PENDING: once for history older
+// than the feed, and after a check that found gaps. It walks the transaction table in primary key order,
+// chunk-size transactions per database transaction, and only inserts what is not there, so it can be
+// interrupted and run again.
+// The walk covers the whole table, so the one-off run for older history is an admin step
+// (backfillHistory, POST /api/v1/transactions/admin/feed/backfill) rather than part of every startup;
+// banking.feed.backfill-on-startup runs it at startup for deployments that want that instead.
+// check counts the feed rows that are missing, orphaned (transaction gone, PENDING again or not the
+// customer's) or mismatched (amount or date differ) and publishes them as
+// banking.feed.inconsistent{kind}. Missing rows are repaired by a backfill; the others point at a bug
+// and are only reported.
+@Component
+@Slf4j
+public class TransactionFeedJob {
+    // The smallest UUID in the database's (unsigned) order
+    private static final UUID START = new UUID(0, 0);
+
+    public record Report(long missing, long orphaned, long mismatched) {
+        public boolean consistent() {
+            return missing == 0 && orphaned == 0 && mismatched == 0;
+        }
+    }
+
+    private record Chunk(int scanned, UUID last, int written) {
+    }
+
+    private final TransactionRepository transactionRepository;
+    private final CustomerTransactionFeedRepository feedRepository;
+    private final TransactionFeedWriter feedWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final boolean backfillOnStartup;
+    private final AtomicLong missing = new AtomicLong();
+    private final AtomicLong orphaned = new AtomicLong();
+    private final AtomicLong mismatched = new AtomicLong();
+
+    public TransactionFeedJob(TransactionRepository transactionRepository,
+                              CustomerTransactionFeedRepository feedRepository,
+                              TransactionFeedWriter feedWriter,
+                              TransactionTemplate transactionTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${banking.feed.chunk-size:1000}") int chunkSize,
+                              @Value("${banking.feed.backfill-on-startup:false}") boolean backfillOnStartup) {
+        this.transactionRepository = transactionRepository;
+        this.feedRepository = feedRepository;
+        this.feedWriter = feedWriter;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+        this.backfillOnStartup = backfillOnStartup;
+        meterRegistry.gauge("banking.feed.inconsistent", Tags.of("kind", "missing"), missing);
+        meterRegistry.gauge("banking.feed.inconsistent", Tags.of("kind", "orphaned"), orphaned);
+        meterRegistry.gauge("banking.feed.inconsistent", Tags.of("kind", "mismatched"), mismatched);
+    }
+
+    // The leases of the full walks outlast a walk of a large table, so a second node cannot start one
+    // while the first is still going
+    @EventListener(ApplicationReadyEvent.class)
+    @ClusterLock(value = "feed-backfill", lockAtMostFor = "PT6H")
+    public void backfillOnStartup() {
+        if (backfillOnStartup) {
+            backfill();
+        }
+    }
+
+    // Returns the number of feed rows written, 0 when another node is running it
+    @ClusterLock(value = "feed-backfill", lockAtMostFor = "PT6H")
+    public int backfillHistory() {
+        return backfill();
+    }
+
+    // Returns the number of feed rows written
+    public int backfill() {
+        Pageable chunk = PageRequest.of(0, chunkSize);
+        UUID after = START;
+        int written = 0;
+        long scanned = 0;
+        while (true) {
+            UUID from = after;
+            Chunk next = transactionTemplate.execute(status -> {
+                List<TransactionEntity> finished = transactionRepository.findFinishedAfter(from, chunk);
+                return new Chunk(finished.size(), finished.isEmpty() ? null : finished.get(finished.size() - 1).getTransactionId(),
+                        finished.isEmpty() ? 0 : feedWriter.recordMissing(finished));
+            });
+            if (next.scanned() == 0) {
+                break;
+            }
+            scanned += next.scanned();
+            written += next.written();
+            after = next.last();
+        }
+        log.info("Transaction feed backfill: {} transactions scanned, {} feed rows written", scanned, written);
+        return written;
+    }
+
+    @Scheduled(cron = "${banking.feed.check-cron:0 30 1 * * *}")
+    @ClusterLock("feed-check")
+    public Report check() {
+        Report report = transactionTemplate.execute(status -> new Report(
+                feedRepository.countMissing(), feedRepository.countOrphaned(), feedRepository.countMismatched()));
+        missing.set(report.missing());
+        orphaned.set(report.orphaned());
+        mismatched.set(report.mismatched());
+        if (report.consistent()) {
+            log.info("Transaction feed is consistent with the transactions");
+            return report;
+        }
+        log.warn("Transaction feed is inconsistent: {} rows missing, {} orphaned, {} mismatched",
+                report.missing(), report.orphaned(), report.mismatched());
+        if (report.missing() > 0) {
+            backfill();
+        }
+        return report;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.bankingprojectfinal.Service.Concrete;
+
+import com.example.bankingprojectfinal.Model.Entity.AccountEntity;
+import com.example.bankingprojectfinal.Model.Entity.TransactionEntity;
+import com.example.bankingprojectfinal.Model.Enums.FeedDirection;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+// Fans a transaction out to customer_transaction_feed: one row for the debit customer and one for the
+// credit customer, or a single row when both are the same customer. Every path that completes or fails
+// a transaction calls record in the same database transaction, next to CustomerActivityTracker.
+// The rows go through JDBC, on the caller's connection, so JPA and the ledger's JDBC batches share
+// one writer.
+@Component
+@RequiredArgsConstructor
+public class TransactionFeedWriter {
+    private static final String COLUMNS =
+            "customer_transaction_feed (customer_id, transaction_id, occurred_at, direction, amount, counterparty)";
+    private static final String INSERT = "INSERT INTO " + COLUMNS + " VALUES (?, ?, ?, ?, ?, ?)";
+    // For the backfill, which may meet rows that are already there
+    private static final String INSERT_MISSING = "INSERT INTO " + COLUMNS + " SELECT ?, ?, ?, ?, ?, ? " +
+            "WHERE NOT EXISTS (SELECT 1 FROM customer_transaction_feed WHERE customer_id = ? AND transaction_id = ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void record(TransactionEntity transaction) {
+        record(List.of(transaction));
+    }
+
+    public void record(Collection<TransactionEntity> transactions) {
+        List<Object[]> rows = new ArrayList<>(transactions.size() * 2);
+        for (TransactionEntity transaction : transactions) {
+            rows.addAll(rowsFor(transaction));
+        }
+        jdbcTemplate.batchUpdate(INSERT, rows);
+    }
+
+    // Returns how many rows were missing and have been written
+    public int recordMissing(Collection<TransactionEntity> transactions) {
+        List<Object[]> rows = new ArrayList<>(transactions.size() * 2);
+        for (TransactionEntity transaction : transactions) {
+            for (Object[] row : rowsFor(transaction)) {
+                Object[] guarded = Arrays.copyOf(row, row.length + 2);
+                guarded[row.length] = row[0];
+                guarded[row.length + 1] = row[1];
+                rows.add(guarded);
+            }
+        }
+        return Arrays.stream(jdbcTemplate.batchUpdate(INSERT_MISSING, rows)).sum();
+    }
+
+    private static List<Object[]> rowsFor(TransactionEntity transaction) {
+        AccountEntity debit = transaction.getDebitAccount();
+        AccountEntity credit = transaction.getCreditAccount();
+        Integer debitCustomerId = debit.getCustomer().getId();
+        Integer creditCustomerId = credit.getCustomer().getId();
+        if (debitCustomerId.equals(creditCustomerId)) {
+            // A deposit names the credited account on both sides
+            boolean deposit = debit.getId().equals(credit.getId());
+            return List.<Object[]>of(row(transaction, debitCustomerId,
+                    deposit ? FeedDirection.INCOMING : FeedDirection.OWN_ACCOUNTS, deposit ? null : credit.getAccountNumber()));
+        }
+        return List.of(
+                row(transaction, debitCustomerId, FeedDirection.OUTGOING, credit.getAccountNumber()),
+                row(transaction, creditCustomerId, FeedDirection.INCOMING, debit.getAccountNumber()));
+    }
+
+    private static Object[] row(TransactionEntity transaction, Integer customerId, FeedDirection direction, String counterparty) {
+        return new Object[]{customerId, transaction.getTransactionId(), Date.valueOf(transaction.getTransactionDate()),
+                direction.name(), transaction.getAmount(), counterparty};
+    }
+}
@@ -1,123 +1,229 @@
 package com.example.bankingprojectfinal.Service.Concrete;
 
-import com.example.bankingprojectfinal.Exception.AccountNotActiveException;
-import com.example.bankingprojectfinal.Exception.NotEnoughFundsException;
-import com.example.bankingprojectfinal.Model.Entity.AccountEntity;
-import com.example.bankingprojectfinal.Model.Entity.CustomerEntity;
-import com.example.bankingprojectfinal.Model.Entity.TransactionEntity;
-import com.example.bankingprojectfinal.Model.Enums.AccountStatus;
-import com.example.bankingprojectfinal.Model.Enums.CustomerStatus;
-import com.example.bankingprojectfinal.Model.Enums.TransactionStatus;
-import com.example.bankingprojectfinal.Repository.AccountRepository;
-import com.example.bankingprojectfinal.Repository.CustomerRepository;
+import com.example.bankingprojectfinal.Model.Entity.PendingScanCheckpointEntity;
+import com.example.bankingprojectfinal.Repository.PendingScanCheckpointRepository;
 import com.example.bankingprojectfinal.Repository.TransactionRepository;
-import com.example.bankingprojectfinal.Utils.LimitProperties;
-import lombok.AccessLevel;
-import lombok.RequiredArgsConstructor;
-import lombok.experimental.FieldDefaults;
+import com.example.bankingprojectfinal.Repository.TransactionRepository.PendingTransactionRef;
+import com.example.bankingprojectfinal.config.ClusterLock;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.BigDecimal;
-import java.time.LocalDate;
+import java.time.Duration;
 import java.time.LocalDateTime; // Use LocalDateTime for consistency
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Picks up PENDING transactions continuously: every poll claims a small chunk of the oldest ones,
+// groups it by debit account and completes each group on the worker pool in its own transaction.
+// One account's transactions stay in one task, so they are applied in order; different accounts
+// run in parallel. The poll waits for its chunk before the next one is claimed, so memory is bounded
+// by the chunk size.
+//
+// A chunk is claimed in the database before it is handed to the workers: its rows get a claim id and a
+// lease (claim-lease-ms), and the rows another instance already holds are left out. So every instance
+// can poll and no row is completed twice. The claim is released when the chunk is done; if the instance
+// dies first, the rows are free again once the lease has run out.
+//
+// The nightly batch walks the whole backlog the same way, but with a keyset cursor that is saved in
+// pending_scan_checkpoint after every chunk. A batch cut short by a crash or redeploy continues
+// from the last saved chunk when the application starts again. Rows of a chunk that was processed
+// but not yet checkpointed are seen again and skipped, because they are no longer PENDING.
 @Component
 @Slf4j
-@RequiredArgsConstructor
-@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class TransactionSchedule {
+    static final String BATCH_CHECKPOINT = "pending-batch";
+
     private final TransactionRepository transactionRepository;
-    private final AccountRepository accountRepository;
-    private final CustomerRepository customerRepository;
-    private final LimitProperties limitProperties;
+    private final PendingTransactionProcessor pendingTransactionProcessor;
+    private final PendingScanCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int batchChunkSize;
+    private final Duration claimLease;
+    private final ThreadPoolExecutor workers;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public TransactionSchedule(TransactionRepository transactionRepository,
+                               PendingTransactionProcessor pendingTransactionProcessor,
+                               PendingScanCheckpointRepository checkpointRepository,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${banking.pending.chunk-size:100}") int chunkSize,
+                               @Value("${banking.pending.batch.chunk-size:500}") int batchChunkSize,
+                               @Value("${banking.pending.claim-lease-ms:300000}") long claimLeaseMs,
+                               @Value("${banking.pending.worker-threads:4}") int workerThreads) {
+        this.transactionRepository = transactionRepository;
+        this.pendingTransactionProcessor = pendingTransactionProcessor;
+        this.checkpointRepository = checkpointRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+        this.batchChunkSize = batchChunkSize;
+        this.claimLease = Duration.ofMillis(claimLeaseMs);
+        AtomicInteger threadNumber = new AtomicInteger();
+        // Bounded queue; when it is full the polling thread runs the group itself, which slows claiming down
+        this.workers = new ThreadPoolExecutor(workerThreads, workerThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(chunkSize, batchChunkSize)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "pending-tx-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Scheduled(fixedDelayString = "${banking.pending.poll-interval-ms:300}")
+    public void pollPendingTransactions() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            processChunk();
+        } finally {
+            running.set(false);
+        }
+    }
 
-    // This scheduled task processes transactions that might have been created as PENDING
-    // For immediate card-to-card transfers, the status is set to COMPLETED directly in TransactionServiceImpl
+    // Safety net kept from the daily sweep: drains whatever the poller has not reached yet
     @Scheduled(cron = "0 0 0 * * *") // Runs every day at midnight
-    @Transactional
+    @ClusterLock(value = BATCH_CHECKPOINT, lockAtMostFor = "PT2H")
     public void processPendingTransactions() {
-        log.info("Scheduled task: Starting to process pending transactions at {}. (Account-to-Account only)", LocalDateTime.now());
-
-        List<TransactionEntity> pendingTransactions = transactionRepository.findByStatus(TransactionStatus.PENDING);
-        if (pendingTransactions.isEmpty()) {
-            log.info("No pending transactions found to process.");
+        if (!running.compareAndSet(false, true)) {
             return;
         }
+        try {
+            PendingScanCheckpointEntity checkpoint = checkpointRepository.findById(BATCH_CHECKPOINT)
+                    .filter(unfinished -> !unfinished.isCompleted())
+                    .orElseGet(this::startBatch);
+            log.info("Scheduled task: Processing pending transactions at {}, starting after {} / {} ({} scanned so far).",
+                    LocalDateTime.now(), checkpoint.getLastTransactionDate(), checkpoint.getLastTransactionId(), checkpoint.getScanned());
+            runBatch(checkpoint);
+        } finally {
+            running.set(false);
+        }
+    }
 
-        log.info("Found {} pending transactions to process.", pendingTransactions.size());
+    // Calls processPendingTransactions on this bean, past its proxy, so the resume takes the batch's lock itself
+    @EventListener(ApplicationReadyEvent.class)
+    @ClusterLock(value = BATCH_CHECKPOINT, lockAtMostFor = "PT2H")
+    public void resumeInterruptedBatch() {
+        if (checkpointRepository.findById(BATCH_CHECKPOINT).filter(checkpoint -> !checkpoint.isCompleted()).isPresent()) {
+            log.info("Resuming the pending transaction batch that was interrupted");
+            processPendingTransactions();
+        }
+    }
 
-        for (TransactionEntity transaction : pendingTransactions) {
-            try {
-                // Ensure accounts are fetched correctly (they are already part of TransactionEntity)
-                AccountEntity debitAccount = transaction.getDebitAccount();
-                AccountEntity creditAccount = transaction.getCreditAccount();
-
-                // Perform checks before debiting/crediting
-                validateAccountForTransaction(debitAccount, transaction.getAmount(), false);
-                validateAccountForTransaction(creditAccount, transaction.getAmount(), true); // No balance check for credit account
-
-                // Update account balances
-                debitAccount.setBalance(debitAccount.getBalance().subtract(transaction.getAmount()));
-                creditAccount.setBalance(creditAccount.getBalance().add(transaction.getAmount()));
-
-                // Save both accounts
-                accountRepository.save(debitAccount);
-                accountRepository.save(creditAccount);
-
-                transaction.setStatus(TransactionStatus.COMPLETED);
-                transaction.setTransactionDate(LocalDate.from(LocalDateTime.now()));
-                transactionRepository.save(transaction);
-                log.info("Transaction ID {} successfully processed and marked as COMPLETED. Debited: {}, Credited: {}",
-                        transaction.getTransactionId(), debitAccount.getAccountNumber(), creditAccount.getAccountNumber());
-
-                // After successful transaction, check customer's monthly activity for suspicion
-                checkCustomerMonthlyActivityForSuspicion(debitAccount.getCustomer());
-
-            } catch (Exception e) {
-                log.error("Failed to process transaction ID {} (from debit account {} to credit account {}): {}",
-                        transaction.getTransactionId(),
-                        transaction.getDebitAccount() != null ? transaction.getDebitAccount().getAccountNumber() : "N/A",
-                        transaction.getCreditAccount() != null ? transaction.getCreditAccount().getAccountNumber() : "N/A",
-                        e.getMessage());
-                transaction.setStatus(TransactionStatus.FAILED);
-                transactionRepository.save(transaction);
+    private PendingScanCheckpointEntity startBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        return checkpointRepository.save(PendingScanCheckpointEntity.builder()
+                .name(BATCH_CHECKPOINT)
+                .startedAt(now)
+                .updatedAt(now)
+                .build());
+    }
+
+    private void runBatch(PendingScanCheckpointEntity checkpoint) {
+        while (!Thread.currentThread().isInterrupted()) {
+            PageRequest chunk = PageRequest.of(0, batchChunkSize);
+            LocalDateTime now = LocalDateTime.now();
+            List<PendingTransactionRef> pending = checkpoint.getLastTransactionId() == null
+                    ? transactionRepository.findPendingRefs(now, chunk)
+                    : transactionRepository.findPendingRefsAfter(
+                            checkpoint.getLastTransactionDate(), checkpoint.getLastTransactionId(), now, chunk);
+            if (pending.isEmpty()) {
+                checkpoint.setCompleted(true);
+                checkpoint.setUpdatedAt(LocalDateTime.now());
+                checkpointRepository.save(checkpoint);
+                log.info("Scheduled task: Finished processing pending transactions, {} scanned, {} processed.",
+                        checkpoint.getScanned(), checkpoint.getProcessed());
+                return;
             }
+
+            int processed = claimAndProcess(pending);
+
+            // Rows of failed groups, and rows claimed by another instance, stay PENDING behind the cursor;
+            // the poller retries them
+            PendingTransactionRef last = pending.get(pending.size() - 1);
+            checkpoint.setLastTransactionDate(last.getTransactionDate());
+            checkpoint.setLastTransactionId(last.getTransactionId());
+            checkpoint.setScanned(checkpoint.getScanned() + pending.size());
+            checkpoint.setProcessed(checkpoint.getProcessed() + processed);
+            checkpoint.setUpdatedAt(LocalDateTime.now());
+            checkpoint = checkpointRepository.save(checkpoint);
         }
-        log.info("Scheduled task: Finished processing pending transactions.");
     }
 
-    private void validateAccountForTransaction(AccountEntity account, BigDecimal amount, boolean isCredit) {
-        if (account == null) {
-            throw new IllegalStateException("Account entity is null for transaction processing.");
-        }
-        if (!account.getStatus().equals(AccountStatus.ACTIVE)) {
-            throw new AccountNotActiveException("Account is not active: " + account.getAccountNumber());
+    // Returns how many transactions were completed or failed; 0 when nothing was left to do
+    private int processChunk() {
+        List<PendingTransactionRef> pending = transactionRepository.findPendingRefs(LocalDateTime.now(), PageRequest.of(0, chunkSize));
+        return pending.isEmpty() ? 0 : claimAndProcess(pending);
+    }
+
+    // Claims what is still free of the chunk, completes it and releases the claim
+    private int claimAndProcess(List<PendingTransactionRef> candidates) {
+        UUID claimId = UUID.randomUUID();
+        List<UUID> ids = candidates.stream().map(PendingTransactionRef::getTransactionId).toList();
+        List<PendingTransactionRef> claimed = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            return transactionRepository.claim(ids, claimId, now.plus(claimLease), now) == 0
+                    ? List.<PendingTransactionRef>of()
+                    : transactionRepository.findClaimedRefs(claimId);
+        });
+        if (claimed.isEmpty()) {
+            return 0;
         }
-        if (!isCredit && account.getBalance().compareTo(amount) < 0) {
-            throw new NotEnoughFundsException("Insufficient funds in debit account: " + account.getAccountNumber());
+        try {
+            return process(claimId, claimed);
+        } finally {
+            transactionTemplate.executeWithoutResult(status -> transactionRepository.releaseClaim(claimId));
         }
-        // Add more specific checks if needed, e.g., credit account limits
     }
 
-    private void checkCustomerMonthlyActivityForSuspicion(CustomerEntity customerEntity) {
-        LocalDate endDate = LocalDate.now();
-        LocalDate startDate = endDate.minusMonths(1); // Last month
-
-        // Get total of all COMPLETED transactions (debit or credit) for this customer in the last month
-        BigDecimal monthlyTotal = transactionRepository.getMonthlyTotalByCustomer(customerEntity.getId(), startDate, endDate);
-
-        // Assuming a separate limit for monthly activity or suspicion threshold
-        // I'm using `getMonthlySuspicionLimit()` here, which you should define in `LimitProperties`.
-        // If you intended to use `dailyTransactionLimit` for this, reconsider its name/purpose.
-        if (monthlyTotal != null && monthlyTotal.compareTo(limitProperties.getMonthlyTransactionSuspectLimit()) > 0) {
-            customerEntity.setStatus(CustomerStatus.SUSPECTED);
-            customerRepository.save(customerEntity);
-            log.warn("Customer ID {} detected as SUSPECTED due to monthly transaction total ({}) exceeding suspicion limit ({}).",
-                    customerEntity.getId(), monthlyTotal, limitProperties.getMonthlyTransactionSuspectLimit());
+    private int process(UUID claimId, List<PendingTransactionRef> pending) {
+        Map<Integer, List<UUID>> byDebitAccount = new LinkedHashMap<>();
+        for (PendingTransactionRef ref : pending) {
+            byDebitAccount.computeIfAbsent(ref.getDebitAccountId(), id -> new ArrayList<>()).add(ref.getTransactionId());
         }
+        log.debug("Claimed {} pending transactions across {} debit accounts", pending.size(), byDebitAccount.size());
+
+        List<Future<Integer>> results = new ArrayList<>(byDebitAccount.size());
+        byDebitAccount.values().forEach(ids ->
+                results.add(workers.submit(() -> pendingTransactionProcessor.processInOrder(claimId, ids))));
+
+        int processed = 0;
+        for (Future<Integer> result : results) {
+            try {
+                processed += result.get();
+            } catch (ExecutionException e) {
+                // The group's transaction rolled back; its rows are still PENDING and are claimed again once
+                // the claim is released
+                log.error("Failed to process a group of pending transactions: {}", e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return processed;
+            }
+        }
+        return processed;
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
     }
-}
\ No newline at end of file
+}
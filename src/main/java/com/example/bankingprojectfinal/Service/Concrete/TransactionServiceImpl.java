@@ -1,23 +1,42 @@
 package com.example.bankingprojectfinal.Service.Concrete;
 
+import com.example.bankingprojectfinal.DTOS.Transaction.BatchTransferItemResult;
+import com.example.bankingprojectfinal.DTOS.Transaction.BatchTransferResponse;
+import com.example.bankingprojectfinal.DTOS.Transaction.TransactionCursorPage;
 import com.example.bankingprojectfinal.DTOS.Transaction.TransactionDto;
 import com.example.bankingprojectfinal.DTOS.Transaction.TransactionMapper;
+import com.example.bankingprojectfinal.DTOS.Transaction.TransferRequest;
+import com.example.bankingprojectfinal.Exception.AccountNotFoundException;
 import com.example.bankingprojectfinal.Exception.CardNotFoundException;
 import com.example.bankingprojectfinal.Exception.LimitExceedsException;
 import com.example.bankingprojectfinal.Exception.NotEnoughFundsException;
 import com.example.bankingprojectfinal.Model.Entity.AccountEntity;
 import com.example.bankingprojectfinal.Model.Entity.CardEntity;
 import com.example.bankingprojectfinal.Model.Entity.CustomerEntity;
+import com.example.bankingprojectfinal.Model.Entity.CustomerTransactionFeedEntity;
 import com.example.bankingprojectfinal.Model.Entity.TransactionEntity;
 import com.example.bankingprojectfinal.Model.Enums.CardStatus;
 import com.example.bankingprojectfinal.Model.Enums.TransactionStatus;
 import com.example.bankingprojectfinal.Model.Enums.TransactionType;
+import com.example.bankingprojectfinal.Model.Enums.TransferMode;
 import com.example.bankingprojectfinal.Repository.AccountRepository;
 import com.example.bankingprojectfinal.Repository.CardRepository;
+import com.example.bankingprojectfinal.Repository.CustomerTransactionFeedRepository;
 import com.example.bankingprojectfinal.Repository.TransactionRepository;
+import com.example.bankingprojectfinal.Service.Abstraction.DailyLimitService;
 import com.example.bankingprojectfinal.Service.Abstraction.TransactionService;
+import com.example.bankingprojectfinal.Service.Concrete.CardResolutionCache.ResolvedCard;
 import com.example.bankingprojectfinal.Utils.LimitProperties;
+import com.example.bankingprojectfinal.Utils.TimeOrderedUuidGenerator;
+import com.example.bankingprojectfinal.Utils.TransactionCursor;
+import com.example.bankingprojectfinal.config.RetryOnOptimisticLock;
+import com.example.bankingprojectfinal.config.TransferProperties;
+import com.example.bankingprojectfinal.config.TransferStageMetrics;
+import com.example.bankingprojectfinal.config.TransferStageMetrics.Stage;
 import com.example.bankingprojectfinal.security.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
@@ -29,20 +48,45 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class TransactionServiceImpl implements TransactionService {
+    // Largest page the cursor history endpoints return; each page is read and mapped in one go
+    static final int MAX_HISTORY_PAGE_SIZE = 100;
+
     TransactionRepository transactionRepository;
     TransactionMapper transactionMapper;
     CardRepository cardRepository;
     AccountRepository accountRepository;
+    DailyLimitService dailyLimitService;
     LimitProperties limitProperties; // Assuming this class defines your limits
+    TransferProperties transferProperties;
+    MeterRegistry meterRegistry;
+    ObjectProvider<LedgerTransferEngine> ledgerEngine; // Only present in LEDGER mode
+    CardResolutionCache cardResolutionCache;
+    TransferStageMetrics stages;
+    HotAccountBalances hotAccounts;
+    CustomerActivityTracker activityTracker;
+    TransactionFeedWriter feedWriter;
+    CustomerTransactionFeedRepository feedRepository;
+    TransactionFeedJob feedJob;
+    DailySpendBackfillJob dailySpendBackfillJob;
+    VelocityRuleEngine velocityRules;
 
     private User getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -62,13 +106,187 @@ public class TransactionServiceImpl implements TransactionService {
 
     @Override
     @Transactional
+    @RetryOnOptimisticLock("transfer")
     public TransactionDto transfer(String debitCardNumber, String creditCardNumber, BigDecimal amount) {
         CustomerEntity currentCustomer = getCurrentCustomer();
 
         log.info("Customer ID {} initiating card-to-card transfer from {} to {} for amount {}",
                 currentCustomer.getId(), debitCardNumber, creditCardNumber, amount);
 
+        stages.timeCommit();
+
         // --- Input Validations ---
+        stages.time(Stage.VALIDATION, () -> validateTransferInput(debitCardNumber, creditCardNumber, amount));
+
+        // --- Card Resolution & Validation (no database access when both cards are cached) ---
+        TransferCards cards = stages.time(Stage.CARD_LOOKUP, () -> resolveTransferCards(debitCardNumber, creditCardNumber));
+        stages.time(Stage.CHECKS, () -> validateTransferCards(cards.debit(), cards.credit(), currentCustomer));
+        stages.time(Stage.VELOCITY, () -> velocityRules.checkTransfer(currentCustomer, debitCardNumber, creditCardNumber, amount));
+
+        // --- Account Retrieval ---
+        Integer debitAccountId = cards.debit().accountId();
+        Integer creditAccountId = cards.credit().accountId();
+        Map<Integer, AccountEntity> accounts;
+        if (transferProperties.getMode() == TransferMode.ORDERED_LOCK) {
+            // The locking reads are the first reads of the accounts, so they return the locked balances
+            accounts = stages.time(Stage.LOCK_WAIT, () -> lockAccountsInIdOrder(debitAccountId, creditAccountId));
+        } else if (cards.debitAccount() != null) {
+            accounts = accountsById(cards.debitAccount(), cards.creditAccount());
+        } else {
+            accounts = stages.time(Stage.ACCOUNT_LOOKUP, () -> accountsById(
+                    accountRepository.findAllById(List.of(debitAccountId, creditAccountId)).toArray(AccountEntity[]::new)));
+        }
+        AccountEntity debitAccount = requireAccount(accounts, debitAccountId);
+        AccountEntity creditAccount = requireAccount(accounts, creditAccountId);
+
+        // --- Balance and Limit Checks, Transfer ---
+        switch (transferProperties.getMode()) {
+            case ATOMIC -> {
+                reserveDailyLimit(currentCustomer, amount);
+                stages.time(Stage.BALANCE_UPDATE, () -> applyAtomicTransfer(debitAccount, creditAccount, amount));
+            }
+            case JPA, ORDERED_LOCK -> {
+                stages.time(Stage.FUNDS_CHECK, () -> checkDebitAllowed(debitAccount, amount));
+                // Check daily transaction limit for the *debiting customer*
+                reserveDailyLimit(currentCustomer, amount);
+                stages.time(Stage.BALANCE_UPDATE, () -> applyJpaTransfer(debitAccount, creditAccount, amount));
+            }
+            case LEDGER -> {
+                reserveDailyLimit(currentCustomer, amount);
+                return stages.time(Stage.BALANCE_UPDATE, () -> submitToLedger(debitAccount, creditAccount, amount));
+            }
+        }
+
+        // --- Create Transaction Record ---
+        return stages.time(Stage.TRANSACTION_INSERT,
+                () -> createTransactionRecord(debitAccount, creditAccount, amount, TransactionType.TRANSFER));
+    }
+
+    private void reserveDailyLimit(CustomerEntity currentCustomer, BigDecimal amount) {
+        stages.time(Stage.DAILY_LIMIT, () -> dailyLimitService.reserve(currentCustomer.getId(), amount));
+    }
+
+    // All cards are loaded with one query and every item is validated in memory against the running
+    // balances, so a failed item does not stop the rest of the batch. The balance updates are version
+    // checked and the transaction rows are inserted in JDBC batches when the transaction flushes.
+    @Override
+    @Transactional
+    @RetryOnOptimisticLock("transfer-batch")
+    public BatchTransferResponse transferBatch(List<TransferRequest> transfers) {
+        CustomerEntity currentCustomer = getCurrentCustomer();
+
+        if (transfers == null || transfers.isEmpty()) {
+            throw new IllegalArgumentException("Batch must contain at least one transfer.");
+        }
+        if (transfers.size() > transferProperties.getBatchMaxSize()) {
+            throw new IllegalArgumentException("Batch exceeds the maximum of " + transferProperties.getBatchMaxSize() + " transfers.");
+        }
+        log.info("Customer ID {} submitting a batch of {} transfers", currentCustomer.getId(), transfers.size());
+
+        // --- Card and Account Retrieval ---
+        Set<String> cardNumbers = new HashSet<>();
+        for (TransferRequest request : transfers) {
+            if (request.getDebitCardNumber() != null) cardNumbers.add(request.getDebitCardNumber());
+            if (request.getCreditCardNumber() != null) cardNumbers.add(request.getCreditCardNumber());
+        }
+        Map<String, CardEntity> cards = cardRepository.findAllWithAccountByCardNumberIn(cardNumbers).stream()
+                .collect(Collectors.toMap(CardEntity::getCardNumber, Function.identity()));
+
+        BatchTransferItemResult[] results = new BatchTransferItemResult[transfers.size()];
+        List<TransactionEntity> acceptedTransactions = new ArrayList<>();
+        List<Integer> acceptedIndexes = new ArrayList<>();
+
+        for (int i = 0; i < transfers.size(); i++) {
+            TransferRequest request = transfers.get(i);
+            BigDecimal amount = request.getAmount();
+            try {
+                validateTransferInput(request.getDebitCardNumber(), request.getCreditCardNumber(), amount);
+
+                CardEntity debitCard = cards.get(request.getDebitCardNumber());
+                if (debitCard == null) {
+                    throw new CardNotFoundException("Debit card not found with number: " + request.getDebitCardNumber());
+                }
+                CardEntity creditCard = cards.get(request.getCreditCardNumber());
+                if (creditCard == null) {
+                    throw new CardNotFoundException("Credit card not found with number: " + request.getCreditCardNumber());
+                }
+                validateTransferCards(ResolvedCard.of(debitCard), ResolvedCard.of(creditCard), currentCustomer);
+                velocityRules.checkTransfer(currentCustomer, request.getDebitCardNumber(), request.getCreditCardNumber(), amount);
+
+                AccountEntity debitAccount = debitCard.getAccount();
+                AccountEntity creditAccount = creditCard.getAccount();
+
+                if (transferProperties.getMode() == TransferMode.LEDGER) {
+                    // The ledger owns the balances, so each item is checked and applied there right away
+                    results[i] = succeeded(i, submitBatchItemToLedger(currentCustomer, debitAccount, creditAccount, amount));
+                    continue;
+                }
+
+                checkDebitAllowed(debitAccount, amount);
+                // Reserved item by item, so a concurrent transfer that uses up the limit meanwhile only
+                // refuses the items that no longer fit; the reservations go with the batch's transaction
+                dailyLimitService.reserve(currentCustomer.getId(), amount);
+
+                debitAccount.setBalance(debitAccount.getBalance().subtract(amount));
+                hotAccounts.credit(creditAccount, amount);
+
+                TransactionEntity transactionEntity = transactionMapper.buildTransactionEntity(
+                        debitAccount, creditAccount, amount, TransactionType.TRANSFER);
+                transactionEntity.setStatus(TransactionStatus.COMPLETED);
+                acceptedTransactions.add(transactionEntity);
+                acceptedIndexes.add(i);
+            } catch (IllegalArgumentException | IllegalStateException | CardNotFoundException
+                     | AccountNotFoundException | NotEnoughFundsException | LimitExceedsException e) {
+                results[i] = BatchTransferItemResult.builder()
+                        .index(i)
+                        .success(false)
+                        .message(e.getMessage())
+                        .build();
+            }
+        }
+
+        transactionRepository.saveAll(acceptedTransactions);
+        activityTracker.recordCompleted(acceptedTransactions);
+        feedWriter.record(acceptedTransactions);
+
+        for (int k = 0; k < acceptedTransactions.size(); k++) {
+            int index = acceptedIndexes.get(k);
+            results[index] = succeeded(index, transactionMapper.mapToTransactionDto(acceptedTransactions.get(k)));
+        }
+
+        int successCount = (int) Arrays.stream(results).filter(BatchTransferItemResult::isSuccess).count();
+        log.info("Batch for customer ID {} finished: {} of {} transfers completed", currentCustomer.getId(), successCount, transfers.size());
+
+        return BatchTransferResponse.builder()
+                .totalCount(transfers.size())
+                .successCount(successCount)
+                .failureCount(transfers.size() - successCount)
+                .results(Arrays.asList(results))
+                .build();
+    }
+
+    private BatchTransferItemResult succeeded(int index, TransactionDto transaction) {
+        return BatchTransferItemResult.builder()
+                .index(index)
+                .success(true)
+                .message("Transfer completed")
+                .transaction(transaction)
+                .build();
+    }
+
+    // A refused item must not keep its daily limit reservation, and the batch's transaction still commits
+    private TransactionDto submitBatchItemToLedger(CustomerEntity currentCustomer, AccountEntity debitAccount,
+                                                   AccountEntity creditAccount, BigDecimal amount) {
+        dailyLimitService.reserve(currentCustomer.getId(), amount);
+        try {
+            return submitToLedger(debitAccount, creditAccount, amount);
+        } catch (RuntimeException e) {
+            dailyLimitService.release(currentCustomer.getId(), amount);
+            throw e;
+        }
+    }
+
+    private void validateTransferInput(String debitCardNumber, String creditCardNumber, BigDecimal amount) {
         if (debitCardNumber == null || debitCardNumber.length() != 16 || !debitCardNumber.matches("\\d+")) {
             throw new IllegalArgumentException("Invalid debit card number format. Must be 16 digits.");
         }
@@ -81,31 +299,83 @@ public class TransactionServiceImpl implements TransactionService {
         if (debitCardNumber.equals(creditCardNumber)) {
             throw new IllegalArgumentException("Cannot transfer to the same card.");
         }
+    }
 
-        // --- Card and Account Retrieval & Validation ---
-        CardEntity debitCard = cardRepository.findByCardNumber(debitCardNumber)
-                .orElseThrow(() -> new CardNotFoundException("Debit card not found with number: " + debitCardNumber));
-        CardEntity creditCard = cardRepository.findByCardNumber(creditCardNumber)
-                .orElseThrow(() -> new CardNotFoundException("Credit card not found with number: " + creditCardNumber));
-
+    private void validateTransferCards(ResolvedCard debitCard, ResolvedCard creditCard, CustomerEntity currentCustomer) {
         // Ensure the debit card belongs to the authenticated customer
-        if (!debitCard.getAccount().getCustomer().getId().equals(currentCustomer.getId())) {
+        if (!debitCard.customerId().equals(currentCustomer.getId())) {
             throw new IllegalStateException("Access Denied: You can only transfer from your own cards.");
         }
 
         // Validate card statuses
-        if (!debitCard.getStatus().equals(CardStatus.ACTIVE)) {
-            throw new IllegalArgumentException("Your debit card is not active. Status: " + debitCard.getStatus());
+        if (!debitCard.cardStatus().equals(CardStatus.ACTIVE)) {
+            throw new IllegalArgumentException("Your debit card is not active. Status: " + debitCard.cardStatus());
+        }
+        if (!creditCard.cardStatus().equals(CardStatus.ACTIVE)) {
+            throw new IllegalArgumentException("Recipient's credit card is not active. Status: " + creditCard.cardStatus());
+        }
+    }
+
+    // Accounts are only filled in when they were loaded together with the cards
+    private record TransferCards(ResolvedCard debit, ResolvedCard credit,
+                                 AccountEntity debitAccount, AccountEntity creditAccount) {
+    }
+
+    // Cached cards cost no statement. On a miss both cards are loaded with their accounts and customers in one
+    // statement, which also fills the cache - except in ORDERED_LOCK mode, where the accounts must not be read
+    // before they are locked, so the cards are resolved without loading them.
+    private TransferCards resolveTransferCards(String debitCardNumber, String creditCardNumber) {
+        Optional<ResolvedCard> cachedDebit = cardResolutionCache.cached(debitCardNumber);
+        Optional<ResolvedCard> cachedCredit = cardResolutionCache.cached(creditCardNumber);
+        if (cachedDebit.isPresent() && cachedCredit.isPresent()) {
+            return new TransferCards(cachedDebit.get(), cachedCredit.get(), null, null);
+        }
+
+        if (transferProperties.getMode() == TransferMode.ORDERED_LOCK) {
+            return new TransferCards(
+                    cardResolutionCache.resolve(debitCardNumber)
+                            .orElseThrow(() -> new CardNotFoundException("Debit card not found with number: " + debitCardNumber)),
+                    cardResolutionCache.resolve(creditCardNumber)
+                            .orElseThrow(() -> new CardNotFoundException("Credit card not found with number: " + creditCardNumber)),
+                    null, null);
+        }
+
+        Map<String, CardEntity> cards = cardRepository.findTransferCards(debitCardNumber, creditCardNumber).stream()
+                .collect(Collectors.toMap(CardEntity::getCardNumber, Function.identity()));
+        CardEntity debitCard = cards.get(debitCardNumber);
+        if (debitCard == null) {
+            throw new CardNotFoundException("Debit card not found with number: " + debitCardNumber);
+        }
+        CardEntity creditCard = cards.get(creditCardNumber);
+        if (creditCard == null) {
+            throw new CardNotFoundException("Credit card not found with number: " + creditCardNumber);
+        }
+        return new TransferCards(
+                cardResolutionCache.put(ResolvedCard.of(debitCard)),
+                cardResolutionCache.put(ResolvedCard.of(creditCard)),
+                debitCard.getAccount(), creditCard.getAccount());
+    }
+
+    private Map<Integer, AccountEntity> accountsById(AccountEntity... accounts) {
+        Map<Integer, AccountEntity> byId = new HashMap<>();
+        for (AccountEntity account : accounts) {
+            byId.put(account.getId(), account);
         }
-        if (!creditCard.getStatus().equals(CardStatus.ACTIVE)) {
-            throw new IllegalArgumentException("Recipient's credit card is not active. Status: " + creditCard.getStatus());
+        return byId;
+    }
+
+    private AccountEntity requireAccount(Map<Integer, AccountEntity> accounts, Integer accountId) {
+        AccountEntity account = accounts.get(accountId);
+        if (account == null) {
+            throw new AccountNotFoundException("Account not found with ID: " + accountId);
         }
+        return account;
+    }
 
-        // Retrieve associated accounts
-        AccountEntity debitAccount = debitCard.getAccount();
-        AccountEntity creditAccount = creditCard.getAccount();
+    private void checkDebitAllowed(AccountEntity debitAccount, BigDecimal amount) {
+        // A hot account may keep part of its money in balance slots
+        hotAccounts.consolidateIfShort(debitAccount, amount.add(limitProperties.getMinAcceptableAccountBalance()));
 
-        // --- Balance and Limit Checks ---
         // Check for sufficient funds in debit account
         if (debitAccount.getBalance().compareTo(amount) < 0) {
             throw new NotEnoughFundsException("Insufficient funds in your account. Current balance: " + debitAccount.getBalance());
@@ -119,13 +389,13 @@ public class TransactionServiceImpl implements TransactionService {
                             limitProperties.getMinAcceptableAccountBalance() + ")."
             );
         }
+    }
 
-        // Check daily transaction limit for the *debiting customer*
-        checkDailyTransactionLimit(currentCustomer.getId(), amount);
-
+    // Balances and the daily limit must have been checked already
+    private void applyJpaTransfer(AccountEntity debitAccount, AccountEntity creditAccount, BigDecimal amount) {
         // --- Perform Transfer ---
         debitAccount.setBalance(debitAccount.getBalance().subtract(amount));
-        creditAccount.setBalance(creditAccount.getBalance().add(amount));
+        hotAccounts.credit(creditAccount, amount);
 
         // Save updated accounts
         accountRepository.save(debitAccount);
@@ -134,26 +404,66 @@ public class TransactionServiceImpl implements TransactionService {
         log.info("Account balances updated: Debit Account {} new balance {}, Credit Account {} new balance {}",
                 debitAccount.getAccountNumber(), debitAccount.getBalance(),
                 creditAccount.getAccountNumber(), creditAccount.getBalance());
-
-        // --- Create Transaction Record ---
-        return createTransactionRecord(debitAccount, creditAccount, amount, TransactionType.TRANSFER);
     }
 
-    private void checkDailyTransactionLimit(Integer customerId, BigDecimal amount) {
-        // Query for today's total outgoing transfers from accounts owned by this customer
-        BigDecimal dailyTotal = transactionRepository.getTodayTotalTransferAmountByDebitAccountCustomer(customerId, LocalDate.now());
+    // Both transfer directions acquire the same locks in the same order, so A->B and B->A
+    // wait for each other instead of deadlocking.
+    private Map<Integer, AccountEntity> lockAccountsInIdOrder(Integer debitAccountId, Integer creditAccountId) {
+        Integer first = Math.min(debitAccountId, creditAccountId);
+        Integer second = Math.max(debitAccountId, creditAccountId);
 
-        // Initialize dailyTotal if it's null (no previous transactions today)
-        if (dailyTotal == null) {
-            dailyTotal = BigDecimal.ZERO;
+        Timer.Sample lockWait = Timer.start(meterRegistry);
+        try {
+            List<AccountEntity> locked = new ArrayList<>(2);
+            locked.add(accountRepository.findByIdForUpdate(first)
+                    .orElseThrow(() -> new AccountNotFoundException("Account not found with ID: " + first)));
+            if (!first.equals(second)) {
+                locked.add(accountRepository.findByIdForUpdate(second)
+                        .orElseThrow(() -> new AccountNotFoundException("Account not found with ID: " + second)));
+            }
+            return accountsById(locked.toArray(AccountEntity[]::new));
+        } finally {
+            lockWait.stop(meterRegistry.timer("banking.transfer.lock.wait"));
         }
+    }
 
-        if (dailyTotal.add(amount).compareTo(limitProperties.getDailyTransactionLimit()) > 0) {
+    // The database does the balance check and the debit in one statement, so concurrent transfers
+    // cannot both pass a check made against the same stale balance. The loaded entities keep their
+    // old balance afterwards and must not be used to read it.
+    private void applyAtomicTransfer(AccountEntity debitAccount, AccountEntity creditAccount, BigDecimal amount) {
+        BigDecimal minBalance = limitProperties.getMinAcceptableAccountBalance();
+        if (accountRepository.debitIfBalanceAllows(debitAccount.getId(), amount, minBalance) == 0
+                // A hot account may keep part of its money in balance slots
+                && !(hotAccounts.consolidateAtomically(debitAccount)
+                && accountRepository.debitIfBalanceAllows(debitAccount.getId(), amount, minBalance) == 1)) {
+            // Work out which guard rejected the debit, against the balance as it is now
+            BigDecimal currentBalance = accountRepository.findBalanceById(debitAccount.getId());
+            if (currentBalance.compareTo(amount) < 0) {
+                throw new NotEnoughFundsException("Insufficient funds in your account. Current balance: " + currentBalance);
+            }
             throw new LimitExceedsException(
-                    "Daily transfer limit of " + limitProperties.getDailyTransactionLimit() +
-                            " exceeded. Today's transfers: " + dailyTotal + ", requested: " + amount
+                    "Transfer would leave your balance (" + currentBalance.subtract(amount) + ") below the minimum limit (" +
+                            minBalance + ")."
             );
         }
+        hotAccounts.creditAtomically(creditAccount, amount);
+
+        log.info("Account balances updated atomically: Debit Account {} -{}, Credit Account {} +{}",
+                debitAccount.getAccountNumber(), amount, creditAccount.getAccountNumber(), amount);
+    }
+
+    // The ledger checks and moves the balances; the transaction row is written later by LedgerPersister,
+    // so the id is assigned here instead of by Hibernate
+    private TransactionDto submitToLedger(AccountEntity debitAccount, AccountEntity creditAccount, BigDecimal amount) {
+        TransactionEntity transactionEntity = transactionMapper.buildTransactionEntity(
+                debitAccount, creditAccount, amount, TransactionType.TRANSFER);
+        transactionEntity.setTransactionId(TimeOrderedUuidGenerator.nextId());
+        transactionEntity.setStatus(TransactionStatus.COMPLETED);
+        ledgerEngine.getObject().transfer(transactionEntity);
+
+        log.info("Transaction ID {} accepted by the ledger: {} from account {} to account {}.",
+                transactionEntity.getTransactionId(), amount, debitAccount.getAccountNumber(), creditAccount.getAccountNumber());
+        return transactionMapper.mapToTransactionDto(transactionEntity);
     }
 
     private TransactionDto createTransactionRecord(
@@ -171,6 +481,8 @@ public class TransactionServiceImpl implements TransactionService {
         );
         transactionEntity.setStatus(TransactionStatus.COMPLETED); // Mark as completed since balances are updated
         transactionRepository.save(transactionEntity);
+        activityTracker.recordCompleted(transactionEntity);
+        feedWriter.record(transactionEntity);
         log.info("Transaction ID {} recorded for transfer of {} from account {} to account {}.",
                 transactionEntity.getTransactionId(), amount, debitAccount.getAccountNumber(), creditAccount.getAccountNumber());
 
@@ -181,12 +493,7 @@ public class TransactionServiceImpl implements TransactionService {
     @Transactional(readOnly = true)
     public Page<TransactionDto> getTransactionsByCustomerId(Integer customerId, Integer page, Integer size) {
         log.info("Admin fetching transactions for customer ID: {} (Page: {}, Size: {})", customerId, page, size);
-        Pageable pageable = PageRequest.of(page, size, Sort.by("transactionDate").descending());
-        // Find transactions where this customer is either the debit or credit account holder
-        Page<TransactionEntity> transactionEntityPage = transactionRepository
-                .findByDebitAccount_Customer_IdOrCreditAccount_Customer_Id(customerId, customerId, pageable);
-        List<TransactionDto> transactionDtoList = transactionMapper.mapToTransactionDtoList(transactionEntityPage.getContent());
-        return new PageImpl<>(transactionDtoList, pageable, transactionEntityPage.getTotalElements());
+        return customerHistoryPage(customerId, page, size);
     }
 
     @Override
@@ -196,12 +503,15 @@ public class TransactionServiceImpl implements TransactionService {
         log.info("Customer ID {} fetching their transactions (Page: {}, Size: {})",
                 currentCustomer.getId(), page, size);
 
-        Pageable pageable = PageRequest.of(page, size, Sort.by("transactionDate").descending());
-        // Find transactions where the current customer is either the debit or credit account holder
-        Page<TransactionEntity> transactionEntityPage = transactionRepository
-                .findByDebitAccount_Customer_IdOrCreditAccount_Customer_Id(currentCustomer.getId(), currentCustomer.getId(), pageable);
-        List<TransactionDto> transactionDtoList = transactionMapper.mapToTransactionDtoList(transactionEntityPage.getContent());
-        return new PageImpl<>(transactionDtoList, pageable, transactionEntityPage.getTotalElements());
+        return customerHistoryPage(currentCustomer.getId(), page, size);
+    }
+
+    // Customer history comes from the customer's feed rows, newest first; the transactions behind a
+    // page are then read by primary key
+    private Page<TransactionDto> customerHistoryPage(Integer customerId, Integer page, Integer size) {
+        Pageable pageable = PageRequest.of(page, size);
+        Page<CustomerTransactionFeedEntity> feed = feedRepository.findNewestFirstPage(customerId, pageable);
+        return new PageImpl<>(transactionsOf(feed.getContent()), pageable, feed.getTotalElements());
     }
 
     @Override
@@ -213,4 +523,102 @@ public class TransactionServiceImpl implements TransactionService {
         List<TransactionDto> transactionDtoList = transactionMapper.mapToTransactionDtoList(transactionEntities.getContent());
         return new PageImpl<>(transactionDtoList, pageable, transactionEntities.getTotalElements());
     }
-}
\ No newline at end of file
+
+    @Override
+    @Transactional(readOnly = true)
+    public TransactionCursorPage getTransactionsByCurrentUserAfter(String after, Integer size) {
+        CustomerEntity currentCustomer = getCurrentCustomer();
+        log.info("Customer ID {} fetching their transactions (After: {}, Size: {})", currentCustomer.getId(), after, size);
+        return customerHistoryAfter(currentCustomer.getId(), after, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public TransactionCursorPage getTransactionsByCustomerIdAfter(Integer customerId, String after, Integer size) {
+        log.info("Admin fetching transactions for customer ID: {} (After: {}, Size: {})", customerId, after, size);
+        return customerHistoryAfter(customerId, after, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public TransactionCursorPage getAllTransactionsAfter(String after, Integer size) {
+        log.info("Admin fetching all transactions (After: {}, Size: {})", after, size);
+        // One row more than the page tells whether there is a next page without counting
+        Pageable pageable = PageRequest.of(0, historyPageSize(size) + 1);
+        List<TransactionEntity> rows;
+        if (after == null) {
+            rows = transactionRepository.findNewestFirst(pageable);
+        } else {
+            TransactionCursor cursor = TransactionCursor.decode(after);
+            rows = transactionRepository.findNewestFirstBefore(cursor.transactionDate(), cursor.transactionId(), pageable);
+        }
+        return toCursorPage(rows, size, transactionMapper::mapToTransactionDtoList, TransactionCursor::of);
+    }
+
+    @Override
+    public int backfillTransactionFeed() {
+        log.info("Admin starting the transaction feed backfill");
+        return feedJob.backfillHistory();
+    }
+
+    @Override
+    public int rebuildDailySpend() {
+        log.info("Admin starting the daily spend rebuild");
+        return dailySpendBackfillJob.rebuildToday();
+    }
+
+    @Override
+    public int rebuildCustomerActivity() {
+        log.info("Admin starting the customer activity rebuild");
+        return activityTracker.rebuildWindow();
+    }
+
+    private TransactionCursorPage customerHistoryAfter(Integer customerId, String after, Integer size) {
+        Pageable pageable = PageRequest.of(0, historyPageSize(size) + 1);
+        List<CustomerTransactionFeedEntity> rows;
+        if (after == null) {
+            rows = feedRepository.findNewestFirst(customerId, pageable);
+        } else {
+            TransactionCursor cursor = TransactionCursor.decode(after);
+            rows = feedRepository.findNewestFirstBefore(customerId, cursor.transactionDate(), cursor.transactionId(), pageable);
+        }
+        return toCursorPage(rows, size, this::transactionsOf,
+                row -> new TransactionCursor(row.getOccurredAt(), row.getId().getTransactionId()));
+    }
+
+    private List<TransactionDto> transactionsOf(List<CustomerTransactionFeedEntity> feed) {
+        if (feed.isEmpty()) {
+            return List.of();
+        }
+        List<UUID> ids = feed.stream().map(row -> row.getId().getTransactionId()).toList();
+        Map<UUID, TransactionEntity> transactions = transactionRepository.findWithAccountsByTransactionIdIn(ids).stream()
+                .collect(Collectors.toMap(TransactionEntity::getTransactionId, Function.identity()));
+        return ids.stream()
+                .map(transactions::get)
+                .filter(Objects::nonNull)
+                .map(transactionMapper::mapToTransactionDto)
+                .toList();
+    }
+
+    private static int historyPageSize(Integer size) {
+        if (size == null || size < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1.");
+        }
+        if (size > MAX_HISTORY_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be at most " + MAX_HISTORY_PAGE_SIZE + ".");
+        }
+        return size;
+    }
+
+    // rows holds up to size + 1 rows; the extra one only says that there is a next page
+    private static <T> TransactionCursorPage toCursorPage(List<T> rows, int size,
+                                                          Function<List<T>, List<TransactionDto>> content,
+                                                          Function<T, TransactionCursor> position) {
+        boolean hasNext = rows.size() > size;
+        List<T> page = hasNext ? rows.subList(0, size) : rows;
+        return TransactionCursorPage.builder()
+                .content(content.apply(page))
+                .nextCursor(hasNext ? position.apply(page.get(page.size() - 1)).encode() : null)
+                .build();
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.bankingprojectfinal.Service.Concrete;
+
+import com.example.bankingprojectfinal.Model.Entity.CustomerEntity;
+import com.example.bankingprojectfinal.Model.Enums.CustomerStatus;
+import com.example.bankingprojectfinal.Repository.CustomerRepository;
+import com.example.bankingprojectfinal.Service.Abstraction.VelocityRule;
+import com.example.bankingprojectfinal.Service.Abstraction.VelocityRule.TransferAttempt;
+import com.example.bankingprojectfinal.config.OptimisticLockRetryAspect;
+import com.example.bankingprojectfinal.config.VelocityProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+// Runs every velocity rule on each transfer, in memory, and marks a REGULAR customer SUSPECTED on the
+// first hit instead of leaving it to the nightly activity check. The status update is part of the
+// transfer's transaction. The transfer itself is never refused here.
+// A transfer is counted once it passed the card checks, whether or not it is refused afterwards for
+// funds or limits: a run of refused transfers is as telling as a run of accepted ones. It is counted once
+// per request, not per optimistic lock attempt. The status change of a refused transfer rolls back with
+// it; the next transfer while the window is still over its limit marks the customer again.
+@Component
+@Slf4j
+public class VelocityRuleEngine {
+    private final CustomerRepository customerRepository;
+    private final boolean enabled;
+    private final List<VelocityRule> rules = new ArrayList<>();
+    private final List<Counter> hitCounters = new ArrayList<>();
+
+    public VelocityRuleEngine(VelocityProperties properties,
+                              List<VelocityRule> pluggedRules,
+                              CustomerRepository customerRepository,
+                              MeterRegistry meterRegistry) {
+        this.customerRepository = customerRepository;
+        this.enabled = properties.isEnabled();
+        for (VelocityProperties.Rule rule : properties.getRules()) {
+            rules.add(new ConfiguredVelocityRule(rule, properties.getMaxKeysPerRule()));
+        }
+        rules.addAll(pluggedRules);
+        for (VelocityRule rule : rules) {
+            hitCounters.add(Counter.builder("banking.velocity.hits")
+                    .description("Transfers that took a key over a velocity rule's limit")
+                    .tag("rule", rule.name())
+                    .register(meterRegistry));
+        }
+        log.info("Velocity rules {}: {}", enabled ? "enabled" : "disabled", rules.stream().map(VelocityRule::name).toList());
+    }
+
+    // Names of the rules the attempt hit; every rule records it, so one hit does not hide another
+    public List<String> evaluate(TransferAttempt attempt) {
+        long now = System.nanoTime();
+        List<String> hits = List.of();
+        for (int i = 0; i < rules.size(); i++) {
+            VelocityRule rule = rules.get(i);
+            if (rule.record(attempt, now)) {
+                hitCounters.get(i).increment();
+                if (hits.isEmpty()) {
+                    hits = new ArrayList<>(2);
+                }
+                hits.add(rule.name());
+            }
+        }
+        return hits;
+    }
+
+    public void checkTransfer(CustomerEntity customer, String debitCardNumber, String creditCardNumber, BigDecimal amount) {
+        if (!enabled) {
+            return;
+        }
+        TransferAttempt attempt = new TransferAttempt(customer.getId(), debitCardNumber, creditCardNumber, amount);
+        // A retry gets the hits of the first attempt instead of recording the transfer again
+        List<String> hits = OptimisticLockRetryAspect.once(attempt, () -> evaluate(attempt));
+        // customer is the authenticated user's copy; the conditional update keeps a stale copy from
+        // lowering a status set meanwhile
+        if (!hits.isEmpty() && customer.getStatus() == CustomerStatus.REGULAR) {
+            if (customerRepository.updateStatus(customer.getId(), CustomerStatus.REGULAR, CustomerStatus.SUSPECTED) > 0) {
+                log.warn("Customer ID {} detected as SUSPECTED by velocity rules {}", customer.getId(), hits);
+            }
+            customer.setStatus(CustomerStatus.SUSPECTED);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.bankingprojectfinal.Service.Concrete;
+
+// The last limit + 1 events of one key, in a fixed ring. The key is over its limit when the ring is
+// full and even its oldest event is still inside the window, so the memory per key never grows.
+// With distinct values an event for a value already in the ring only refreshes its time, and a new
+// value replaces the least recently seen one.
+final class VelocityWindow {
+    private final long[] times;
+    private final Object[] values;
+    private int size;
+    private int next;
+
+    VelocityWindow(int limit) {
+        this.times = new long[limit + 1];
+        this.values = new Object[limit + 1];
+    }
+
+    synchronized boolean record(long now, long windowNanos) {
+        times[next] = now;
+        next = (next + 1) % times.length;
+        if (size < times.length) {
+            size++;
+        }
+        // next now points at the oldest event
+        return size == times.length && now - times[next] <= windowNanos;
+    }
+
+    synchronized boolean recordDistinct(long now, long windowNanos, Object value) {
+        int slot = -1;
+        for (int i = 0; i < size; i++) {
+            if (values[i].equals(value)) {
+                slot = i;
+                break;
+            }
+        }
+        if (slot < 0) {
+            if (size < times.length) {
+                slot = size++;
+            } else {
+                slot = 0;
+                for (int i = 1; i < size; i++) {
+                    if (times[i] < times[slot]) {
+                        slot = i;
+                    }
+                }
+            }
+            values[slot] = value;
+        }
+        times[slot] = now;
+
+        if (size < times.length) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (now - times[i] > windowNanos) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
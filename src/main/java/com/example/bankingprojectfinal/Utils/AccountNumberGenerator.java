@@ -1,14 +1,70 @@
 package com.example.bankingprojectfinal.Utils;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
 
-import java.time.Instant;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongUnaryOperator;
 
+// Pooled account numbers: every node reserves the next block-size values by raising the high-water
+// mark in account_number_range (see NumberRanges), and hands out the values of that block from memory.
+// Blocks never overlap, so numbers are unique across nodes without looking them up; values of a block
+// that was not used up before a restart are skipped.
+//
+// Format: "ACC" + the value zero-padded to 12 digits + a Luhn check digit. The numbers of the old
+// generator were "ACC" + epoch seconds + 3 random digits, 13 digits starting with "1", which this
+// range does not reach.
 @Component
 public class AccountNumberGenerator {
-    public String generate() {
-        return "ACC" + Instant.now().getEpochSecond() +
-                ThreadLocalRandom.current().nextInt(100, 999);
+    static final String PREFIX = "ACC";
+    private static final int DIGITS = 12;
+    private static final long MAX_VALUE = 999_999_999_999L;
+
+    private final LongUnaryOperator reserveBlock;
+    private final int blockSize;
+    private long next;
+    private long blockEnd;
+
+    @Autowired
+    public AccountNumberGenerator(JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${banking.accounts.number-block-size:100}") int blockSize) {
+        this(NumberRanges.highWaterMark(jdbcTemplate, transactionManager, "account_number_range", "prefix", PREFIX), blockSize);
+    }
+
+    // reserveBlock maps a block size to the first value of a block of that size no one else was given
+    public AccountNumberGenerator(LongUnaryOperator reserveBlock, int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be at least 1");
+        }
+        this.reserveBlock = reserveBlock;
+        this.blockSize = blockSize;
+    }
+
+    public synchronized String generate() {
+        if (next == blockEnd) {
+            next = reserveBlock.applyAsLong(blockSize);
+            blockEnd = next + blockSize;
+        }
+        long value = next++;
+        if (value > MAX_VALUE) {
+            throw new IllegalStateException("Account numbers exhausted");
+        }
+        // Zero-padded digits written straight into the result, String.format costs more than the rest
+        char[] number = new char[PREFIX.length() + DIGITS + 1];
+        PREFIX.getChars(0, PREFIX.length(), number, 0);
+        for (int i = PREFIX.length() + DIGITS - 1; i >= PREFIX.length(); i--) {
+            number[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        number[number.length - 1] = Luhn.checkDigit(number, PREFIX.length(), PREFIX.length() + DIGITS);
+        return new String(number);
+    }
+
+    public static boolean isValid(String accountNumber) {
+        return accountNumber != null && accountNumber.length() == PREFIX.length() + DIGITS + 1
+                && accountNumber.startsWith(PREFIX) && Luhn.isValid(accountNumber.substring(PREFIX.length()));
     }
-}
\ No newline at end of file
+}
@@ -1,19 +1,69 @@
 package com.example.bankingprojectfinal.Utils;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
 
-import java.time.Instant;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongUnaryOperator;
 
+// 16-digit PANs: the 6-digit BIN, a 9-digit account identifier and a Luhn check digit, so every number
+// passes the transfer endpoint's format check and a checksum test at the card networks.
+//
+// A node reserves the next block-size identifiers of the BIN's 10^9 by raising the BIN's high-water mark
+// in card_number_range (see NumberRanges), the only state kept in the database, and hands out the
+// block's identifiers from memory. Blocks never overlap, so issued numbers are unique
+// across nodes without looking them up; the unused rest of a block is lost when a node restarts.
 @Component
 public class CardNumberGenerator {
+    private static final int BIN_DIGITS = 6;
+    private static final int IDENTIFIER_DIGITS = 9;
+    private static final long IDENTIFIERS_PER_BIN = 1_000_000_000L;
 
+    private final char[] bin;
+    private final LongUnaryOperator reserveBlock;
+    private final int blockSize;
+    private long next;
+    private long blockEnd;
 
+    @Autowired
+    public CardNumberGenerator(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${banking.cards.bin:412345}") String bin,
+                               @Value("${banking.cards.number-block-size:100}") int blockSize) {
+        this(bin, NumberRanges.highWaterMark(jdbcTemplate, transactionManager, "card_number_range", "bin", bin), blockSize);
+    }
 
+    // reserveBlock maps a block size to the first identifier of a block of that size no one else was given
+    public CardNumberGenerator(String bin, LongUnaryOperator reserveBlock, int blockSize) {
+        if (bin == null || bin.length() != BIN_DIGITS || !bin.chars().allMatch(Character::isDigit)) {
+            throw new IllegalArgumentException("A BIN is " + BIN_DIGITS + " digits: " + bin);
+        }
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be at least 1");
+        }
+        this.bin = bin.toCharArray();
+        this.reserveBlock = reserveBlock;
+        this.blockSize = blockSize;
+    }
 
-
-    public String generate() {
-        return "CARD" + Instant.now().getEpochSecond() +
-                String.format("%04d", ThreadLocalRandom.current().nextInt(1, 10000)); // 4-digit random padding
+    public synchronized String generate() {
+        if (next == blockEnd) {
+            next = reserveBlock.applyAsLong(blockSize);
+            blockEnd = next + blockSize;
+        }
+        long identifier = next++;
+        if (identifier >= IDENTIFIERS_PER_BIN) {
+            throw new IllegalStateException("Card numbers of BIN " + new String(bin) + " exhausted");
+        }
+        char[] pan = new char[BIN_DIGITS + IDENTIFIER_DIGITS + 1];
+        System.arraycopy(bin, 0, pan, 0, BIN_DIGITS);
+        for (int i = BIN_DIGITS + IDENTIFIER_DIGITS - 1; i >= BIN_DIGITS; i--) {
+            pan[i] = (char) ('0' + identifier % 10);
+            identifier /= 10;
+        }
+        pan[pan.length - 1] = Luhn.checkDigit(pan, 0, pan.length - 1);
+        return new String(pan);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,36 @@
+package com.example.bankingprojectfinal.Utils;
+
+// Luhn (mod 10) check digits, used for card numbers and account numbers. Catches every mistyped
+// digit and most swapped neighbours.
+public final class Luhn {
+
+    private Luhn() {
+    }
+
+    // Check digit for digits[from, to), to be appended right after them
+    public static char checkDigit(char[] digits, int from, int to) {
+        int sum = 0;
+        boolean doubled = true;
+        for (int i = to - 1; i >= from; i--) {
+            int digit = digits[i] - '0';
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return (char) ('0' + (10 - sum % 10) % 10);
+    }
+
+    // Whether the last character is the check digit of the digits before it
+    public static boolean isValid(String digitsWithCheck) {
+        if (digitsWithCheck == null || digitsWithCheck.length() < 2 || !digitsWithCheck.chars().allMatch(Character::isDigit)) {
+            return false;
+        }
+        char[] digits = digitsWithCheck.toCharArray();
+        return digits[digits.length - 1] == checkDigit(digits, 0, digits.length - 1);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.bankingprojectfinal.Utils;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.LongUnaryOperator;
+
+// Blocks of identifiers reserved through a high-water mark row: the mark is the first identifier no
+// node has reserved yet, and a reservation raises it by the block size it asks for. A block is a range of
+// identifiers rather than a block number, so nodes configured with different block sizes, or a size
+// changed between deploys, never get overlapping blocks.
+final class NumberRanges {
+
+    private NumberRanges() {
+    }
+
+    // Returns an operator from a block size to the first identifier of a fresh block of that size. Each
+    // call commits on its own: a block handed to this node must stay taken even if the issuance that
+    // needed it rolls back, or another node could be given the same identifiers.
+    static LongUnaryOperator highWaterMark(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                           String table, String keyColumn, String key) {
+        TransactionTemplate ownTransaction = new TransactionTemplate(transactionManager);
+        ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        String raise = "UPDATE " + table + " SET high_water = high_water + ? WHERE " + keyColumn + " = ?";
+        String create = "INSERT INTO " + table + " (" + keyColumn + ", high_water) VALUES (?, ?)";
+        String read = "SELECT high_water FROM " + table + " WHERE " + keyColumn + " = ?";
+        return blockSize -> {
+            while (true) {
+                try {
+                    Long highWater = ownTransaction.execute(status -> {
+                        if (jdbcTemplate.update(raise, blockSize, key) == 0) {
+                            jdbcTemplate.update(create, key, blockSize);
+                        }
+                        return jdbcTemplate.queryForObject(read, Long.class, key);
+                    });
+                    return highWater - blockSize;
+                } catch (DuplicateKeyException e) {
+                    // Another node used the key for the first time at the same moment; its row is there now
+                }
+            }
+        };
+    }
+}
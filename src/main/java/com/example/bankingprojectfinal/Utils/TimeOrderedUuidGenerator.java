@@ -0,0 +1,65 @@
+package com.example.bankingprojectfinal.Utils;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.uuid.UuidValueGenerator;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// UUIDv7 (RFC 9562) ids: 48 bits of Unix milliseconds, a 12-bit counter, then 62 random bits. The
+// timestamp leads, so new rows append to the right edge of the primary key index. Ids sort by creation
+// time in byte order, which is how H2 and PostgreSQL compare UUIDs (java.util.UUID.compareTo does not).
+//
+// Ids from one JVM are strictly increasing. If the clock steps back, or 4096 ids are taken within one
+// millisecond, the generator keeps counting from where it was rather than following the clock, and
+// catches up once the clock passes it again. Across nodes, ids are only as ordered as the node clocks
+// are synchronised. A node whose clock lags places its rows slightly behind those of the others, but
+// the random bits keep them unique.
+public final class TimeOrderedUuidGenerator {
+    private static final TimeOrderedUuidGenerator SHARED = new TimeOrderedUuidGenerator(System::currentTimeMillis);
+
+    private static final int COUNTER_BITS = 12;
+    // A new millisecond starts the counter at a random value below half its range, so the ids are
+    // harder to guess but 2048 ids per millisecond still fit before the counter borrows from the clock
+    private static final int COUNTER_START_BOUND = 1 << (COUNTER_BITS - 1);
+
+    private final LongSupplier clock;
+    // The last timestamp and counter handed out, packed as millis << 12 | counter
+    private final AtomicLong last = new AtomicLong();
+
+    public TimeOrderedUuidGenerator(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    // The generator behind TransactionEntity ids, shared with code that assigns them itself
+    public static UUID nextId() {
+        return SHARED.generate();
+    }
+
+    public UUID generate() {
+        long candidate = clock.getAsLong() << COUNTER_BITS | ThreadLocalRandom.current().nextInt(COUNTER_START_BOUND);
+        // Either the clock moved past the last id or the last id is incremented; a full counter
+        // carries into the timestamp
+        long packed = last.accumulateAndGet(candidate, (previous, next) -> Math.max(previous + 1, next));
+        long millis = packed >>> COUNTER_BITS;
+        long counter = packed & ((1 << COUNTER_BITS) - 1);
+        long mostSignificant = millis << 16 | 0x7000L | counter;
+        long leastSignificant = ThreadLocalRandom.current().nextLong() >>> 2 | 0x8000000000000000L;
+        return new UUID(mostSignificant, leastSignificant);
+    }
+
+    // Milliseconds since the epoch encoded in a version 7 id
+    public static long timestampOf(UUID id) {
+        return id.getMostSignificantBits() >>> 16;
+    }
+
+    // Hibernate instantiates this reflectively for @UuidGenerator(algorithm = ...), see TransactionEntity
+    public static final class HibernateAlgorithm implements UuidValueGenerator {
+        @Override
+        public UUID generateUuid(SharedSessionContractImplementor session) {
+            return nextId();
+        }
+    }
+}
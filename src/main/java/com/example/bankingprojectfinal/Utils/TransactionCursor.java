@@ -0,0 +1,38 @@
+package com.example.bankingprojectfinal.Utils;
+
+import com.example.bankingprojectfinal.Model.Entity.TransactionEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+// Position in transaction history, which is ordered newest first by (transactionDate, transactionId).
+// Clients get it as an opaque URL-safe token and pass it back unchanged.
+public record TransactionCursor(LocalDate transactionDate, UUID transactionId) {
+    private static final char SEPARATOR = '|';
+
+    public static TransactionCursor of(TransactionEntity transaction) {
+        return new TransactionCursor(transaction.getTransactionDate(), transaction.getTransactionId());
+    }
+
+    public String encode() {
+        String plain = transactionDate.toString() + SEPARATOR + transactionId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TransactionCursor decode(String token) {
+        try {
+            String plain = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = plain.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + token);
+            }
+            return new TransactionCursor(LocalDate.parse(plain.substring(0, separator)),
+                    UUID.fromString(plain.substring(separator + 1)));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.bankingprojectfinal.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Runs the annotated job on one node of the cluster at a time; a node that does not get the lock skips
+// the run (a primitive result is returned as 0/false). The value names the lock in cluster_lock and in
+// the banking.cluster_lock.* metrics.
+// lockAtMostFor (ISO-8601) is how long a node that died mid-run keeps the lock, so it must be longer
+// than the job takes. lockAtLeastFor keeps a run that finished quickly from being started again by a
+// node whose scheduler fires a little later.
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ClusterLock {
+    String value();
+
+    String lockAtMostFor() default "PT30M";
+
+    String lockAtLeastFor() default "PT1M";
+}
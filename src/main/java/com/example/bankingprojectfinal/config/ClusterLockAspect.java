@@ -0,0 +1,51 @@
+package com.example.bankingprojectfinal.config;
+
+import com.example.bankingprojectfinal.Service.Concrete.ClusterLocks;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Array;
+import java.time.Duration;
+
+// Outside the retry aspect and the transaction interceptor: the lease is taken and released in
+// transactions of its own, and a job's transaction only starts once this node holds the lease.
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 2)
+@Slf4j
+public class ClusterLockAspect {
+    private final ClusterLocks clusterLocks;
+    private final MeterRegistry meterRegistry;
+
+    public ClusterLockAspect(ClusterLocks clusterLocks, MeterRegistry meterRegistry) {
+        this.clusterLocks = clusterLocks;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("@annotation(lock)")
+    public Object runOnOneNode(ProceedingJoinPoint joinPoint, ClusterLock lock) throws Throwable {
+        String name = lock.value();
+        if (!clusterLocks.tryLock(name, Duration.parse(lock.lockAtMostFor()))) {
+            meterRegistry.counter("banking.cluster_lock.skipped", "lock", name).increment();
+            log.info("Skipping {}: the cluster lock {} is held by another node", joinPoint.getSignature().toShortString(), name);
+            return skippedResult(((MethodSignature) joinPoint.getSignature()).getReturnType());
+        }
+        meterRegistry.counter("banking.cluster_lock.acquired", "lock", name).increment();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            clusterLocks.unlock(name, Duration.parse(lock.lockAtLeastFor()));
+        }
+    }
+
+    private static Object skippedResult(Class<?> returnType) {
+        return returnType.isPrimitive() && returnType != void.class ? Array.get(Array.newInstance(returnType, 1), 0) : null;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.bankingprojectfinal.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.OptimisticLockException;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+// Runs outside the transaction interceptor (higher precedence), so every attempt gets a fresh
+// transaction and re-reads the accounts it lost the race on.
+// Work that must happen once per call rather than once per attempt, such as recording the call in
+// in-memory counters, goes through once(): a retry replays what the earlier attempt recorded.
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+@Slf4j
+public class OptimisticLockRetryAspect {
+    // The calls of once() made so far by the retried call running on this thread
+    private static final ThreadLocal<Replay> REPLAY = new ThreadLocal<>();
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${banking.retry.optimistic.max-attempts:4}")
+    private int maxAttempts;
+
+    @Value("${banking.retry.optimistic.backoff-ms:10}")
+    private long backoffMs;
+
+    @Value("${banking.retry.optimistic.max-backoff-ms:200}")
+    private long maxBackoffMs;
+
+    public OptimisticLockRetryAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("@annotation(retry)")
+    public Object retryOnConflict(ProceedingJoinPoint joinPoint, RetryOnOptimisticLock retry) throws Throwable {
+        String endpoint = retry.value();
+        // A retried call made by another one shares its replay, from where it started
+        Replay outer = REPLAY.get();
+        Replay replay = outer != null ? outer : new Replay();
+        int start = replay.position;
+        if (outer == null) {
+            REPLAY.set(replay);
+        }
+        try {
+            return proceedWithRetries(joinPoint, endpoint, replay, start);
+        } finally {
+            if (outer == null) {
+                REPLAY.remove();
+            }
+        }
+    }
+
+    // Runs action once per retried call: an attempt after a conflict gets the result of the earlier
+    // attempt's call at the same position, as long as it was made with an equal key. Outside a retried
+    // call, action just runs.
+    public static <T> T once(Object key, Supplier<T> action) {
+        Replay replay = REPLAY.get();
+        return replay != null ? replay.next(key, action) : action.get();
+    }
+
+    private Object proceedWithRetries(ProceedingJoinPoint joinPoint, String endpoint, Replay replay, int start) throws Throwable {
+        for (int attempt = 1; ; attempt++) {
+            replay.position = start;
+            try {
+                return joinPoint.proceed();
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                meterRegistry.counter("banking.optimistic.conflicts", "endpoint", endpoint).increment();
+                if (attempt >= maxAttempts) {
+                    meterRegistry.counter("banking.optimistic.giveups", "endpoint", endpoint).increment();
+                    log.warn("Optimistic lock conflict on {} persisted after {} attempts, giving up", endpoint, attempt);
+                    throw e;
+                }
+                meterRegistry.counter("banking.optimistic.retries", "endpoint", endpoint).increment();
+                log.debug("Optimistic lock conflict on {} (attempt {}), retrying", endpoint, attempt);
+                Thread.sleep(backoffBeforeAttempt(attempt + 1));
+            }
+        }
+    }
+
+    private static final class Replay {
+        private final List<Object> keys = new ArrayList<>();
+        private final List<Object> results = new ArrayList<>();
+        private int position;
+
+        @SuppressWarnings("unchecked")
+        <T> T next(Object key, Supplier<T> action) {
+            int at = position++;
+            if (at < keys.size() && keys.get(at).equals(key)) {
+                return (T) results.get(at);
+            }
+            // This attempt went another way than the earlier one from here on
+            keys.subList(at, keys.size()).clear();
+            results.subList(at, results.size()).clear();
+            T result = action.get();
+            keys.add(key);
+            results.add(result);
+            return result;
+        }
+    }
+
+    // Full jitter: random delay up to an exponentially growing cap, so colliding callers spread out
+    long backoffBeforeAttempt(int attempt) {
+        long cap = Math.min(maxBackoffMs, backoffMs << Math.min(attempt - 2, 20));
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.bankingprojectfinal.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Re-runs the annotated (transactional) method when it loses an optimistic lock race.
+// The value names the endpoint in the banking.optimistic.* metrics.
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnOptimisticLock {
+    String value();
+}
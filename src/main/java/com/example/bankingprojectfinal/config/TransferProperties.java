@@ -0,0 +1,21 @@
+package com.example.bankingprojectfinal.config;
+
+import com.example.bankingprojectfinal.Model.Enums.TransferMode;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+@Getter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class TransferProperties {
+    // How card-to-card transfers move money between the two accounts
+    @Value("${banking.transfer.mode:JPA}")
+    TransferMode mode;
+
+    // Largest number of transfers accepted in one batch request
+    @Value("${banking.transfer.batch.max-size:1000}")
+    int batchMaxSize;
+}
@@ -0,0 +1,103 @@
+package com.example.bankingprojectfinal.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Times the stages of a transfer as banking.transfer.stage{stage, exception}. exception is "none" for a
+// stage that completed and the simple class name of what it threw otherwise. Percentile histograms are
+// published for every stage, and TransferStagesEndpoint summarises them under /actuator/transferstages.
+@Component
+public class TransferStageMetrics {
+    public static final String TIMER = "banking.transfer.stage";
+    private static final String NO_EXCEPTION = "none";
+
+    public enum Stage {
+        VALIDATION("validation"),
+        CARD_LOOKUP("card_lookup"),
+        CHECKS("checks"),              // ownership and card status
+        VELOCITY("velocity"),          // in-memory velocity rules
+        ACCOUNT_LOOKUP("account_lookup"),
+        LOCK_WAIT("lock_wait"),        // ORDERED_LOCK only, replaces account_lookup
+        FUNDS_CHECK("funds_check"),
+        DAILY_LIMIT("daily_limit"),
+        BALANCE_UPDATE("balance_update"),
+        TRANSACTION_INSERT("transaction_insert"),
+        // Flush and commit; with JPA the account UPDATEs and the INSERT are executed here
+        COMMIT("commit");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public TransferStageMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> T time(Stage stage, Supplier<T> body) {
+        long start = System.nanoTime();
+        String exception = NO_EXCEPTION;
+        try {
+            return body.get();
+        } catch (RuntimeException e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            record(stage, exception, System.nanoTime() - start);
+        }
+    }
+
+    public void time(Stage stage, Runnable body) {
+        time(stage, () -> {
+            body.run();
+            return null;
+        });
+    }
+
+    // Times from the start of the commit to its end; a rollback at commit (e.g. an optimistic lock
+    // conflict found by the flush) is recorded with exception "rollback"
+    public void timeCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private long start;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                start = System.nanoTime();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (start != 0) {
+                    record(Stage.COMMIT, status == STATUS_COMMITTED ? NO_EXCEPTION : "rollback", System.nanoTime() - start);
+                }
+            }
+        });
+    }
+
+    private void record(Stage stage, String exception, long nanos) {
+        timers.computeIfAbsent(stage.tag + '|' + exception, key -> Timer.builder(TIMER)
+                        .description("Time spent in one stage of a card-to-card transfer")
+                        .tag("stage", stage.tag)
+                        .tag("exception", exception)
+                        .publishPercentileHistogram()
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .register(meterRegistry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
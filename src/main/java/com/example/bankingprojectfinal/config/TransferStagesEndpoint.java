@@ -0,0 +1,51 @@
+package com.example.bankingprojectfinal.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+// GET /actuator/transferstages: per stage and exception, how many transfers passed through it and
+// how long they took (milliseconds), so a slow p99 can be pinned on a stage.
+@Component
+@Endpoint(id = "transferstages")
+public class TransferStagesEndpoint {
+    private final MeterRegistry meterRegistry;
+
+    public TransferStagesEndpoint(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public record StageSummary(long count, double meanMs, double maxMs, double p50Ms, double p95Ms, double p99Ms) {
+    }
+
+    @ReadOperation
+    public Map<String, Map<String, StageSummary>> stages() {
+        Map<String, Map<String, StageSummary>> stages = new TreeMap<>();
+        for (Timer timer : meterRegistry.find(TransferStageMetrics.TIMER).timers()) {
+            stages.computeIfAbsent(timer.getId().getTag("stage"), stage -> new TreeMap<>())
+                    .put(timer.getId().getTag("exception"), summarize(timer));
+        }
+        return stages;
+    }
+
+    private StageSummary summarize(Timer timer) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        double p50 = Double.NaN, p95 = Double.NaN, p99 = Double.NaN;
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            double value = percentile.value(TimeUnit.MILLISECONDS);
+            if (percentile.percentile() == 0.5) p50 = value;
+            else if (percentile.percentile() == 0.95) p95 = value;
+            else if (percentile.percentile() == 0.99) p99 = value;
+        }
+        return new StageSummary(snapshot.count(), snapshot.mean(TimeUnit.MILLISECONDS),
+                snapshot.max(TimeUnit.MILLISECONDS), p50, p95, p99);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.bankingprojectfinal.config;
+
+import com.example.bankingprojectfinal.Model.Enums.VelocityRuleType;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// banking.velocity.*; the rules are a list, which @Value cannot bind, hence @ConfigurationProperties
+@Component
+@ConfigurationProperties(prefix = "banking.velocity")
+@Getter
+@Setter
+public class VelocityProperties {
+    private boolean enabled = true;
+
+    // Keys (cards, customers, customer and amount pairs) tracked per rule; the least recently used
+    // are dropped first, so memory stays bounded whatever the traffic
+    private long maxKeysPerRule = 100_000;
+
+    private List<Rule> rules = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Rule {
+        private String name;
+        private VelocityRuleType type;
+        private int limit;
+        private Duration window;
+    }
+}
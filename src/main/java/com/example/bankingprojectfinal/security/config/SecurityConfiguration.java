@@ -43,6 +43,7 @@ public class SecurityConfiguration {
                                 "/swagger-resources/**", // Allow Swagger resources
                                 "/webjars/**" // Allow webjars (used by Swagger)
                         ).permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN") // Metrics and transfer stage timings
                         .anyRequest().authenticated()
                 )
                 .sessionManagement(session -> session
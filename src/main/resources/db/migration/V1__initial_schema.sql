@@ -0,0 +1,135 @@
+-- The tables the entities map, as Hibernate's ddl-auto=update used to create them, plus the account
+-- number sequence and card number ranges the generators used to create on startup.
+
+CREATE SEQUENCE users_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE users (
+    id                      BIGINT       NOT NULL PRIMARY KEY,
+    username                VARCHAR(255) NOT NULL,
+    email                   VARCHAR(255) NOT NULL,
+    password                VARCHAR(255) NOT NULL,
+    verification_code       VARCHAR(255),
+    verification_expiration TIMESTAMP(6),
+    enabled                 BOOLEAN      NOT NULL,
+    user_role               TINYINT CHECK (user_role BETWEEN 0 AND 1),
+    CONSTRAINT uk_users_username UNIQUE (username),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE customer (
+    id                INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    first_name        VARCHAR(255) NOT NULL,
+    last_name         VARCHAR(255) NOT NULL,
+    birth_date        DATE         NOT NULL,
+    fin_code          VARCHAR(255) NOT NULL,
+    phone_number      VARCHAR(255) NOT NULL,
+    registration_date DATE,
+    user_id           BIGINT,
+    status            ENUM ('BLOCKED', 'DELETED', 'REGULAR', 'SUSPECTED'),
+    CONSTRAINT uk_customer_fin_code UNIQUE (fin_code),
+    CONSTRAINT uk_customer_phone_number UNIQUE (phone_number),
+    CONSTRAINT uk_customer_user UNIQUE (user_id),
+    CONSTRAINT fk_customer_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE account (
+    id             INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    account_number VARCHAR(255),
+    customer_id    INTEGER,
+    balance        NUMERIC(38, 2),
+    opening_date   DATE,
+    expire_date    DATE,
+    status         ENUM ('ACTIVE', 'DELETED', 'EXPIRED'),
+    version        BIGINT,
+    balance_slots  INTEGER,
+    CONSTRAINT uk_account_number UNIQUE (account_number),
+    CONSTRAINT fk_account_customer FOREIGN KEY (customer_id) REFERENCES customer (id)
+);
+
+CREATE TABLE account_balance_slot (
+    account_id INTEGER        NOT NULL,
+    slot       INTEGER        NOT NULL,
+    amount     NUMERIC(38, 2) NOT NULL,
+    PRIMARY KEY (account_id, slot)
+);
+
+CREATE TABLE card (
+    card_number VARCHAR(255) NOT NULL PRIMARY KEY,
+    account_id  INTEGER,
+    issue_date  DATE,
+    expire_date DATE,
+    status      ENUM ('ACTIVE', 'DELETED', 'EXPIRED'),
+    CONSTRAINT fk_card_account FOREIGN KEY (account_id) REFERENCES account (id)
+);
+
+CREATE TABLE transaction (
+    transaction_id     UUID    NOT NULL PRIMARY KEY,
+    debit_account_id   INTEGER NOT NULL,
+    credit_account_id  INTEGER NOT NULL,
+    debit_card_number  VARCHAR(255),
+    credit_card_number VARCHAR(255),
+    transaction_date   DATE,
+    amount             NUMERIC(38, 2),
+    status             ENUM ('COMPLETED', 'FAILED', 'PENDING'),
+    transaction_type   ENUM ('CREDIT', 'DEBIT', 'DEPOSIT', 'TRANSFER'),
+    CONSTRAINT fk_transaction_debit_account FOREIGN KEY (debit_account_id) REFERENCES account (id),
+    CONSTRAINT fk_transaction_credit_account FOREIGN KEY (credit_account_id) REFERENCES account (id)
+);
+
+-- Newest-first history scan and its keyset cursor
+CREATE INDEX idx_transaction_date_id ON transaction (transaction_date DESC, transaction_id DESC);
+
+CREATE TABLE customer_transaction_feed (
+    customer_id    INTEGER        NOT NULL,
+    transaction_id UUID           NOT NULL,
+    occurred_at    DATE           NOT NULL,
+    direction      ENUM ('INCOMING', 'OUTGOING', 'OWN_ACCOUNTS') NOT NULL,
+    amount         NUMERIC(38, 2) NOT NULL,
+    counterparty   VARCHAR(255),
+    PRIMARY KEY (customer_id, transaction_id)
+);
+
+-- A customer's history newest first
+CREATE INDEX idx_feed_customer_occurred ON customer_transaction_feed (customer_id, occurred_at DESC, transaction_id DESC);
+
+CREATE TABLE customer_daily_spend (
+    customer_id INTEGER        NOT NULL,
+    spend_day   DATE           NOT NULL,
+    total       NUMERIC(38, 2) NOT NULL,
+    PRIMARY KEY (customer_id, spend_day)
+);
+
+CREATE TABLE customer_daily_activity (
+    customer_id  INTEGER        NOT NULL,
+    activity_day DATE           NOT NULL,
+    total        NUMERIC(38, 2) NOT NULL,
+    -- Customer first: the activity window sums one customer's days
+    PRIMARY KEY (customer_id, activity_day)
+);
+
+CREATE TABLE pending_scan_checkpoint (
+    name                  VARCHAR(255) NOT NULL PRIMARY KEY,
+    last_transaction_date DATE,
+    last_transaction_id   UUID,
+    scanned               BIGINT       NOT NULL,
+    processed             BIGINT       NOT NULL,
+    started_at            TIMESTAMP(6),
+    updated_at            TIMESTAMP(6),
+    completed             BOOLEAN      NOT NULL
+);
+
+CREATE TABLE cluster_lock (
+    name       VARCHAR(255) NOT NULL PRIMARY KEY,
+    locked_by  VARCHAR(255) NOT NULL,
+    locked_at  TIMESTAMP(6) NOT NULL,
+    lock_until TIMESTAMP(6) NOT NULL
+);
+
+-- AccountNumberGenerator: one value per block of account numbers
+CREATE SEQUENCE account_number_seq START WITH 1 INCREMENT BY 1;
+
+-- CardNumberGenerator: blocks of card numbers handed out per BIN
+CREATE TABLE card_number_range (
+    bin        VARCHAR(6) NOT NULL PRIMARY KEY,
+    high_water BIGINT     NOT NULL
+);
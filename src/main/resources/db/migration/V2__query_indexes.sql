@@ -0,0 +1,31 @@
+-- Indexes for the queries of TransactionRepository, AccountRepository and CardRepository; each of them
+-- reads an index range or a primary key (RepositoryQueryPlanTest).
+-- H2 gave every foreign key of V1 an index of its own. The foreign keys on columns that lead one of the
+-- indexes below are re-created after it, so they use it and the single-column index goes away.
+
+-- Transactions of an account by date: the debit side serves the daily totals and the debit customer's
+-- monthly total, the credit side the credit customer's
+ALTER TABLE transaction DROP CONSTRAINT fk_transaction_debit_account;
+ALTER TABLE transaction DROP CONSTRAINT fk_transaction_credit_account;
+CREATE INDEX idx_transaction_debit_account_date ON transaction (debit_account_id, transaction_date);
+CREATE INDEX idx_transaction_credit_account_date ON transaction (credit_account_id, transaction_date);
+ALTER TABLE transaction ADD CONSTRAINT fk_transaction_debit_account FOREIGN KEY (debit_account_id) REFERENCES account (id);
+ALTER TABLE transaction ADD CONSTRAINT fk_transaction_credit_account FOREIGN KEY (credit_account_id) REFERENCES account (id);
+
+-- Pending transactions oldest first (findPendingRefs, findPendingRefsAfter): the status is fixed and the
+-- rest of the index is the keyset order, so a chunk is read in order and stops at its page size
+CREATE INDEX idx_transaction_status_date_id ON transaction (status, transaction_date, transaction_id);
+
+-- Accounts of a customer, cards of an account
+ALTER TABLE account DROP CONSTRAINT fk_account_customer;
+CREATE INDEX idx_account_customer ON account (customer_id);
+ALTER TABLE account ADD CONSTRAINT fk_account_customer FOREIGN KEY (customer_id) REFERENCES customer (id);
+ALTER TABLE card DROP CONSTRAINT fk_card_account;
+CREATE INDEX idx_card_account ON card (account_id);
+ALTER TABLE card ADD CONSTRAINT fk_card_account FOREIGN KEY (account_id) REFERENCES account (id);
+
+-- Accounts and cards by status (admin listings). The expiry sweeps walk the primary key from their
+-- keyset position instead: a chunk is the next rows past the expire date in key order, and nothing else
+-- filters on expire_date
+CREATE INDEX idx_account_status ON account (status);
+CREATE INDEX idx_card_status ON card (status);
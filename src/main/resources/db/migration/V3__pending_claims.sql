@@ -0,0 +1,8 @@
+-- Claims on pending transactions: a poller marks the rows of its chunk with a claim id and a lease before
+-- handing them to its workers, so two instances never complete the same row. A claim whose lease has run
+-- out (the instance died) may be taken over.
+ALTER TABLE transaction ADD COLUMN claim_id UUID;
+ALTER TABLE transaction ADD COLUMN claimed_until TIMESTAMP;
+
+-- Rows of one claim (findClaimedRefs, releaseClaim)
+CREATE INDEX idx_transaction_claim ON transaction (claim_id);
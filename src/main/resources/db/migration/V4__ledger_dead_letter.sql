@@ -0,0 +1,16 @@
+-- Ledger transfers and deposits that LedgerPersister could not write. They were confirmed to the client and
+-- are in the ledger's balances, so they are kept here, as the transaction row that was to be written, to be
+-- replayed once the cause is fixed. No foreign keys: a missing account may be why the write failed.
+CREATE TABLE ledger_dead_letter (
+    transaction_id     UUID           NOT NULL PRIMARY KEY,
+    debit_account_id   INTEGER        NOT NULL,
+    credit_account_id  INTEGER        NOT NULL,
+    debit_card_number  VARCHAR(255),
+    credit_card_number VARCHAR(255),
+    transaction_date   DATE,
+    amount             NUMERIC(38, 2),
+    status             VARCHAR(20),
+    transaction_type   VARCHAR(20),
+    failed_at          TIMESTAMP      NOT NULL,
+    error              VARCHAR(1000)
+);
@@ -0,0 +1,9 @@
+-- The number generators' high-water marks count identifiers instead of blocks: a node reserves
+-- [high_water, high_water + its block size), so blocks never overlap whatever block size each node uses.
+
+-- card_number_range counted blocks of banking.cards.number-block-size identifiers, 100 by default. The
+-- mark moves past those blocks, and past every card of the BIN already issued in case a larger size
+-- was used.
+UPDATE card_number_range r SET high_water = GREATEST(r.high_water * 100, COALESCE(
+    (SELECT MAX(CAST(SUBSTRING(c.card_number, 7, 9) AS BIGINT)) + 1 FROM card c
+     WHERE LEFT(c.card_number, 6) = r.bin AND REGEXP_LIKE(c.card_number, '^[0-9]{16}$')), 0));
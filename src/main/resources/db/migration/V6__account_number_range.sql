@@ -0,0 +1,17 @@
+-- AccountNumberGenerator reserves blocks through a high-water mark counting identifiers, like
+-- card_number_range (V5): a node reserves [high_water, high_water + its block size).
+
+-- Account numbers move from account_number_seq, whose values were block numbers, to a mark of the same
+-- kind. It starts past the blocks the sequence handed out (100 identifiers each by default) and past
+-- every account number already issued. The sequence is dropped so that a node still running the old
+-- generator fails instead of reissuing numbers.
+CREATE TABLE account_number_range (
+    prefix     VARCHAR(3) NOT NULL PRIMARY KEY,
+    high_water BIGINT     NOT NULL
+);
+INSERT INTO account_number_range (prefix, high_water)
+SELECT 'ACC', GREATEST(
+    (SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'ACCOUNT_NUMBER_SEQ') * 100,
+    COALESCE((SELECT MAX(CAST(SUBSTRING(account_number, 4, 12) AS BIGINT)) + 1 FROM account
+              WHERE REGEXP_LIKE(account_number, '^ACC[0-9]{13}$')), 0));
+DROP SEQUENCE account_number_seq;
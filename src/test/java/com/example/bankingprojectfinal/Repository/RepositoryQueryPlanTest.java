@@ -0,0 +1,240 @@
+package com.example.bankingprojectfinal.Repository;
+
+import com.example.bankingprojectfinal.Model.Entity.AccountEntity;
+import com.example.bankingprojectfinal.Model.Entity.CardEntity;
+import com.example.bankingprojectfinal.Model.Entity.CustomerEntity;
+import com.example.bankingprojectfinal.Model.Entity.TransactionEntity;
+import com.example.bankingprojectfinal.Model.Enums.AccountStatus;
+import com.example.bankingprojectfinal.Model.Enums.CardStatus;
+import com.example.bankingprojectfinal.Model.Enums.TransactionStatus;
+import com.example.bankingprojectfinal.Model.Enums.TransactionType;
+import com.example.bankingprojectfinal.support.BankingTestData;
+import com.example.bankingprojectfinal.support.StatementRecorder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs every query declared in TransactionRepository, AccountRepository and CardRepository, records the
+// SQL Hibernate sends and asks H2 for its plan. A plan may not scan a table, and every index it reads
+// has to be entered through its leading column; the only whole-index read allowed is one that returns
+// the rows already in the requested order (a newest-first page).
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-plan-test",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.bankingprojectfinal.support.StatementRecorder",
+        "banking.pending.poll-interval-ms=3600000"
+})
+class RepositoryQueryPlanTest {
+    private static final int CUSTOMERS = 100;
+    private static final int DAYS = 30;
+    // "/* PUBLIC.IDX_NAME: CONDITION */", "/* PUBLIC.IDX_NAME */" or "/* PUBLIC.TABLE.tableScan */"
+    private static final Pattern ACCESS = Pattern.compile("/\\*\\s*PUBLIC\\.(\\w+)(\\.tableScan)?(?::\\s*(.*?))?\\s*\\*/", Pattern.DOTALL);
+
+    @Autowired
+    TransactionRepository transactionRepository;
+    @Autowired
+    AccountRepository accountRepository;
+    @Autowired
+    CardRepository cardRepository;
+    @Autowired
+    CustomerRepository customerRepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void noRepositoryQueryScansATable() {
+        LocalDate today = LocalDate.now();
+        Pageable page = PageRequest.of(0, 10);
+        Pageable firstOfMany = PageRequest.of(0, 1);
+        List<AccountEntity> accounts = seedAccounts();
+        List<TransactionEntity> transactions = seedTransactions(accounts, today);
+        jdbcTemplate.execute("ANALYZE");
+
+        AccountEntity account = accounts.get(0);
+        Integer customerId = account.getCustomer().getId();
+        CardEntity card = cardRepository.findByAccount_AccountNumber(account.getAccountNumber()).get(0);
+        CardEntity otherCard = cardRepository.findByAccount_AccountNumber(accounts.get(1).getAccountNumber()).get(0);
+        TransactionEntity transaction = transactions.get(transactions.size() / 2);
+        List<UUID> transactionIds = List.of(transaction.getTransactionId(), transactions.get(0).getTransactionId());
+
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("getTodayTotalTransferAmountByDebitAccountCustomer",
+                () -> transactionRepository.getTodayTotalTransferAmountByDebitAccountCustomer(customerId, today));
+        queries.put("findNewestFirst", () -> transactionRepository.findNewestFirst(page));
+        queries.put("findNewestFirstBefore", () -> transactionRepository.findNewestFirstBefore(
+                transaction.getTransactionDate(), transaction.getTransactionId(), page));
+        queries.put("findWithAccountsByTransactionIdIn", () -> transactionRepository.findWithAccountsByTransactionIdIn(transactionIds));
+        queries.put("findFinishedAfter", () -> transactionRepository.findFinishedAfter(transaction.getTransactionId(), page));
+        queries.put("getMonthlyTotalByCustomer",
+                () -> transactionRepository.getMonthlyTotalByCustomer(customerId, today.minusDays(29), today));
+        queries.put("sumCompletedTransfersByDebitCustomer", () -> transactionRepository.sumCompletedTransfersByDebitCustomer(today));
+        LocalDateTime now = LocalDateTime.now();
+        UUID claimId = UUID.randomUUID();
+        queries.put("findPendingRefs", () -> transactionRepository.findPendingRefs(now, page));
+        queries.put("findPendingRefsAfter", () -> transactionRepository.findPendingRefsAfter(
+                transaction.getTransactionDate(), transaction.getTransactionId(), now, page));
+        queries.put("claim", () -> transactionRepository.claim(transactionIds, claimId, now.plusMinutes(5), now));
+        queries.put("findClaimedRefs", () -> transactionRepository.findClaimedRefs(claimId));
+        queries.put("releaseClaim", () -> transactionRepository.releaseClaim(claimId));
+        queries.put("existsByStatus", () -> transactionRepository.existsByStatus(TransactionStatus.PENDING));
+        queries.put("findByTransactionIdIn", () -> transactionRepository.findByTransactionIdIn(transactionIds));
+
+        queries.put("findByCustomer_Id", () -> accountRepository.findByCustomer_Id(customerId));
+        queries.put("findByStatus", () -> {
+            accountRepository.findByStatus(AccountStatus.ACTIVE, firstOfMany);
+            cardRepository.findByStatus(CardStatus.ACTIVE, firstOfMany);
+        });
+        queries.put("existsByAccountNumber", () -> accountRepository.existsByAccountNumber(account.getAccountNumber()));
+        queries.put("findByAccountNumber", () -> accountRepository.findByAccountNumber(account.getAccountNumber()));
+        queries.put("countByCustomer_Id", () -> accountRepository.countByCustomer_Id(customerId));
+        queries.put("findExpiredIdsAfter", () -> accountRepository.findExpiredIdsAfter(account.getId(), today, page));
+        queries.put("markExpired", () -> {
+            accountRepository.markExpired(List.of(account.getId()), today);
+            cardRepository.markExpired(List.of(card.getCardNumber()), today);
+        });
+        queries.put("debitIfBalanceAllows", () -> accountRepository.debitIfBalanceAllows(account.getId(), BigDecimal.ONE, BigDecimal.ZERO));
+        queries.put("credit", () -> accountRepository.credit(account.getId(), BigDecimal.ONE));
+        queries.put("findByIdForUpdate", () -> accountRepository.findByIdForUpdate(account.getId()));
+        queries.put("findIdByAccountNumber", () -> accountRepository.findIdByAccountNumber(account.getAccountNumber()));
+        queries.put("findBalanceById", () -> accountRepository.findBalanceById(account.getId()));
+
+        queries.put("findByAccount_Customer_Id", () -> {
+            cardRepository.findByAccount_Customer_Id(customerId);
+            cardRepository.findByAccount_Customer_Id(customerId, firstOfMany);
+        });
+        queries.put("countByAccount_AccountNumber", () -> cardRepository.countByAccount_AccountNumber(account.getAccountNumber()));
+        queries.put("findByCardNumber", () -> cardRepository.findByCardNumber(card.getCardNumber()));
+        queries.put("findByAccount_AccountNumber", () -> {
+            cardRepository.findByAccount_AccountNumber(account.getAccountNumber());
+            cardRepository.findByAccount_AccountNumber(account.getAccountNumber(), firstOfMany);
+        });
+        queries.put("countByAccount_Id", () -> cardRepository.countByAccount_Id(account.getId()));
+        queries.put("findRouteByCardNumber", () -> cardRepository.findRouteByCardNumber(card.getCardNumber()));
+        queries.put("findTransferCards", () -> cardRepository.findTransferCards(card.getCardNumber(), otherCard.getCardNumber()));
+        queries.put("findAllWithAccountByCardNumberIn", () -> cardRepository.findAllWithAccountByCardNumberIn(
+                List.of(card.getCardNumber(), otherCard.getCardNumber())));
+        queries.put("findExpiredCardNumbersAfter", () -> cardRepository.findExpiredCardNumbersAfter(card.getCardNumber(), today, page));
+
+        // A query added to one of the repositories has to be added here too
+        assertThat(queries.keySet()).containsExactlyInAnyOrderElementsOf(declaredQueries());
+
+        Map<String, List<String>> violations = new LinkedHashMap<>();
+        queries.forEach((name, query) -> {
+            List<String> statements = record(query);
+            assertThat(statements).as(name).isNotEmpty();
+            for (String sql : statements) {
+                String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+                List<String> problems = problems(plan);
+                if (!problems.isEmpty()) {
+                    violations.computeIfAbsent(name, key -> new ArrayList<>()).add(String.join("; ", problems) + "\n" + plan);
+                }
+            }
+        });
+        assertThat(violations).isEmpty();
+    }
+
+    private List<String> record(Runnable query) {
+        StatementRecorder.start();
+        // Rolled back, so the modifying queries leave the data as it was for the ones after them
+        transactionTemplate.executeWithoutResult(status -> {
+            query.run();
+            status.setRollbackOnly();
+        });
+        return StatementRecorder.stop();
+    }
+
+    private List<String> problems(String plan) {
+        boolean sorted = plan.contains("/* index sorted */");
+        List<String> problems = new ArrayList<>();
+        Matcher access = ACCESS.matcher(plan);
+        while (access.find()) {
+            String index = access.group(1);
+            String condition = access.group(3);
+            if (access.group(2) != null) {
+                problems.add("table scan of " + index);
+            } else if (condition == null) {
+                if (!sorted) {
+                    problems.add("whole " + index + " read");
+                }
+            } else {
+                String leading = leadingColumn(index);
+                if (!Pattern.compile("\\b" + leading + "\\s*(=|<|>|IN\\(|BETWEEN|IS )").matcher(condition).find()) {
+                    problems.add(index + " not entered through " + leading);
+                }
+            }
+        }
+        return problems;
+    }
+
+    private String leadingColumn(String index) {
+        return jdbcTemplate.queryForObject("SELECT column_name FROM information_schema.index_columns " +
+                "WHERE index_schema = 'PUBLIC' AND index_name = ? AND ordinal_position = 1", String.class, index)
+                .toUpperCase(Locale.ROOT);
+    }
+
+    private static Set<String> declaredQueries() {
+        return Stream.of(TransactionRepository.class, AccountRepository.class, CardRepository.class)
+                .flatMap(repository -> Arrays.stream(repository.getDeclaredMethods()))
+                .filter(method -> Modifier.isAbstract(method.getModifiers()))
+                .map(Method::getName)
+                .collect(Collectors.toSet());
+    }
+
+    private List<AccountEntity> seedAccounts() {
+        int seq = (int) customerRepository.count() * 2 + 1;
+        List<AccountEntity> accounts = new ArrayList<>();
+        for (int i = 0; i < CUSTOMERS; i++) {
+            CustomerEntity customer = BankingTestData.customer(customerRepository, seq + i);
+            for (int j = 0; j < 2; j++) {
+                AccountEntity account = BankingTestData.account(accountRepository, customer, seq + 2 * i + j, new BigDecimal("1000.00"));
+                BankingTestData.card(cardRepository, account, account.getId());
+                accounts.add(account);
+            }
+        }
+        return accounts;
+    }
+
+    // Thirty days of transfers between the accounts, a tenth of them still pending and a few failed
+    private List<TransactionEntity> seedTransactions(List<AccountEntity> accounts, LocalDate today) {
+        List<TransactionEntity> transactions = new ArrayList<>();
+        for (int i = 0; i < accounts.size() * 10; i++) {
+            AccountEntity debit = accounts.get(i % accounts.size());
+            AccountEntity credit = accounts.get((i * 7 + 3) % accounts.size());
+            transactions.add(TransactionEntity.builder()
+                    .debitAccount(debit)
+                    .creditAccount(credit)
+                    .amount(BigDecimal.valueOf(i % 50 + 1))
+                    .transactionDate(today.minusDays(i % DAYS))
+                    .status(i % 10 == 0 ? TransactionStatus.PENDING : i % 25 == 0 ? TransactionStatus.FAILED : TransactionStatus.COMPLETED)
+                    .transactionType(i % 5 == 0 ? TransactionType.DEPOSIT : TransactionType.TRANSFER)
+                    .build());
+        }
+        return transactionRepository.saveAll(transactions);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.bankingprojectfinal.Service.Concrete;
+
+import com.example.bankingprojectfinal.Model.Entity.AccountEntity;
+import com.example.bankingprojectfinal.Model.Entity.CardEntity;
+import com.example.bankingprojectfinal.Model.Entity.CustomerEntity;
+import com.example.bankingprojectfinal.Repository.AccountRepository;
+import com.example.bankingprojectfinal.Repository.CardRepository;
+import com.example.bankingprojectfinal.Repository.CustomerRepository;
+import com.example.bankingprojectfinal.support.BankingTestData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:card-resolution-cache-test",
+        "spring.jpa.show-sql=false",
+        "banking.pending.poll-interval-ms=3600000"
+})
+class CardResolutionCacheTest {
+
+    @Autowired
+    CardRepository cardRepository;
+    @Autowired
+    AccountRepository accountRepository;
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Test
+    void evictingAnAccountDropsExactlyItsCards() {
+        CardResolutionCache cache = new CardResolutionCache(cardRepository, new SimpleMeterRegistry(), 100, 3_600_000);
+        CustomerEntity customer = BankingTestData.customer(customerRepository, 1);
+        AccountEntity first = BankingTestData.account(accountRepository, customer, 1, BigDecimal.ZERO);
+        AccountEntity second = BankingTestData.account(accountRepository, customer, 2, BigDecimal.ZERO);
+        List<CardEntity> firstCards = List.of(
+                BankingTestData.card(cardRepository, first, 1), BankingTestData.card(cardRepository, first, 2));
+        CardEntity secondCard = BankingTestData.card(cardRepository, second, 3);
+        firstCards.forEach(card -> cache.resolve(card.getCardNumber()));
+        cache.resolve(secondCard.getCardNumber());
+
+        cache.evictAccount(first.getId());
+
+        firstCards.forEach(card -> assertThat(cache.cached(card.getCardNumber())).isEmpty());
+        assertThat(cache.cached(secondCard.getCardNumber())).isPresent();
+
+        // Reloaded after the eviction, the card is indexed again
+        cache.resolve(firstCards.get(0).getCardNumber());
+        cache.evictAccounts(List.of(first.getId(), second.getId()));
+        assertThat(cache.cached(firstCards.get(0).getCardNumber())).isEmpty();
+        assertThat(cache.cached(secondCard.getCardNumber())).isEmpty();
+    }
+
+    @Test
+    void entriesExpireAfterTheirWriteTime() throws InterruptedException {
+        CardResolutionCache cache = new CardResolutionCache(cardRepository, new SimpleMeterRegistry(), 100, 100);
+        CustomerEntity customer = BankingTestData.customer(customerRepository, 2);
+        AccountEntity account = BankingTestData.account(accountRepository, customer, 4, BigDecimal.ZERO);
+        CardEntity card = BankingTestData.card(cardRepository, account, 4);
+
+        cache.resolve(card.getCardNumber());
+        assertThat(cache.cached(card.getCardNumber())).isPresent();
+        Thread.sleep(300);
+
+        assertThat(cache.cached(card.getCardNumber())).isEmpty();
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.bankingprojectfinal.Service.Concrete;
+
+import com.example.bankingprojectfinal.BankingProjectFinalApplication;
+import com.example.bankingprojectfinal.Model.Entity.AccountEntity;
+import com.example.bankingprojectfinal.Model.Entity.CardEntity;
+import com.example.bankingprojectfinal.Model.Entity.CustomerEntity;
+import com.example.bankingprojectfinal.Model.Enums.CardStatus;
+import com.example.bankingprojectfinal.Repository.AccountRepository;
+import com.example.bankingprojectfinal.Repository.CardRepository;
+import com.example.bankingprojectfinal.Repository.CustomerRepository;
+import com.example.bankingprojectfinal.support.BankingTestData;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.search.Search;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Pageable;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Two application contexts stand in for two nodes: separate beans, connection pools and node ids,
+// coordinating through nothing but the H2 database file they share.
+class ClusterLockTest {
+    private static final Path DATABASE_DIR = Path.of("build", "cluster-lock-test");
+
+    static ConfigurableApplicationContext nodeA;
+    static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() throws IOException {
+        FileSystemUtils.deleteRecursively(DATABASE_DIR);
+        nodeA = startNode("node-a");
+        nodeB = startNode("node-b");
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodeB.close();
+        nodeA.close();
+    }
+
+    private static ConfigurableApplicationContext startNode(String nodeId) {
+        return new SpringApplicationBuilder(BankingProjectFinalApplication.class).run(
+                "--spring.datasource.url=jdbc:h2:file:./" + DATABASE_DIR.resolve("banking") + ";DB_CLOSE_DELAY=-1",
+                "--spring.jpa.show-sql=false",
+                "--server.port=0",
+                "--banking.pending.poll-interval-ms=3600000",
+                "--banking.cluster-lock.node-id=" + nodeId);
+    }
+
+    @Test
+    void aLeaseHeldByOneNodeKeepsTheOtherOutUntilItRunsOutOrIsReleased() throws InterruptedException {
+        ClusterLocks locksA = nodeA.getBean(ClusterLocks.class);
+        ClusterLocks locksB = nodeB.getBean(ClusterLocks.class);
+
+        assertThat(locksA.tryLock("lease-test", Duration.ofMillis(500))).isTrue();
+        assertThat(locksB.tryLock("lease-test", Duration.ofMillis(500))).isFalse();
+        Thread.sleep(700);
+        // node-a never released it; the lease ran out
+        assertThat(locksB.tryLock("lease-test", Duration.ofMinutes(1))).isTrue();
+        assertThat(locksA.tryLock("lease-test", Duration.ofMinutes(1))).isFalse();
+
+        locksB.unlock("lease-test", Duration.ZERO);
+        assertThat(locksA.tryLock("lease-test", Duration.ofMinutes(1))).isTrue();
+    }
+
+    @Test
+    void aScheduledJobFiredOnBothNodesRunsOnOne() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        CustomerEntity customer = BankingTestData.customer(nodeA.getBean(CustomerRepository.class), 1);
+        AccountEntity account = BankingTestData.account(nodeA.getBean(AccountRepository.class), customer, 1, BigDecimal.ZERO);
+        CardRepository cardRepository = nodeA.getBean(CardRepository.class);
+        for (int i = 1; i <= 3; i++) {
+            CardEntity card = BankingTestData.card(cardRepository, account, i);
+            card.setExpireDate(yesterday);
+            cardRepository.save(card);
+        }
+
+        // Both nodes' schedulers fire at the same moment
+        CountDownLatch midnight = new CountDownLatch(1);
+        CompletableFuture<Integer> onA = CompletableFuture.supplyAsync(() -> sweepCardsAt(midnight, nodeA));
+        CompletableFuture<Integer> onB = CompletableFuture.supplyAsync(() -> sweepCardsAt(midnight, nodeB));
+        midnight.countDown();
+
+        assertThat(onA.join() + onB.join()).isEqualTo(3);
+        assertThat(sweeps(nodeA) + sweeps(nodeB)).isEqualTo(1);
+        assertThat(skipped(nodeA) + skipped(nodeB)).isEqualTo(1);
+        assertThat(cardRepository.findByStatus(CardStatus.EXPIRED, Pageable.unpaged())
+                .getTotalElements()).isEqualTo(3);
+
+        // lockAtLeastFor keeps a late firing on the other node out after the run has finished
+        ConfigurableApplicationContext loser = sweeps(nodeA) == 1 ? nodeB : nodeA;
+        assertThat(loser.getBean(ExpirySweepJob.class).expireCards()).isZero();
+        assertThat(skipped(loser)).isEqualTo(2);
+    }
+
+    private static int sweepCardsAt(CountDownLatch midnight, ConfigurableApplicationContext node) {
+        try {
+            midnight.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+        return node.getBean(ExpirySweepJob.class).expireCards();
+    }
+
+    private static long sweeps(ConfigurableApplicationContext node) {
+        return Search.in(node.getBean(MeterRegistry.class)).name("banking.expiry.sweep").tag("target", "card")
+                .timers().stream().mapToLong(timer -> timer.count()).sum();
+    }
+
+    private static double skipped(ConfigurableApplicationContext node) {
+        return Search.in(node.getBean(MeterRegistry.class)).name("banking.cluster_lock.skipped").tag("lock", "expire-cards")
+                .counters().stream().mapToDouble(counter -> counter.count()).sum();
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.bankingprojectfinal.Service.Concrete;
+
+import com.example.bankingprojectfinal.DTOS.Card.DepositCardRequest;
+import com.example.bankingprojectfinal.Model.Entity.AccountEntity;
+import com.example.bankingprojectfinal.Model.Entity.CardEntity;
+import com.example.bankingprojectfinal.Model.Entity.CustomerEntity;
+import com.example.bankingprojectfinal.Model.Entity.TransactionEntity;
+import com.example.bankingprojectfinal.Model.Enums.CustomerStatus;
+import com.example.bankingprojectfinal.Repository.AccountRepository;
+import com.example.bankingprojectfinal.Repository.CardRepository;
+import com.example.bankingprojectfinal.Repository.CustomerRepository;
+import com.example.bankingprojectfinal.Repository.TransactionRepository;
+import com.example.bankingprojectfinal.Service.Abstraction.CardService;
+import com.example.bankingprojectfinal.Service.Abstraction.TransactionService;
+import com.example.bankingprojectfinal.support.BankingTestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:activity-tracker-test",
+        "spring.jpa.show-sql=false",
+        "banking.pending.poll-interval-ms=3600000"
+})
+class CustomerActivityTrackerTest {
+
+    @Autowired
+    CustomerActivityTracker activityTracker;
+    @Autowired
+    TransactionService transactionService;
+    @Autowired
+    CardService cardService;
+    @Autowired
+    CustomerRepository customerRepository;
+    @Autowired
+    AccountRepository accountRepository;
+    @Autowired
+    CardRepository cardRepository;
+    @Autowired
+    TransactionRepository transactionRepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void signOut() {
+        BankingTestData.signOut();
+    }
+
+    @Test
+    void bucketsMatchTheTransactionHistoryAndDriveTheLimits() {
+        CustomerEntity alice = BankingTestData.customer(customerRepository, 1);
+        CustomerEntity bob = BankingTestData.customer(customerRepository, 2);
+        AccountEntity aliceFirst = BankingTestData.account(accountRepository, alice, 1, new BigDecimal("1000.00"));
+        AccountEntity aliceSecond = BankingTestData.account(accountRepository, alice, 2, BigDecimal.ZERO);
+        AccountEntity bobAccount = BankingTestData.account(accountRepository, bob, 3, BigDecimal.ZERO);
+        CardEntity aliceFirstCard = BankingTestData.card(cardRepository, aliceFirst, 1);
+        CardEntity aliceSecondCard = BankingTestData.card(cardRepository, aliceSecond, 2);
+        CardEntity bobCard = BankingTestData.card(cardRepository, bobAccount, 3);
+
+        BankingTestData.signIn(alice);
+        transactionService.transfer(aliceFirstCard.getCardNumber(), bobCard.getCardNumber(), new BigDecimal("100.00"));
+        transactionService.transfer(aliceFirstCard.getCardNumber(), aliceSecondCard.getCardNumber(), new BigDecimal("50.00"));
+        cardService.depositCard(new DepositCardRequest(bobCard.getCardNumber(), new BigDecimal("25.00")));
+
+        // Own-account transfers count once, received transfers count for the receiver
+        assertThat(activityTracker.rollingTotal(alice.getId())).isEqualByComparingTo("150.00")
+                .isEqualByComparingTo(monthlyTotalFromHistory(alice));
+        assertThat(activityTracker.rollingTotal(bob.getId())).isEqualByComparingTo("125.00")
+                .isEqualByComparingTo(monthlyTotalFromHistory(bob));
+
+        // A rebuild from the history gives the same buckets
+        activityTracker.rebuild(LocalDate.now().minusDays(29), LocalDate.now());
+        assertThat(activityTracker.rollingTotal(alice.getId())).isEqualByComparingTo("150.00");
+        assertThat(activityTracker.rollingTotal(bob.getId())).isEqualByComparingTo("125.00");
+
+        cardService.depositCard(new DepositCardRequest(bobCard.getCardNumber(), new BigDecimal("10000.00")));
+        checkLimits(bob);
+        assertThat(customerRepository.findById(bob.getId()).orElseThrow().getStatus()).isEqualTo(CustomerStatus.SUSPECTED);
+
+        cardService.depositCard(new DepositCardRequest(bobCard.getCardNumber(), new BigDecimal("90000.00")));
+        checkLimits(bob);
+        assertThat(customerRepository.findById(bob.getId()).orElseThrow().getStatus()).isEqualTo(CustomerStatus.BLOCKED);
+
+        checkLimits(alice);
+        assertThat(customerRepository.findById(alice.getId()).orElseThrow().getStatus()).isEqualTo(CustomerStatus.REGULAR);
+    }
+
+    @Test
+    void theLoserOfARaceToCreateABucketIsReportedAsAnOptimisticConflict() throws Exception {
+        CustomerEntity carol = BankingTestData.customer(customerRepository, 4);
+        AccountEntity from = BankingTestData.account(accountRepository, carol, 4, BigDecimal.ZERO);
+        AccountEntity to = BankingTestData.account(accountRepository, carol, 5, BigDecimal.ZERO);
+        TransactionEntity transaction = TransactionEntity.builder()
+                .debitAccount(from).creditAccount(to).amount(new BigDecimal("30.00")).transactionDate(LocalDate.now())
+                .build();
+
+        CountDownLatch created = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // The first transaction creates today's bucket and stays open, so the second one misses it too
+            Future<?> first = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                activityTracker.recordCompleted(transaction);
+                created.countDown();
+                awaitQuietly(release);
+            }));
+            created.await();
+            Future<?> second = executor.submit(() -> transactionTemplate.executeWithoutResult(status ->
+                    activityTracker.recordCompleted(transaction)));
+            Thread.sleep(200);
+            release.countDown();
+
+            first.get();
+            assertThatThrownBy(second::get).hasCauseInstanceOf(OptimisticLockingFailureException.class);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(activityTracker.rollingTotal(carol.getId())).isEqualByComparingTo("30.00");
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // The services call it with the customer loaded in their own transaction
+    private void checkLimits(CustomerEntity customer) {
+        transactionTemplate.executeWithoutResult(status ->
+                activityTracker.checkLimits(customerRepository.findById(customer.getId()).orElseThrow()));
+    }
+
+    private BigDecimal monthlyTotalFromHistory(CustomerEntity customer) {
+        return transactionRepository.getMonthlyTotalByCustomer(customer.getId(), LocalDate.now().minusDays(29), LocalDate.now());
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.bankingprojectfinal.Service.Concrete;
+
+import com.example.bankingprojectfinal.Model.Entity.AccountEntity;
+import com.example.bankingprojectfinal.Model.Entity.CardEntity;
+import com.example.bankingprojectfinal.Model.Entity.CustomerEntity;
+import com.example.bankingprojectfinal.Model.Enums.AccountStatus;
+import com.example.bankingprojectfinal.Model.Enums.CardStatus;
+import com.example.bankingprojectfinal.Repository.AccountRepository;
+import com.example.bankingprojectfinal.Repository.CardRepository;
+import com.example.bankingprojectfinal.Repository.CustomerRepository;
+import com.example.bankingprojectfinal.support.BankingTestData;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:expiry-sweep-test",
+        "spring.jpa.show-sql=false",
+        "banking.pending.poll-interval-ms=3600000",
+        // Several chunks for a handful of rows
+        "banking.expiry.chunk-size=2"
+})
+class ExpirySweepJobTest {
+
+    @Autowired
+    ExpirySweepJob expirySweepJob;
+    @Autowired
+    CustomerRepository customerRepository;
+    @Autowired
+    AccountRepository accountRepository;
+    @Autowired
+    CardRepository cardRepository;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    void sweepsExpireEveryOverdueRowOnceAcrossChunks() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        CustomerEntity customer = BankingTestData.customer(customerRepository, 1);
+
+        List<AccountEntity> overdue = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            AccountEntity account = BankingTestData.account(accountRepository, customer, i, BigDecimal.ZERO);
+            account.setExpireDate(yesterday);
+            overdue.add(accountRepository.save(account));
+        }
+        AccountEntity alreadyExpired = BankingTestData.account(accountRepository, customer, 6, BigDecimal.ZERO);
+        alreadyExpired.setExpireDate(yesterday);
+        alreadyExpired.setStatus(AccountStatus.EXPIRED);
+        alreadyExpired = accountRepository.save(alreadyExpired);
+        AccountEntity valid = BankingTestData.account(accountRepository, customer, 7, BigDecimal.ZERO);
+
+        List<CardEntity> overdueCards = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            CardEntity card = BankingTestData.card(cardRepository, valid, i);
+            card.setExpireDate(yesterday);
+            overdueCards.add(cardRepository.save(card));
+        }
+        CardEntity validCard = BankingTestData.card(cardRepository, valid, 4);
+
+        assertThat(expirySweepJob.expireAccounts()).isEqualTo(5);
+        assertThat(expirySweepJob.expireAccounts()).isZero();
+        for (AccountEntity account : overdue) {
+            AccountEntity reloaded = accountRepository.findById(account.getId()).orElseThrow();
+            assertThat(reloaded.getStatus()).isEqualTo(AccountStatus.EXPIRED);
+            // Bumped so a transfer holding the old row fails its optimistic check
+            assertThat(reloaded.getVersion()).isEqualTo(account.getVersion() + 1);
+        }
+        assertThat(accountRepository.findById(alreadyExpired.getId()).orElseThrow().getVersion())
+                .isEqualTo(alreadyExpired.getVersion());
+        assertThat(accountRepository.findById(valid.getId()).orElseThrow().getStatus()).isEqualTo(AccountStatus.ACTIVE);
+
+        assertThat(expirySweepJob.expireCards()).isEqualTo(3);
+        for (CardEntity card : overdueCards) {
+            assertThat(cardRepository.findById(card.getCardNumber()).orElseThrow().getStatus()).isEqualTo(CardStatus.EXPIRED);
+        }
+        assertThat(cardRepository.findById(validCard.getCardNumber()).orElseThrow().getStatus()).isEqualTo(CardStatus.ACTIVE);
+
+        assertThat(meterRegistry.get("banking.expiry.expired").tag("target", "account").counter().count()).isEqualTo(5);
+        assertThat(meterRegistry.get("banking.expiry.expired").tag("target", "card").counter().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("banking.expiry.sweep").tag("target", "account").tag("outcome", "success").timer().count())
+                .isEqualTo(2);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.bankingprojectfinal.Service.Concrete;
+
+import com.example.bankingprojectfinal.Controller.AccountController;
+import com.example.bankingprojectfinal.DTOS.Card.DepositCardRequest;
+import com.example.bankingprojectfinal.Model.Entity.AccountEntity;
+import com.example.bankingprojectfinal.Model.Entity.CardEntity;
+import com.example.bankingprojectfinal.Model.Entity.CustomerEntity;
+import com.example.bankingprojectfinal.Repository.AccountBalanceSlotRepository;
+import com.example.bankingprojectfinal.Repository.AccountRepository;
+import com.example.bankingprojectfinal.Repository.CardRepository;
+import com.example.bankingprojectfinal.Repository.CustomerRepository;
+import com.example.bankingprojectfinal.Service.Abstraction.AccountService;
+import com.example.bankingprojectfinal.Service.Abstraction.CardService;
+import com.example.bankingprojectfinal.Service.Abstraction.TransactionService;
+import com.example.bankingprojectfinal.support.BankingTestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:hot-account-test",
+        "spring.jpa.show-sql=false",
+        "banking.pending.poll-interval-ms=3600000"
+})
+class HotAccountBalancesTest {
+    private static final int DEPOSITS = 400;
+    private static final int THREADS = 8;
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @Autowired
+    AccountService accountService;
+    @Autowired
+    AccountController accountController;
+    @Autowired
+    CardService cardService;
+    @Autowired
+    TransactionService transactionService;
+    @Autowired
+    CustomerRepository customerRepository;
+    @Autowired
+    AccountRepository accountRepository;
+    @Autowired
+    CardRepository cardRepository;
+    @Autowired
+    AccountBalanceSlotRepository slotRepository;
+
+    @AfterEach
+    void signOut() {
+        BankingTestData.signOut();
+    }
+
+    @Test
+    void creditsGoToSlotsAndDebitsConsolidateThem() throws Exception {
+        CustomerEntity merchant = BankingTestData.customer(customerRepository, 1);
+        AccountEntity merchantAccount = BankingTestData.account(accountRepository, merchant, 1, new BigDecimal("100.00"));
+        CardEntity merchantCard = BankingTestData.card(cardRepository, merchantAccount, 1);
+        AccountEntity payoutAccount = BankingTestData.account(accountRepository, merchant, 2, BigDecimal.ZERO);
+        CardEntity payoutCard = BankingTestData.card(cardRepository, payoutAccount, 2);
+
+        accountService.setHotSlots(merchantAccount.getAccountNumber(), 4);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < DEPOSITS; i++) {
+            results.add(pool.submit(() -> cardService.depositCard(new DepositCardRequest(merchantCard.getCardNumber(), AMOUNT))));
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+        for (Future<?> result : results) {
+            result.get();
+        }
+
+        // The account row was not touched by the credits, the slots hold them
+        assertThat(accountRepository.findBalanceById(merchantAccount.getId())).isEqualByComparingTo("100.00");
+        assertThat(slotRepository.sumSlots(merchantAccount.getId())).isEqualByComparingTo("400.00");
+        assertThat(accountService.getAccountsByCustomerId(merchant.getId()))
+                .filteredOn(account -> account.getAccountNumber().equals(merchantAccount.getAccountNumber()))
+                .singleElement()
+                .satisfies(account -> assertThat(account.getBalance()).isEqualByComparingTo("500.00"));
+
+        // More than the account row holds, so the slots are moved into the balance first
+        BankingTestData.signIn(merchant);
+        transactionService.transfer(merchantCard.getCardNumber(), payoutCard.getCardNumber(), new BigDecimal("300.00"));
+        assertThat(accountRepository.findBalanceById(merchantAccount.getId())).isEqualByComparingTo("200.00");
+        assertThat(slotRepository.sumSlots(merchantAccount.getId())).isEqualByComparingTo("0");
+        assertThat(accountRepository.findBalanceById(payoutAccount.getId())).isEqualByComparingTo("300.00");
+
+        // Clearing the flag keeps the money and removes the slots
+        cardService.depositCard(new DepositCardRequest(merchantCard.getCardNumber(), AMOUNT));
+        accountService.setHotSlots(merchantAccount.getAccountNumber(), null);
+        assertThat(accountRepository.findBalanceById(merchantAccount.getId())).isEqualByComparingTo("201.00");
+        assertThat(slotRepository.findAll()).isEmpty();
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void aSlotCountOutOfRangeIsABadRequest() {
+        CustomerEntity merchant = BankingTestData.customer(customerRepository, 3);
+        AccountEntity account = BankingTestData.account(accountRepository, merchant, 3, new BigDecimal("100.00"));
+
+        for (int slots : new int[]{0, 65}) {
+            assertThatThrownBy(() -> accountController.markAccountHot(account.getAccountNumber(), slots))
+                    .isInstanceOfSatisfying(ResponseStatusException.class,
+                            e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+        }
+        assertThat(accountRepository.findById(account.getId())).hasValueSatisfying(
+                unchanged -> assertThat(unchanged.getBalanceSlots()).isNull());
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.bankingprojectfinal.Service.Concrete;
+
+import com.example.bankingprojectfinal.Model.Entity.CustomerEntity;
+import com.example.bankingprojectfinal.Repository.CustomerDailySpendRepository;
+import com.example.bankingprojectfinal.Repository.CustomerRepository;
+import com.example.bankingprojectfinal.support.BankingTestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:in-memory-limit-test",
+        "spring.jpa.show-sql=false",
+        "banking.limits.engine=MEMORY",
+        "banking.limits.memory.flush-interval-ms=3600000",
+        "banking.pending.poll-interval-ms=3600000"
+})
+class InMemoryDailyLimitServiceTest {
+    @Autowired
+    InMemoryDailyLimitService limitService;
+    @Autowired
+    CustomerRepository customerRepository;
+    @Autowired
+    CustomerDailySpendRepository dailySpendRepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Test
+    void spendOfARolledBackTransactionIsNotCounted() {
+        CustomerEntity customer = BankingTestData.customer(customerRepository, 1);
+        LocalDate today = LocalDate.now();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            limitService.recordCompleted(customer.getId(), today, new BigDecimal("40.00"));
+            status.setRollbackOnly();
+        });
+        transactionTemplate.executeWithoutResult(status ->
+                limitService.recordCompleted(customer.getId(), today, new BigDecimal("40.00")));
+
+        // The retried completion counts once
+        assertThat(limitService.todayTotal(customer.getId())).isEqualByComparingTo("40.00");
+    }
+
+    @Test
+    void theShutdownFlushWritesSnapshotsWithoutACallerTransaction() {
+        CustomerEntity customer = BankingTestData.customer(customerRepository, 2);
+        limitService.reserve(customer.getId(), new BigDecimal("15.00"));
+
+        // What @PreDestroy does: a direct call on the bean, not through a proxy or inside a transaction
+        limitService.flushSnapshots();
+
+        assertThat(dailySpendRepository.findTotal(customer.getId(), LocalDate.now())).hasValueSatisfying(
+                total -> assertThat(total).isEqualByComparingTo("15.00"));
+    }
+
+    @Test
+    void aFlushAddsWhatThisInstanceSpentToWhatOtherInstancesWrote() {
+        CustomerEntity customer = BankingTestData.customer(customerRepository, 3);
+        LocalDate today = LocalDate.now();
+        // Flushed by another instance
+        transactionTemplate.executeWithoutResult(status -> dailySpendRepository.add(customer.getId(), today, new BigDecimal("25.00")));
+
+        limitService.reserve(customer.getId(), new BigDecimal("15.00"));
+        limitService.flushSnapshots();
+        limitService.reserve(customer.getId(), new BigDecimal("5.00"));
+        limitService.flushSnapshots();
+        limitService.flushSnapshots();
+
+        assertThat(dailySpendRepository.findTotal(customer.getId(), today)).hasValueSatisfying(
+                total -> assertThat(total).isEqualByComparingTo("45.00"));
+    }
+}
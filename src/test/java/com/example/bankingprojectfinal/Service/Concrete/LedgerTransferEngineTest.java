@@ -0,0 +1,372 @@
+package com.example.bankingprojectfinal.Service.Concrete;
+
+import com.example.bankingprojectfinal.DTOS.Card.DepositCardRequest;
+import com.example.bankingprojectfinal.Exception.LimitExceedsException;
+import com.example.bankingprojectfinal.Exception.NotEnoughFundsException;
+import com.example.bankingprojectfinal.Model.Entity.AccountEntity;
+import com.example.bankingprojectfinal.Model.Entity.CardEntity;
+import com.example.bankingprojectfinal.Model.Entity.CustomerEntity;
+import com.example.bankingprojectfinal.Model.Entity.TransactionEntity;
+import com.example.bankingprojectfinal.Model.Enums.TransactionStatus;
+import com.example.bankingprojectfinal.Model.Enums.TransactionType;
+import com.example.bankingprojectfinal.Repository.AccountRepository;
+import com.example.bankingprojectfinal.Repository.CardRepository;
+import com.example.bankingprojectfinal.Repository.CustomerRepository;
+import com.example.bankingprojectfinal.Repository.TransactionRepository;
+import com.example.bankingprojectfinal.Service.Abstraction.CardService;
+import com.example.bankingprojectfinal.Service.Abstraction.DailyLimitService;
+import com.example.bankingprojectfinal.Service.Abstraction.TransactionService;
+import com.example.bankingprojectfinal.Utils.LimitProperties;
+import com.example.bankingprojectfinal.Utils.TimeOrderedUuidGenerator;
+import com.example.bankingprojectfinal.support.BankingTestData;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// LEDGER mode end to end: transfers, deposits and pending transactions all go through the partitions, and
+// the database ends up with what the ledger confirmed. The minimum balance is 50 (LimitProperties).
+@SpringBootTest(properties = {
+        "banking.transfer.mode=LEDGER",
+        "banking.limits.engine=MEMORY",
+        "spring.datasource.url=jdbc:h2:mem:ledger-test",
+        "spring.jpa.show-sql=false",
+        "banking.pending.poll-interval-ms=3600000",
+        "banking.velocity.enabled=false",
+        "banking.ledger.partitions=4",
+        "banking.ledger.persist.flush-interval-ms=5"
+})
+class LedgerTransferEngineTest {
+    @Autowired
+    TransactionService transactionService;
+    @Autowired
+    CardService cardService;
+    @Autowired
+    TransactionSchedule transactionSchedule;
+    @Autowired
+    LedgerTransferEngine ledgerEngine;
+    @Autowired
+    LedgerPersister ledgerPersister;
+    @Autowired
+    CustomerRepository customerRepository;
+    @Autowired
+    AccountRepository accountRepository;
+    @Autowired
+    CardRepository cardRepository;
+    @Autowired
+    TransactionRepository transactionRepository;
+    @Autowired
+    MeterRegistry meterRegistry;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    CustomerActivityTracker activityTracker;
+    @Autowired
+    TransactionFeedWriter feedWriter;
+    @Autowired
+    LimitProperties limitProperties;
+    @Autowired
+    DailyLimitService dailyLimitService;
+    @Autowired
+    HotAccountBalances hotAccounts;
+
+    double persistedBefore;
+
+    @BeforeEach
+    void countPersisted() {
+        persistedBefore = persisted();
+    }
+
+    @AfterEach
+    void signOut() {
+        BankingTestData.signOut();
+    }
+
+    @Test
+    void aTransferIsRefusedBelowTheBalanceOrTheMinimum() {
+        Holder alice = holder(new BigDecimal("100.00"));
+        Holder bob = holder(new BigDecimal("100.00"));
+
+        assertThatThrownBy(() -> transfer(alice, bob, "100.01")).isInstanceOf(NotEnoughFundsException.class);
+        assertThatThrownBy(() -> transfer(alice, bob, "50.01")).isInstanceOf(LimitExceedsException.class);
+        transfer(alice, bob, "50.00");
+        assertThatThrownBy(() -> transfer(alice, bob, "0.01")).isInstanceOf(LimitExceedsException.class);
+
+        awaitWritten(1);
+        assertThat(balance(alice)).isEqualByComparingTo("50.00");
+        assertThat(balance(bob)).isEqualByComparingTo("150.00");
+    }
+
+    @Test
+    void aCreditOnAnotherPartitionCanBeSpentOnceItIsApplied() {
+        // Consecutive ids, so the two accounts have different partitions
+        Holder alice = holder(new BigDecimal("400.00"));
+        Holder bob = holder(new BigDecimal("100.00"));
+        Holder carol = holder(new BigDecimal("100.00"));
+
+        transfer(alice, bob, "300.00");
+        awaitWritten(1);
+        // Only possible with alice's money
+        transfer(bob, carol, "350.00");
+        awaitWritten(2);
+
+        assertThat(balance(alice)).isEqualByComparingTo("100.00");
+        assertThat(balance(bob)).isEqualByComparingTo("50.00");
+        assertThat(balance(carol)).isEqualByComparingTo("450.00");
+    }
+
+    @Test
+    void aDepositCanBeSpentAtOnce() {
+        Holder alice = holder(new BigDecimal("100.00"));
+        Holder bob = holder(new BigDecimal("100.00"));
+        transfer(alice, bob, "10.00"); // The ledger now holds alice's balance
+
+        assertThat(cardService.depositCard(new DepositCardRequest(alice.card(), new BigDecimal("100.00"))).getNewAccountBalance())
+                .isEqualByComparingTo("190.00");
+        transfer(alice, bob, "140.00");
+
+        awaitWritten(3);
+        assertThat(balance(alice)).isEqualByComparingTo("50.00");
+        assertThat(balance(bob)).isEqualByComparingTo("250.00");
+        assertThat(transactionRepository.existsByStatus(TransactionStatus.PENDING)).isFalse();
+    }
+
+    @Test
+    void pendingTransactionsAreCheckedAndAppliedByTheLedger() {
+        Holder alice = holder(new BigDecimal("200.00"));
+        Holder bob = holder(new BigDecimal("100.00"));
+        transfer(alice, bob, "10.00");
+        TransactionEntity affordable = pending(alice, bob, "30.00");
+        TransactionEntity overdraft = pending(alice, bob, "1000.00");
+
+        transactionSchedule.pollPendingTransactions();
+
+        assertThat(status(affordable)).isEqualTo(TransactionStatus.COMPLETED);
+        assertThat(status(overdraft)).isEqualTo(TransactionStatus.FAILED);
+        // 200 - 10 - 30 leaves exactly 110 above the minimum
+        transfer(alice, bob, "110.00");
+        assertThatThrownBy(() -> transfer(alice, bob, "0.01")).isInstanceOf(LimitExceedsException.class);
+
+        awaitWritten(3);
+        assertThat(balance(alice)).isEqualByComparingTo("50.00");
+        assertThat(balance(bob)).isEqualByComparingTo("250.00");
+    }
+
+    @Test
+    void concurrentDebitsOfOneAccountNeverOverdrawIt() throws Exception {
+        Holder alice = holder(new BigDecimal("1000.00"));
+        Holder bob = holder(new BigDecimal("100.00"));
+
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            results.add(pool.submit(() -> {
+                try {
+                    transfer(alice, bob, "10.00");
+                    return true;
+                } catch (NotEnoughFundsException | LimitExceedsException e) {
+                    return false;
+                } finally {
+                    BankingTestData.signOut();
+                }
+            }));
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+        int accepted = 0;
+        for (Future<Boolean> result : results) {
+            accepted += result.get() ? 1 : 0;
+        }
+
+        // 95 debits of 10 take alice from 1000 to exactly the minimum of 50
+        assertThat(accepted).isEqualTo(95);
+        awaitWritten(accepted);
+        assertThat(balance(alice)).isEqualByComparingTo("50.00");
+        assertThat(balance(bob)).isEqualByComparingTo("1050.00");
+    }
+
+    @Test
+    void aBatchThatKeepsFailingIsDeadLetteredWithoutHoldingBackTheRest() throws Exception {
+        Holder alice = holder(new BigDecimal("100.00"));
+        Holder bob = holder(new BigDecimal("100.00"));
+        LedgerPersister persister = new LedgerPersister(jdbcTemplate, transactionTemplate, activityTracker, feedWriter,
+                meterRegistry, 100, 10, 200, 2, 1);
+        try {
+            AccountEntity missing = AccountEntity.builder().id(-1).build();
+            TransactionEntity good = ledgerTransfer(alice.account(), bob.account(), "5.00");
+            TransactionEntity bad = ledgerTransfer(alice.account(), missing, "7.00");
+            CompletableFuture<Void> goodWritten = new CompletableFuture<>();
+            CompletableFuture<Void> badWritten = new CompletableFuture<>();
+            persister.enqueue(bad, badWritten);
+            persister.enqueue(good, goodWritten);
+
+            goodWritten.get(10, TimeUnit.SECONDS);
+            assertThatThrownBy(() -> badWritten.get(10, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+            assertThat(jdbcTemplate.queryForObject("SELECT amount FROM ledger_dead_letter WHERE transaction_id = ?",
+                    BigDecimal.class, bad.getTransactionId())).isEqualByComparingTo("7.00");
+            assertThat(balance(alice)).isEqualByComparingTo("95.00");
+            assertThat(balance(bob)).isEqualByComparingTo("105.00");
+        } finally {
+            persister.shutdown();
+        }
+    }
+
+    @Test
+    void aDeadLetteredPendingTransferIsLeftPendingAndIsNotAppliedAgain() {
+        Holder alice = holder(new BigDecimal("200.00"));
+        Holder bob = holder(new BigDecimal("100.00"));
+        TransactionEntity pending = pending(alice, bob, "30.00");
+        UUID claimId = UUID.randomUUID();
+        transactionTemplate.executeWithoutResult(status -> transactionRepository.claim(
+                List.of(pending.getTransactionId()), claimId, LocalDateTime.now().plusMinutes(1), LocalDateTime.now()));
+        // The partitions applied it, then the persister gave up on writing it
+        LedgerTransferEngine deadLettering = mock(LedgerTransferEngine.class);
+        when(deadLettering.transfer(any())).thenReturn(CompletableFuture.failedFuture(new IllegalStateException("write failed")));
+        PendingTransactionProcessor processor = new PendingTransactionProcessor(transactionRepository, accountRepository,
+                dailyLimitService, hotAccounts, activityTracker, feedWriter,
+                new StaticListableBeanFactory(Map.of("ledger", deadLettering)).getBeanProvider(LedgerTransferEngine.class));
+
+        transactionTemplate.executeWithoutResult(status -> processor.processInOrder(claimId, List.of(pending.getTransactionId())));
+        transactionTemplate.executeWithoutResult(status -> transactionRepository.releaseClaim(claimId));
+
+        assertThat(status(pending)).isEqualTo(TransactionStatus.PENDING);
+        assertThat(transactionRepository.findPendingRefs(LocalDateTime.now(), PageRequest.of(0, 1000)))
+                .noneMatch(ref -> ref.getTransactionId().equals(pending.getTransactionId()));
+    }
+
+    // Runs last in its own context: it stops the ledger
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void shutdownWritesEverythingTheLedgerAccepted() throws Exception {
+        List<Holder> holders = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            holders.add(holder(new BigDecimal("500.00")));
+        }
+        BigDecimal total = holders.stream().map(this::balance).reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<BigDecimal>> deposited = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            Holder from = holders.get(i % holders.size());
+            Holder to = holders.get((i * 3 + 1) % holders.size());
+            boolean deposit = i % 5 == 0;
+            deposited.add(pool.submit(() -> {
+                try {
+                    if (deposit) {
+                        return cardService.depositCard(new DepositCardRequest(to.card(), new BigDecimal("2.50"))).isSuccess()
+                                ? new BigDecimal("2.50") : BigDecimal.ZERO;
+                    }
+                    if (from != to) {
+                        transfer(from, to, "1.25");
+                    }
+                } catch (NotEnoughFundsException | LimitExceedsException e) {
+                    // Refused; moves nothing
+                } finally {
+                    BankingTestData.signOut();
+                }
+                return BigDecimal.ZERO;
+            }));
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+        for (Future<BigDecimal> amount : deposited) {
+            total = total.add(amount.get());
+        }
+
+        // What @PreDestroy does, in the same order: the partitions finish, then the persister drains
+        ledgerEngine.shutdown();
+        ledgerPersister.shutdown();
+
+        assertThat(holders.stream().map(this::balance).reduce(BigDecimal.ZERO, BigDecimal::add)).isEqualByComparingTo(total);
+        assertThat(holders).allSatisfy(holder -> assertThat(balance(holder)).isGreaterThanOrEqualTo(limitProperties.getMinAcceptableAccountBalance()));
+    }
+
+    private record Holder(CustomerEntity customer, AccountEntity account, String card) {
+    }
+
+    private Holder holder(BigDecimal openingBalance) {
+        int seq = (int) customerRepository.count() + 1;
+        CustomerEntity customer = BankingTestData.customer(customerRepository, seq);
+        AccountEntity account = BankingTestData.account(accountRepository, customer, seq, openingBalance);
+        CardEntity card = BankingTestData.card(cardRepository, account, seq);
+        return new Holder(customer, account, card.getCardNumber());
+    }
+
+    private void transfer(Holder from, Holder to, String amount) {
+        BankingTestData.signIn(from.customer());
+        transactionService.transfer(from.card(), to.card(), new BigDecimal(amount));
+    }
+
+    private TransactionEntity pending(Holder from, Holder to, String amount) {
+        return transactionRepository.save(TransactionEntity.builder()
+                .debitAccount(from.account())
+                .creditAccount(to.account())
+                .amount(new BigDecimal(amount))
+                .transactionDate(LocalDate.now())
+                .status(TransactionStatus.PENDING)
+                .transactionType(TransactionType.TRANSFER)
+                .build());
+    }
+
+    private static TransactionEntity ledgerTransfer(AccountEntity from, AccountEntity to, String amount) {
+        return TransactionEntity.builder()
+                .transactionId(TimeOrderedUuidGenerator.nextId())
+                .debitAccount(from)
+                .creditAccount(to)
+                .amount(new BigDecimal(amount))
+                .transactionDate(LocalDate.now())
+                .status(TransactionStatus.COMPLETED)
+                .transactionType(TransactionType.TRANSFER)
+                .build();
+    }
+
+    private TransactionStatus status(TransactionEntity transaction) {
+        return transactionRepository.findByTransactionIdIn(List.of(transaction.getTransactionId())).get(0).getStatus();
+    }
+
+    private BigDecimal balance(Holder holder) {
+        return accountRepository.findBalanceById(holder.account().getId());
+    }
+
+    private double persisted() {
+        return meterRegistry.counter("banking.ledger.persisted").count();
+    }
+
+    // Waits until the persister has written this many more transfers and deposits than before the test
+    private void awaitWritten(int count) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (persisted() - persistedBefore < count && System.currentTimeMillis() < deadline) {
+            LockSupport.parkNanos(1_000_000);
+        }
+        assertThat(persisted() - persistedBefore).as("persisted ledger transfers").isEqualTo(count);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.bankingprojectfinal.Service.Concrete;
+
+import com.example.bankingprojectfinal.Model.Entity.AccountEntity;
+import com.example.bankingprojectfinal.Model.Entity.CardEntity;
+import com.example.bankingprojectfinal.Model.Entity.CustomerEntity;
+import com.example.bankingprojectfinal.Repository.AccountRepository;
+import com.example.bankingprojectfinal.Repository.CardRepository;
+import com.example.bankingprojectfinal.Repository.CustomerRepository;
+import com.example.bankingprojectfinal.Service.Abstraction.TransactionService;
+import com.example.bankingprojectfinal.support.BankingTestData;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "banking.transfer.mode=ORDERED_LOCK",
+        "spring.datasource.url=jdbc:h2:mem:ordered-lock-test",
+        "spring.jpa.show-sql=false"
+})
+class OrderedLockTransferConcurrencyTest {
+    private static final int TRANSFERS = 2000;
+    private static final int THREADS = 16;
+    private static final BigDecimal OPENING_BALANCE = new BigDecimal("10000.00");
+    private static final BigDecimal AMOUNT = new BigDecimal("0.25");
+
+    @Autowired
+    TransactionService transactionService;
+    @Autowired
+    CustomerRepository customerRepository;
+    @Autowired
+    AccountRepository accountRepository;
+    @Autowired
+    CardRepository cardRepository;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    void crossingTransfersConserveMoneyAndDoNotDeadlock() throws Exception {
+        CustomerEntity alice = BankingTestData.customer(customerRepository, 1);
+        CustomerEntity bob = BankingTestData.customer(customerRepository, 2);
+        AccountEntity aliceAccount = BankingTestData.account(accountRepository, alice, 1, OPENING_BALANCE);
+        AccountEntity bobAccount = BankingTestData.account(accountRepository, bob, 2, OPENING_BALANCE);
+        CardEntity aliceCard = BankingTestData.card(cardRepository, aliceAccount, 1);
+        CardEntity bobCard = BankingTestData.card(cardRepository, bobAccount, 2);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < TRANSFERS; i++) {
+            boolean aliceSends = i % 2 == 0;
+            CustomerEntity sender = aliceSends ? alice : bob;
+            String from = (aliceSends ? aliceCard : bobCard).getCardNumber();
+            String to = (aliceSends ? bobCard : aliceCard).getCardNumber();
+            results.add(pool.submit(() -> {
+                BankingTestData.signIn(sender);
+                try {
+                    transactionService.transfer(from, to, AMOUNT);
+                } finally {
+                    BankingTestData.signOut();
+                }
+            }));
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+        for (Future<?> result : results) {
+            result.get(); // rethrows any failed transfer, including lock timeouts
+        }
+
+        BigDecimal aliceBalance = accountRepository.findBalanceById(aliceAccount.getId());
+        BigDecimal bobBalance = accountRepository.findBalanceById(bobAccount.getId());
+        assertThat(aliceBalance.add(bobBalance)).isEqualByComparingTo(OPENING_BALANCE.add(OPENING_BALANCE));
+        // Both directions ran the same number of times
+        assertThat(aliceBalance).isEqualByComparingTo(OPENING_BALANCE);
+        assertThat(meterRegistry.timer("banking.transfer.lock.wait").count()).isEqualTo(TRANSFERS);
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.bankingprojectfinal.Service.Concrete;
+
+import com.example.bankingprojectfinal.Model.Entity.AccountEntity;
+import com.example.bankingprojectfinal.Model.Entity.CustomerEntity;
+import com.example.bankingprojectfinal.Model.Entity.PendingScanCheckpointEntity;
+import com.example.bankingprojectfinal.Model.Entity.TransactionEntity;
+import com.example.bankingprojectfinal.Model.Enums.TransactionStatus;
+import com.example.bankingprojectfinal.Model.Enums.TransactionType;
+import com.example.bankingprojectfinal.Repository.AccountRepository;
+import com.example.bankingprojectfinal.Repository.CustomerRepository;
+import com.example.bankingprojectfinal.Repository.PendingScanCheckpointRepository;
+import com.example.bankingprojectfinal.Repository.TransactionRepository;
+import com.example.bankingprojectfinal.Repository.TransactionRepository.PendingTransactionRef;
+import com.example.bankingprojectfinal.support.BankingTestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:pending-batch-test",
+        "spring.jpa.show-sql=false",
+        // Only the batch under test processes pending rows
+        "banking.pending.poll-interval-ms=3600000",
+        "banking.pending.batch.chunk-size=7"
+})
+class PendingTransactionBatchTest {
+    private static final int PENDING = 30;
+    private static final int DONE_BEFORE_CRASH = 10;
+
+    @Autowired
+    TransactionSchedule transactionSchedule;
+    @Autowired
+    CustomerRepository customerRepository;
+    @Autowired
+    AccountRepository accountRepository;
+    @Autowired
+    TransactionRepository transactionRepository;
+    @Autowired
+    PendingScanCheckpointRepository checkpointRepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Test
+    void interruptedBatchResumesAfterItsCheckpoint() {
+        CustomerEntity customer = BankingTestData.customer(customerRepository, 1);
+        AccountEntity from = BankingTestData.account(accountRepository, customer, 1, new BigDecimal("1000.00"));
+        AccountEntity to = BankingTestData.account(accountRepository, customer, 2, BigDecimal.ZERO);
+        LocalDate today = LocalDate.now();
+        transactionRepository.saveAll(IntStream.range(0, PENDING)
+                .mapToObj(i -> TransactionEntity.builder()
+                        .debitAccount(from).creditAccount(to)
+                        .amount(BigDecimal.ONE)
+                        .transactionDate(today)
+                        .status(TransactionStatus.PENDING)
+                        .transactionType(TransactionType.TRANSFER)
+                        .build())
+                .toList());
+
+        // A batch that got through the first rows and was killed before finishing; the rows it
+        // checkpointed are left PENDING here so that reprocessing them would show
+        List<PendingTransactionRef> ordered = transactionRepository.findPendingRefs(LocalDateTime.now(), PageRequest.of(0, PENDING));
+        PendingTransactionRef lastDone = ordered.get(DONE_BEFORE_CRASH - 1);
+        checkpointRepository.save(PendingScanCheckpointEntity.builder()
+                .name(TransactionSchedule.BATCH_CHECKPOINT)
+                .lastTransactionDate(lastDone.getTransactionDate())
+                .lastTransactionId(lastDone.getTransactionId())
+                .scanned(DONE_BEFORE_CRASH)
+                .processed(DONE_BEFORE_CRASH)
+                .startedAt(LocalDateTime.now())
+                .build());
+
+        transactionSchedule.processPendingTransactions();
+
+        Set<UUID> stillPending = transactionRepository.findPendingRefs(LocalDateTime.now(), PageRequest.of(0, PENDING)).stream()
+                .map(PendingTransactionRef::getTransactionId)
+                .collect(Collectors.toSet());
+        assertThat(stillPending).containsExactlyInAnyOrderElementsOf(ordered.subList(0, DONE_BEFORE_CRASH).stream()
+                .map(PendingTransactionRef::getTransactionId)
+                .toList());
+        assertThat(accountRepository.findBalanceById(to.getId())).isEqualByComparingTo("20");
+
+        PendingScanCheckpointEntity checkpoint = checkpointRepository.findById(TransactionSchedule.BATCH_CHECKPOINT).orElseThrow();
+        assertThat(checkpoint.isCompleted()).isTrue();
+        assertThat(checkpoint.getScanned()).isEqualTo(PENDING);
+        assertThat(checkpoint.getProcessed()).isEqualTo(PENDING);
+
+        // The next run starts over and picks up what is still pending
+        transactionSchedule.processPendingTransactions();
+        assertThat(transactionRepository.findPendingRefs(LocalDateTime.now(), PageRequest.of(0, PENDING))).isEmpty();
+        assertThat(accountRepository.findBalanceById(to.getId())).isEqualByComparingTo("30");
+    }
+
+    @Test
+    void thePollerLeavesRowsClaimedByAnotherInstance() {
+        CustomerEntity customer = BankingTestData.customer(customerRepository, 2);
+        AccountEntity from = BankingTestData.account(accountRepository, customer, 3, new BigDecimal("1000.00"));
+        AccountEntity to = BankingTestData.account(accountRepository, customer, 4, BigDecimal.ZERO);
+        List<UUID> ids = transactionRepository.saveAll(IntStream.range(0, 6)
+                        .mapToObj(i -> TransactionEntity.builder()
+                                .debitAccount(from).creditAccount(to)
+                                .amount(BigDecimal.ONE)
+                                .transactionDate(LocalDate.now())
+                                .status(TransactionStatus.PENDING)
+                                .transactionType(TransactionType.TRANSFER)
+                                .build())
+                        .toList())
+                .stream().map(TransactionEntity::getTransactionId).toList();
+
+        // Another instance is working on the first three rows; a dead one left a lapsed claim on the fourth
+        UUID otherInstance = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            transactionRepository.claim(ids.subList(0, 3), otherInstance, now.plusHours(1), now);
+            transactionRepository.claim(ids.subList(3, 4), UUID.randomUUID(), now.minusMinutes(1), now.minusHours(1));
+        });
+
+        transactionSchedule.pollPendingTransactions();
+
+        assertThat(transactionRepository.findByTransactionIdIn(ids))
+                .allSatisfy(transaction -> assertThat(transaction.getStatus()).isEqualTo(
+                        ids.indexOf(transaction.getTransactionId()) < 3 ? TransactionStatus.PENDING : TransactionStatus.COMPLETED));
+        assertThat(accountRepository.findBalanceById(to.getId())).isEqualByComparingTo("3");
+        assertThat(transactionRepository.findClaimedRefs(otherInstance)).hasSize(3);
+
+        // Once the other instance lets go, the rows are picked up
+        transactionTemplate.executeWithoutResult(status -> transactionRepository.releaseClaim(otherInstance));
+        transactionSchedule.pollPendingTransactions();
+        assertThat(accountRepository.findBalanceById(to.getId())).isEqualByComparingTo("6");
+        assertThat(transactionRepository.existsByStatus(TransactionStatus.PENDING)).isFalse();
+    }
+}
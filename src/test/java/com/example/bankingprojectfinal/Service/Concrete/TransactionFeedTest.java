@@ -0,0 +1,164 @@
+package com.example.bankingprojectfinal.Service.Concrete;
+
+import com.example.bankingprojectfinal.DTOS.Card.DepositCardRequest;
+import com.example.bankingprojectfinal.Model.Entity.AccountEntity;
+import com.example.bankingprojectfinal.Model.Entity.CardEntity;
+import com.example.bankingprojectfinal.Model.Entity.CustomerEntity;
+import com.example.bankingprojectfinal.Model.Entity.CustomerTransactionFeedEntity;
+import com.example.bankingprojectfinal.Model.Entity.TransactionEntity;
+import com.example.bankingprojectfinal.Model.Enums.FeedDirection;
+import com.example.bankingprojectfinal.Model.Enums.TransactionStatus;
+import com.example.bankingprojectfinal.Model.Enums.TransactionType;
+import com.example.bankingprojectfinal.Repository.AccountRepository;
+import com.example.bankingprojectfinal.Repository.CardRepository;
+import com.example.bankingprojectfinal.Repository.CustomerRepository;
+import com.example.bankingprojectfinal.Repository.CustomerTransactionFeedRepository;
+import com.example.bankingprojectfinal.Repository.TransactionRepository;
+import com.example.bankingprojectfinal.Service.Abstraction.CardService;
+import com.example.bankingprojectfinal.Service.Abstraction.TransactionService;
+import com.example.bankingprojectfinal.support.BankingTestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:transaction-feed-test",
+        "spring.jpa.show-sql=false",
+        "banking.pending.poll-interval-ms=3600000"
+})
+class TransactionFeedTest {
+    @Autowired
+    TransactionService transactionService;
+    @Autowired
+    CardService cardService;
+    @Autowired
+    TransactionFeedJob transactionFeedJob;
+    @Autowired
+    CustomerTransactionFeedRepository feedRepository;
+    @Autowired
+    TransactionRepository transactionRepository;
+    @Autowired
+    CustomerRepository customerRepository;
+    @Autowired
+    AccountRepository accountRepository;
+    @Autowired
+    CardRepository cardRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    CustomerEntity alice;
+    CustomerEntity bob;
+    AccountEntity aliceCurrent;
+    AccountEntity aliceSavings;
+    AccountEntity bobAccount;
+
+    @BeforeEach
+    void seed() {
+        feedRepository.deleteAll();
+        transactionRepository.deleteAll();
+        int seq = (int) customerRepository.count() * 3 + 1;
+        alice = BankingTestData.customer(customerRepository, seq);
+        bob = BankingTestData.customer(customerRepository, seq + 1);
+        aliceCurrent = BankingTestData.account(accountRepository, alice, seq, new BigDecimal("1000.00"));
+        aliceSavings = BankingTestData.account(accountRepository, alice, seq + 1, new BigDecimal("1000.00"));
+        bobAccount = BankingTestData.account(accountRepository, bob, seq + 2, new BigDecimal("1000.00"));
+    }
+
+    @AfterEach
+    void signOut() {
+        BankingTestData.signOut();
+    }
+
+    @Test
+    void transfersAndDepositsAreFannedOutToTheCustomersTakingPart() {
+        CardEntity aliceCurrentCard = BankingTestData.card(cardRepository, aliceCurrent, aliceCurrent.getId());
+        CardEntity aliceSavingsCard = BankingTestData.card(cardRepository, aliceSavings, aliceSavings.getId());
+        CardEntity bobCard = BankingTestData.card(cardRepository, bobAccount, bobAccount.getId());
+        BankingTestData.signIn(alice);
+
+        transactionService.transfer(aliceCurrentCard.getCardNumber(), bobCard.getCardNumber(), new BigDecimal("10.00"));
+        transactionService.transfer(aliceCurrentCard.getCardNumber(), aliceSavingsCard.getCardNumber(), new BigDecimal("5.00"));
+        cardService.depositCard(new DepositCardRequest(bobCard.getCardNumber(), new BigDecimal("20.00")));
+
+        assertThat(feedOf(alice))
+                .extracting(CustomerTransactionFeedEntity::getDirection, CustomerTransactionFeedEntity::getCounterparty)
+                .containsExactlyInAnyOrder(
+                        tuple(FeedDirection.OUTGOING, bobAccount.getAccountNumber()),
+                        tuple(FeedDirection.OWN_ACCOUNTS, aliceSavings.getAccountNumber()));
+        assertThat(feedOf(bob))
+                .extracting(CustomerTransactionFeedEntity::getDirection, CustomerTransactionFeedEntity::getCounterparty)
+                .containsExactlyInAnyOrder(
+                        tuple(FeedDirection.INCOMING, aliceCurrent.getAccountNumber()),
+                        tuple(FeedDirection.INCOMING, null));
+        assertThat(transactionService.getTransactionsByCurrentUser(0, 10).getTotalElements()).isEqualTo(2);
+        assertThat(transactionFeedJob.check().consistent()).isTrue();
+    }
+
+    @Test
+    void theBackfillWritesMissingRowsOnce() {
+        save(aliceCurrent, bobAccount, TransactionStatus.COMPLETED);
+        save(aliceCurrent, aliceSavings, TransactionStatus.FAILED);
+        save(bobAccount, aliceCurrent, TransactionStatus.PENDING);
+
+        // Two rows for the transfer between customers, one for the transfer between alice's accounts,
+        // none for the pending one
+        assertThat(transactionFeedJob.backfill()).isEqualTo(3);
+        assertThat(transactionFeedJob.backfill()).isZero();
+        assertThat(feedOf(alice)).hasSize(2);
+        assertThat(feedOf(bob)).hasSize(1);
+    }
+
+    @Test
+    void theCheckReportsDriftAndRepairsMissingRows() {
+        TransactionEntity transfer = save(aliceCurrent, bobAccount, TransactionStatus.COMPLETED);
+        save(bobAccount, aliceCurrent, TransactionStatus.COMPLETED);
+
+        TransactionFeedJob.Report before = transactionFeedJob.check();
+        assertThat(before.missing()).isEqualTo(4);
+        assertThat(before.orphaned()).isZero();
+        assertThat(transactionFeedJob.check().consistent()).isTrue();
+
+        jdbcTemplate.update("UPDATE customer_transaction_feed SET amount = amount + 1 WHERE customer_id = ? AND transaction_id = ?",
+                bob.getId(), transfer.getTransactionId());
+        jdbcTemplate.update("INSERT INTO customer_transaction_feed (customer_id, transaction_id, occurred_at, direction, amount) " +
+                "VALUES (?, ?, CURRENT_DATE, 'INCOMING', 1)", alice.getId(), UUID.randomUUID());
+        TransactionFeedJob.Report after = transactionFeedJob.check();
+        assertThat(after.missing()).isZero();
+        assertThat(after.orphaned()).isEqualTo(1);
+        assertThat(after.mismatched()).isEqualTo(1);
+    }
+
+    @Test
+    void aCustomersHistoryIsOneRangeOfTheFeedIndex() {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN SELECT * FROM customer_transaction_feed WHERE customer_id = 1 " +
+                "ORDER BY customer_id, occurred_at DESC, transaction_id DESC FETCH FIRST 8 ROWS ONLY", String.class);
+        assertThat(plan).contains("IDX_FEED_CUSTOMER_OCCURRED").contains("index sorted");
+    }
+
+    private List<CustomerTransactionFeedEntity> feedOf(CustomerEntity customer) {
+        return feedRepository.findNewestFirst(customer.getId(), PageRequest.of(0, 10));
+    }
+
+    private TransactionEntity save(AccountEntity debit, AccountEntity credit, TransactionStatus status) {
+        return transactionRepository.save(TransactionEntity.builder()
+                .debitAccount(debit)
+                .creditAccount(credit)
+                .amount(new BigDecimal("3.00"))
+                .transactionDate(LocalDate.now())
+                .status(status)
+                .transactionType(TransactionType.TRANSFER)
+                .build());
+    }
+}
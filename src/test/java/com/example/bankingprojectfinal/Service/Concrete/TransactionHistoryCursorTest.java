@@ -0,0 +1,187 @@
+package com.example.bankingprojectfinal.Service.Concrete;
+
+import com.example.bankingprojectfinal.Controller.TransactionController;
+import com.example.bankingprojectfinal.DTOS.Transaction.TransactionCursorPage;
+import com.example.bankingprojectfinal.DTOS.Transaction.TransactionDto;
+import com.example.bankingprojectfinal.Model.Entity.AccountEntity;
+import com.example.bankingprojectfinal.Model.Entity.CustomerEntity;
+import com.example.bankingprojectfinal.Model.Entity.TransactionEntity;
+import com.example.bankingprojectfinal.Model.Enums.TransactionStatus;
+import com.example.bankingprojectfinal.Model.Enums.TransactionType;
+import com.example.bankingprojectfinal.Repository.AccountRepository;
+import com.example.bankingprojectfinal.Repository.CustomerRepository;
+import com.example.bankingprojectfinal.Repository.CustomerTransactionFeedRepository;
+import com.example.bankingprojectfinal.Repository.TransactionRepository;
+import com.example.bankingprojectfinal.Service.Abstraction.TransactionService;
+import com.example.bankingprojectfinal.support.BankingTestData;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:history-cursor-test",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "banking.pending.poll-interval-ms=3600000"
+})
+class TransactionHistoryCursorTest {
+    private static final int PAGE_SIZE = 7;
+
+    @Autowired
+    TransactionService transactionService;
+    @Autowired
+    TransactionController transactionController;
+    @Autowired
+    TransactionRepository transactionRepository;
+    @Autowired
+    CustomerRepository customerRepository;
+    @Autowired
+    AccountRepository accountRepository;
+    @Autowired
+    CustomerTransactionFeedRepository feedRepository;
+    @Autowired
+    TransactionFeedJob transactionFeedJob;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    CustomerEntity alice;
+    List<String> aliceHistory;
+    List<String> allHistory;
+
+    // Transactions spread over five days, written out of date order, so paging crosses dates and
+    // has to break ties within a date by id. They are saved directly, so the backfill writes their feed rows.
+    @BeforeEach
+    void seed() {
+        feedRepository.deleteAll();
+        transactionRepository.deleteAll();
+        int seq = (int) customerRepository.count() + 1;
+        alice = BankingTestData.customer(customerRepository, seq);
+        CustomerEntity bob = BankingTestData.customer(customerRepository, seq + 1);
+        CustomerEntity carol = BankingTestData.customer(customerRepository, seq + 2);
+        AccountEntity aliceAccount = BankingTestData.account(accountRepository, alice, seq, new BigDecimal("1000.00"));
+        AccountEntity bobAccount = BankingTestData.account(accountRepository, bob, seq + 1, new BigDecimal("1000.00"));
+        AccountEntity carolAccount = BankingTestData.account(accountRepository, carol, seq + 2, new BigDecimal("1000.00"));
+
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < 30; i++) {
+            LocalDate day = today.minusDays((i * 3) % 5);
+            switch (i % 3) {
+                case 0 -> save(aliceAccount, bobAccount, day, i);
+                case 1 -> save(bobAccount, aliceAccount, day, i);
+                default -> save(bobAccount, carolAccount, day, i);
+            }
+        }
+        transactionFeedJob.backfill();
+
+        List<TransactionEntity> all = new ArrayList<>(transactionRepository.findAll());
+        // Newest first by date, then by id in the database's (unsigned) order, which the string form keeps
+        all.sort((a, b) -> a.getTransactionDate().equals(b.getTransactionDate())
+                ? b.getTransactionId().toString().compareTo(a.getTransactionId().toString())
+                : b.getTransactionDate().compareTo(a.getTransactionDate()));
+        allHistory = all.stream().map(transaction -> transaction.getTransactionId().toString()).toList();
+        aliceHistory = all.stream()
+                .filter(transaction -> transaction.getDebitAccount().getId().equals(aliceAccount.getId())
+                        || transaction.getCreditAccount().getId().equals(aliceAccount.getId()))
+                .map(transaction -> transaction.getTransactionId().toString())
+                .toList();
+    }
+
+    @AfterEach
+    void signOut() {
+        BankingTestData.signOut();
+    }
+
+    @Test
+    void customerPagesCoverTheirHistoryNewestFirst() {
+        BankingTestData.signIn(alice);
+        assertThat(collect(after -> transactionService.getTransactionsByCurrentUserAfter(after, PAGE_SIZE)))
+                .isEqualTo(aliceHistory);
+        assertThat(collect(after -> transactionService.getTransactionsByCustomerIdAfter(alice.getId(), after, PAGE_SIZE)))
+                .isEqualTo(aliceHistory);
+    }
+
+    @Test
+    void adminPagesCoverEveryTransactionWithOneQueryEach() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<String> ids = collect(after -> transactionService.getAllTransactionsAfter(after, PAGE_SIZE));
+
+        assertThat(ids).isEqualTo(allHistory);
+        // 30 rows in pages of 7: five pages, each a single query with the accounts joined and no count
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(5);
+    }
+
+    @Test
+    void theNewestFirstScanReadsTheIndex() {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN SELECT * FROM transaction " +
+                "WHERE transaction_date < DATE '2030-01-01' ORDER BY transaction_date DESC, transaction_id DESC " +
+                "FETCH FIRST 8 ROWS ONLY", String.class);
+        assertThat(plan).contains("IDX_TRANSACTION_DATE_ID").contains("index sorted");
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void aMalformedCursorIsRejected() {
+        assertThatThrownBy(() -> transactionService.getAllTransactionsAfter("not-a-cursor", PAGE_SIZE))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> transactionService.getAllTransactionsAfter(null, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> transactionService.getAllTransactionsAfter(null, TransactionServiceImpl.MAX_HISTORY_PAGE_SIZE + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        // The endpoints answer it with 400 instead of a server error
+        assertThatThrownBy(() -> transactionController.getAllTransactionsAfter("not-a-cursor", PAGE_SIZE))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+        assertThatThrownBy(() -> transactionController.getTransactionsByCustomerIdAfter(alice.getId(), null, 0))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+        assertThatThrownBy(() -> transactionController.getAllTransactionsAfter(null, 1_000_000))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+
+    private List<String> collect(Function<String, TransactionCursorPage> fetch) {
+        List<String> ids = new ArrayList<>();
+        String after = null;
+        do {
+            TransactionCursorPage page = fetch.apply(after);
+            assertThat(page.getContent()).hasSizeLessThanOrEqualTo(PAGE_SIZE);
+            page.getContent().stream().map(TransactionDto::getTransactionId).forEach(ids::add);
+            after = page.getNextCursor();
+        } while (after != null);
+        return ids;
+    }
+
+    private void save(AccountEntity debit, AccountEntity credit, LocalDate day, int i) {
+        transactionRepository.save(TransactionEntity.builder()
+                .debitAccount(debit)
+                .creditAccount(credit)
+                .amount(BigDecimal.valueOf(i + 1))
+                .transactionDate(day)
+                .status(TransactionStatus.COMPLETED)
+                .transactionType(TransactionType.TRANSFER)
+                .build());
+    }
+}
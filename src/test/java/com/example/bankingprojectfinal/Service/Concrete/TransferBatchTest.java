@@ -0,0 +1,103 @@
+package com.example.bankingprojectfinal.Service.Concrete;
+
+import com.example.bankingprojectfinal.Controller.TransactionController;
+import com.example.bankingprojectfinal.DTOS.Transaction.BatchTransferItemResult;
+import com.example.bankingprojectfinal.DTOS.Transaction.BatchTransferRequest;
+import com.example.bankingprojectfinal.DTOS.Transaction.BatchTransferResponse;
+import com.example.bankingprojectfinal.DTOS.Transaction.TransferRequest;
+import com.example.bankingprojectfinal.Model.Entity.AccountEntity;
+import com.example.bankingprojectfinal.Model.Entity.CardEntity;
+import com.example.bankingprojectfinal.Model.Entity.CustomerEntity;
+import com.example.bankingprojectfinal.Repository.AccountRepository;
+import com.example.bankingprojectfinal.Repository.CardRepository;
+import com.example.bankingprojectfinal.Repository.CustomerRepository;
+import com.example.bankingprojectfinal.Service.Abstraction.DailyLimitService;
+import com.example.bankingprojectfinal.Service.Abstraction.TransactionService;
+import com.example.bankingprojectfinal.support.BankingTestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// The daily limit is 1000 (LimitProperties)
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:transfer-batch-test",
+        "spring.jpa.show-sql=false",
+        "banking.pending.poll-interval-ms=3600000",
+        "banking.velocity.enabled=false",
+        "banking.transfer.batch.max-size=3"
+})
+class TransferBatchTest {
+    @Autowired
+    TransactionService transactionService;
+    @Autowired
+    TransactionController transactionController;
+    @Autowired
+    DailyLimitService dailyLimitService;
+    @Autowired
+    CustomerRepository customerRepository;
+    @Autowired
+    AccountRepository accountRepository;
+    @Autowired
+    CardRepository cardRepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void signOut() {
+        BankingTestData.signOut();
+    }
+
+    @Test
+    void aBatchLargerThanTheMaximumIsABadRequest() {
+        CustomerEntity customer = BankingTestData.customer(customerRepository, 1);
+        signInAsCustomer(customer);
+        TransferRequest transfer = new TransferRequest("1000000000000001", "1000000000000002", new BigDecimal("1.00"));
+
+        assertThatThrownBy(() -> transactionController.initiateBatchTransfer(
+                new BatchTransferRequest(List.of(transfer, transfer, transfer, transfer))))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+
+    @Test
+    void onlyTheItemsThatNoLongerFitTheDailyLimitAreRefused() {
+        CustomerEntity alice = BankingTestData.customer(customerRepository, 2);
+        CustomerEntity bob = BankingTestData.customer(customerRepository, 3);
+        AccountEntity aliceAccount = BankingTestData.account(accountRepository, alice, 2, new BigDecimal("5000.00"));
+        AccountEntity bobAccount = BankingTestData.account(accountRepository, bob, 3, new BigDecimal("100.00"));
+        CardEntity aliceCard = BankingTestData.card(cardRepository, aliceAccount, 2);
+        CardEntity bobCard = BankingTestData.card(cardRepository, bobAccount, 3);
+        // Another transfer of alice's has already taken most of the day's limit
+        transactionTemplate.executeWithoutResult(status -> dailyLimitService.reserve(alice.getId(), new BigDecimal("800.00")));
+        BankingTestData.signIn(alice);
+
+        BatchTransferResponse response = transactionService.transferBatch(List.of(
+                new TransferRequest(aliceCard.getCardNumber(), bobCard.getCardNumber(), new BigDecimal("150.00")),
+                new TransferRequest(aliceCard.getCardNumber(), bobCard.getCardNumber(), new BigDecimal("100.00")),
+                new TransferRequest(aliceCard.getCardNumber(), bobCard.getCardNumber(), new BigDecimal("50.00"))));
+
+        assertThat(response.getResults()).extracting(BatchTransferItemResult::isSuccess).containsExactly(true, false, true);
+        assertThat(dailyLimitService.todayTotal(alice.getId())).isEqualByComparingTo("1000.00");
+        assertThat(accountRepository.findBalanceById(aliceAccount.getId())).isEqualByComparingTo("4800.00");
+    }
+
+    private static void signInAsCustomer(CustomerEntity customer) {
+        BankingTestData.signIn(customer);
+        Object user = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                user, null, List.of(new SimpleGrantedAuthority("ROLE_CUSTOMER"))));
+    }
+}
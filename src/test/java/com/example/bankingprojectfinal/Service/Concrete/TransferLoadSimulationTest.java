@@ -0,0 +1,68 @@
+package com.example.bankingprojectfinal.Service.Concrete;
+
+import com.example.bankingprojectfinal.Repository.AccountRepository;
+import com.example.bankingprojectfinal.Repository.CardRepository;
+import com.example.bankingprojectfinal.Repository.CustomerRepository;
+import com.example.bankingprojectfinal.Repository.TransactionRepository;
+import com.example.bankingprojectfinal.Service.Abstraction.CardService;
+import com.example.bankingprojectfinal.Service.Abstraction.TransactionService;
+import com.example.bankingprojectfinal.support.LoadProfile;
+import com.example.bankingprojectfinal.support.LoadReport;
+import com.example.bankingprojectfinal.support.LoadSimulator;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs the load simulator with the profile from the load.* system properties (small by default) and
+// checks that no money was created or lost: once the pending processor has settled every PENDING row
+// the run saved, the accounts add up to the seeded balances plus the deposits.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:load-simulation-test",
+        "spring.jpa.show-sql=false",
+        "logging.level.com.example.bankingprojectfinal=WARN",
+        // except for the report
+        "logging.level.com.example.bankingprojectfinal.Service.Concrete.TransferLoadSimulationTest=INFO",
+        "banking.pending.poll-interval-ms=100"
+})
+class TransferLoadSimulationTest {
+    private static final Logger log = LoggerFactory.getLogger(TransferLoadSimulationTest.class);
+    private static final long PENDING_DRAIN_TIMEOUT_MS = 60_000;
+
+    @Autowired
+    TransactionService transactionService;
+    @Autowired
+    CardService cardService;
+    @Autowired
+    CustomerRepository customerRepository;
+    @Autowired
+    AccountRepository accountRepository;
+    @Autowired
+    CardRepository cardRepository;
+    @Autowired
+    TransactionRepository transactionRepository;
+
+    @Test
+    void mixedLoadConservesMoney() throws Exception {
+        LoadProfile profile = LoadProfile.fromSystemProperties();
+        LoadSimulator simulator = new LoadSimulator(transactionService, cardService, customerRepository,
+                accountRepository, cardRepository, transactionRepository);
+        simulator.seed(profile);
+
+        LoadReport report = simulator.run(profile);
+        log.info("Load simulation finished:\n{}", report);
+        if (profile.pendingWeight() > 0) {
+            assertThat(simulator.pendingSaved()).as("pending transactions saved").isPositive();
+        }
+
+        long deadline = System.currentTimeMillis() + PENDING_DRAIN_TIMEOUT_MS;
+        while (simulator.pendingUnsettled() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        assertThat(simulator.pendingUnsettled()).as("pending transactions left").isZero();
+        assertThat(simulator.actualTotalBalance()).isEqualByComparingTo(simulator.expectedTotalBalance());
+    }
+}
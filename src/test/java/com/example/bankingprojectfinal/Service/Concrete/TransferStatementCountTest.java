@@ -0,0 +1,77 @@
+package com.example.bankingprojectfinal.Service.Concrete;
+
+import com.example.bankingprojectfinal.Model.Entity.AccountEntity;
+import com.example.bankingprojectfinal.Model.Entity.CardEntity;
+import com.example.bankingprojectfinal.Model.Entity.CustomerEntity;
+import com.example.bankingprojectfinal.Repository.AccountRepository;
+import com.example.bankingprojectfinal.Repository.CardRepository;
+import com.example.bankingprojectfinal.Repository.CustomerRepository;
+import com.example.bankingprojectfinal.Service.Abstraction.TransactionService;
+import com.example.bankingprojectfinal.support.BankingTestData;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Guards the number of SQL statements a JPA-mode transfer issues, so lazy loads or per-card lookups
+// creeping back into the hot path fail here.
+@SpringBootTest(properties = {
+        "banking.transfer.mode=JPA",
+        "spring.datasource.url=jdbc:h2:mem:statement-count-test",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // Keep the background poller from running statements while we count
+        "banking.pending.poll-interval-ms=3600000"
+})
+class TransferStatementCountTest {
+    private static final BigDecimal AMOUNT = new BigDecimal("10.00");
+
+    @Autowired
+    TransactionService transactionService;
+    @Autowired
+    CustomerRepository customerRepository;
+    @Autowired
+    AccountRepository accountRepository;
+    @Autowired
+    CardRepository cardRepository;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void signOut() {
+        BankingTestData.signOut();
+    }
+
+    @Test
+    void transferIssuesAFixedNumberOfStatements() {
+        CustomerEntity customer = BankingTestData.customer(customerRepository, 1);
+        AccountEntity from = BankingTestData.account(accountRepository, customer, 1, new BigDecimal("1000.00"));
+        AccountEntity to = BankingTestData.account(accountRepository, customer, 2, new BigDecimal("1000.00"));
+        CardEntity fromCard = BankingTestData.card(cardRepository, from, 1);
+        CardEntity toCard = BankingTestData.card(cardRepository, to, 2);
+        BankingTestData.signIn(customer);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // Cold card cache: cards + accounts + customers (1), daily limit (1), activity bucket merge (1, both
+        // cards belong to one customer), both account updates in one JDBC batch (1), transaction insert (1)
+        statistics.clear();
+        transactionService.transfer(fromCard.getCardNumber(), toCard.getCardNumber(), AMOUNT);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(5);
+
+        // Warm card cache: both accounts by id (1) instead of the card query, the rest unchanged
+        statistics.clear();
+        transactionService.transfer(fromCard.getCardNumber(), toCard.getCardNumber(), AMOUNT);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(5);
+
+        assertThat(accountRepository.findBalanceById(from.getId())).isEqualByComparingTo("980.00");
+        assertThat(accountRepository.findBalanceById(to.getId())).isEqualByComparingTo("1020.00");
+    }
+}
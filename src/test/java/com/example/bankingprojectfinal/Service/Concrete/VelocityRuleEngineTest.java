@@ -0,0 +1,191 @@
+package com.example.bankingprojectfinal.Service.Concrete;
+
+import com.example.bankingprojectfinal.Exception.NotEnoughFundsException;
+import com.example.bankingprojectfinal.Model.Entity.AccountEntity;
+import com.example.bankingprojectfinal.Model.Entity.CardEntity;
+import com.example.bankingprojectfinal.Model.Entity.CustomerEntity;
+import com.example.bankingprojectfinal.Model.Enums.CustomerStatus;
+import com.example.bankingprojectfinal.Repository.AccountRepository;
+import com.example.bankingprojectfinal.Repository.CardRepository;
+import com.example.bankingprojectfinal.Repository.CustomerRepository;
+import com.example.bankingprojectfinal.Service.Abstraction.TransactionService;
+import com.example.bankingprojectfinal.Service.Abstraction.VelocityRule.TransferAttempt;
+import com.example.bankingprojectfinal.support.BankingTestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.reset;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:velocity-test",
+        "spring.jpa.show-sql=false",
+        "banking.pending.poll-interval-ms=3600000",
+        "banking.velocity.rules[0].name=card-burst",
+        "banking.velocity.rules[0].type=TRANSFERS_PER_CARD",
+        "banking.velocity.rules[0].limit=3",
+        "banking.velocity.rules[0].window=1m",
+        "banking.velocity.rules[1].name=recipient-fanout",
+        "banking.velocity.rules[1].type=DISTINCT_RECIPIENTS",
+        "banking.velocity.rules[1].limit=2",
+        "banking.velocity.rules[1].window=1h",
+        "banking.velocity.rules[2].name=repeated-amount",
+        "banking.velocity.rules[2].type=REPEATED_AMOUNT",
+        "banking.velocity.rules[2].limit=2",
+        "banking.velocity.rules[2].window=10m"
+})
+class VelocityRuleEngineTest {
+
+    @Autowired
+    VelocityRuleEngine velocityRules;
+    @Autowired
+    TransactionService transactionService;
+    @Autowired
+    CustomerRepository customerRepository;
+    @Autowired
+    AccountRepository accountRepository;
+    @Autowired
+    CardRepository cardRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @MockitoSpyBean
+    HotAccountBalances hotAccounts;
+
+    int debitCards;
+
+    @AfterEach
+    void signOut() {
+        BankingTestData.signOut();
+        reset(hotAccounts);
+    }
+
+    @Test
+    void aBurstOfTransfersFromOneCardMarksTheCustomerSuspected() {
+        CustomerEntity customer = BankingTestData.customer(customerRepository, 1);
+        AccountEntity from = BankingTestData.account(accountRepository, customer, 1, new BigDecimal("1000.00"));
+        AccountEntity to = BankingTestData.account(accountRepository, customer, 2, BigDecimal.ZERO);
+        CardEntity fromCard = BankingTestData.card(cardRepository, from, 1);
+        CardEntity toCard = BankingTestData.card(cardRepository, to, 2);
+        BankingTestData.signIn(customer);
+
+        // Different amounts to one recipient: only the per-card rule can trip
+        for (int i = 1; i <= 3; i++) {
+            transactionService.transfer(fromCard.getCardNumber(), toCard.getCardNumber(), BigDecimal.valueOf(i));
+        }
+        assertThat(customerRepository.findById(customer.getId()).orElseThrow().getStatus()).isEqualTo(CustomerStatus.REGULAR);
+
+        transactionService.transfer(fromCard.getCardNumber(), toCard.getCardNumber(), BigDecimal.valueOf(4));
+        assertThat(customerRepository.findById(customer.getId()).orElseThrow().getStatus()).isEqualTo(CustomerStatus.SUSPECTED);
+    }
+
+    @Test
+    void aTransferRetriedAfterAConflictIsCountedOnce() {
+        CustomerEntity customer = BankingTestData.customer(customerRepository, 3);
+        AccountEntity from = BankingTestData.account(accountRepository, customer, 3, new BigDecimal("1000.00"));
+        AccountEntity to = BankingTestData.account(accountRepository, customer, 4, BigDecimal.ZERO);
+        CardEntity fromCard = BankingTestData.card(cardRepository, from, 3);
+        CardEntity toCard = BankingTestData.card(cardRepository, to, 4);
+        BankingTestData.signIn(customer);
+
+        // The first transfer takes three attempts; counted per attempt it would make five and trip the rule
+        conflictOnCredit(2);
+        for (int i = 1; i <= 3; i++) {
+            transactionService.transfer(fromCard.getCardNumber(), toCard.getCardNumber(), BigDecimal.valueOf(i));
+        }
+        assertThat(customerRepository.findById(customer.getId()).orElseThrow().getStatus()).isEqualTo(CustomerStatus.REGULAR);
+
+        transactionService.transfer(fromCard.getCardNumber(), toCard.getCardNumber(), BigDecimal.valueOf(4));
+        assertThat(customerRepository.findById(customer.getId()).orElseThrow().getStatus()).isEqualTo(CustomerStatus.SUSPECTED);
+    }
+
+    @Test
+    void refusedTransfersCount() {
+        CustomerEntity customer = BankingTestData.customer(customerRepository, 5);
+        AccountEntity from = BankingTestData.account(accountRepository, customer, 5, new BigDecimal("60.00"));
+        AccountEntity to = BankingTestData.account(accountRepository, customer, 6, BigDecimal.ZERO);
+        CardEntity fromCard = BankingTestData.card(cardRepository, from, 5);
+        CardEntity toCard = BankingTestData.card(cardRepository, to, 6);
+        BankingTestData.signIn(customer);
+
+        // Each would take the account below its minimum balance
+        for (int i = 1; i <= 3; i++) {
+            BigDecimal amount = BigDecimal.valueOf(100 + i);
+            assertThatThrownBy(() -> transactionService.transfer(fromCard.getCardNumber(), toCard.getCardNumber(), amount))
+                    .isInstanceOf(NotEnoughFundsException.class);
+        }
+
+        transactionService.transfer(fromCard.getCardNumber(), toCard.getCardNumber(), new BigDecimal("1.00"));
+        assertThat(customerRepository.findById(customer.getId()).orElseThrow().getStatus()).isEqualTo(CustomerStatus.SUSPECTED);
+    }
+
+    @Test
+    void distinctRecipientsAndRepeatedAmountsAreCountedPerCustomer() {
+        // Paying the same card again does not add a recipient
+        assertThat(velocityRules.evaluate(attempt(100, "A", "10.00"))).isEmpty();
+        assertThat(velocityRules.evaluate(attempt(100, "B", "11.00"))).isEmpty();
+        assertThat(velocityRules.evaluate(attempt(100, "A", "12.00"))).isEmpty();
+        assertThat(velocityRules.evaluate(attempt(100, "C", "13.00"))).containsExactly("recipient-fanout");
+
+        // 7.5 and 7.50 are the same amount; another customer has its own counters
+        assertThat(velocityRules.evaluate(attempt(200, "A", "7.5"))).isEmpty();
+        assertThat(velocityRules.evaluate(attempt(200, "A", "7.50"))).isEmpty();
+        assertThat(velocityRules.evaluate(attempt(201, "A", "7.50"))).isEmpty();
+        assertThat(velocityRules.evaluate(attempt(200, "A", "7.50"))).containsExactly("repeated-amount");
+    }
+
+    @Test
+    void eventsOlderThanTheWindowNoLongerCount() {
+        long window = TimeUnit.SECONDS.toNanos(60);
+        long start = 1_000_000_000L;
+
+        VelocityWindow counts = new VelocityWindow(2);
+        assertThat(counts.record(start, window)).isFalse();
+        assertThat(counts.record(start + 1, window)).isFalse();
+        assertThat(counts.record(start + 2, window)).isTrue();
+        // Only two of the last three events are inside the window
+        assertThat(counts.record(start + window + 2, window)).isFalse();
+
+        VelocityWindow recipients = new VelocityWindow(1);
+        assertThat(recipients.recordDistinct(start, window, "A")).isFalse();
+        assertThat(recipients.recordDistinct(start + 1, window, "B")).isTrue();
+        // A is the least recently seen and is replaced by C, but B has left the window by then
+        assertThat(recipients.recordDistinct(start + window + 2, window, "C")).isFalse();
+    }
+
+    // The first conflicts credits bump the account's version in a transaction of their own, so the
+    // transfer's commit fails its version check
+    private void conflictOnCredit(int conflicts) {
+        AtomicInteger remaining = new AtomicInteger(conflicts);
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        doAnswer(invocation -> {
+            AccountEntity account = invocation.getArgument(0);
+            if (remaining.getAndDecrement() > 0) {
+                requiresNew.executeWithoutResult(status -> jdbcTemplate.update(
+                        "UPDATE account SET version = version + 1 WHERE id = ?", account.getId()));
+            }
+            return invocation.callRealMethod();
+        }).when(hotAccounts).credit(any(AccountEntity.class), any(BigDecimal.class));
+    }
+
+    // A new debit card every time keeps the per-card rule out of these checks
+    private TransferAttempt attempt(int customerId, String creditCard, String amount) {
+        return new TransferAttempt(customerId, "DEBIT-" + (++debitCards), creditCard, new BigDecimal(amount));
+    }
+}
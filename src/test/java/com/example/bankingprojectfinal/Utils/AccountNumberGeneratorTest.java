@@ -0,0 +1,95 @@
+package com.example.bankingprojectfinal.Utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:account-number-test",
+        "spring.jpa.show-sql=false",
+        "banking.pending.poll-interval-ms=3600000"
+})
+class AccountNumberGeneratorTest {
+    private static final int PER_THREAD = 250;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    void generatorsSharingTheSequenceNeverHandOutTheSameNumber() throws Exception {
+        // Two nodes with small blocks, so they go back to the high-water mark often
+        List<AccountNumberGenerator> nodes = List.of(
+                new AccountNumberGenerator(jdbcTemplate, transactionManager, 7),
+                new AccountNumberGenerator(jdbcTemplate, transactionManager, 7));
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<?>> results = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            AccountNumberGenerator node = nodes.get(thread % 2);
+            results.add(pool.submit(() -> {
+                for (int i = 0; i < PER_THREAD; i++) {
+                    assertThat(numbers.add(node.generate())).isTrue();
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        pool.shutdown();
+
+        assertThat(numbers).hasSize(4 * PER_THREAD)
+                .allSatisfy(number -> assertThat(AccountNumberGenerator.isValid(number)).isTrue());
+    }
+
+    @Test
+    void aSmallerBlockSizeAfterARedeployDoesNotReissueNumbers() {
+        Set<String> numbers = new HashSet<>();
+        AccountNumberGenerator before = new AccountNumberGenerator(jdbcTemplate, transactionManager, 100);
+        for (int i = 0; i < 5; i++) {
+            numbers.add(before.generate());
+        }
+        // Restarted with a tenth of the block size: the rest of the old block is skipped, not reissued
+        AccountNumberGenerator after = new AccountNumberGenerator(jdbcTemplate, transactionManager, 10);
+        for (int i = 0; i < 50; i++) {
+            assertThat(numbers.add(after.generate())).isTrue();
+        }
+        // Both sizes side by side
+        for (int i = 0; i < 150; i++) {
+            assertThat(numbers.add(before.generate())).isTrue();
+            assertThat(numbers.add(after.generate())).isTrue();
+        }
+    }
+
+    @Test
+    void theCheckDigitCatchesATypo() {
+        assertThat(checkDigit("7992739871")).isEqualTo('3');
+
+        AccountNumberGenerator generator = new AccountNumberGenerator(blockSize -> 4200, 100);
+        String number = generator.generate();
+        assertThat(number).isEqualTo("ACC000000004200" + checkDigit("000000004200"));
+        assertThat(AccountNumberGenerator.isValid(number)).isTrue();
+        char last = number.charAt(number.length() - 2);
+        String typo = number.substring(0, number.length() - 2) + (char) (last == '9' ? '0' : last + 1) + number.charAt(number.length() - 1);
+        assertThat(AccountNumberGenerator.isValid(typo)).isFalse();
+    }
+
+    private static char checkDigit(String digits) {
+        return Luhn.checkDigit(digits.toCharArray(), 0, digits.length());
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.bankingprojectfinal.Utils;
+
+import com.example.bankingprojectfinal.DTOS.Card.CardCreateResponse;
+import com.example.bankingprojectfinal.DTOS.Card.DepositCardRequest;
+import com.example.bankingprojectfinal.Model.Entity.CustomerEntity;
+import com.example.bankingprojectfinal.Repository.AccountRepository;
+import com.example.bankingprojectfinal.Repository.CustomerRepository;
+import com.example.bankingprojectfinal.Service.Abstraction.AccountService;
+import com.example.bankingprojectfinal.Service.Abstraction.CardService;
+import com.example.bankingprojectfinal.Service.Abstraction.TransactionService;
+import com.example.bankingprojectfinal.support.BankingTestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:card-number-test",
+        "spring.jpa.show-sql=false",
+        "banking.pending.poll-interval-ms=3600000",
+        "banking.cards.bin=412345"
+})
+class CardNumberGeneratorTest {
+    private static final int PER_THREAD = 250;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    CardService cardService;
+    @Autowired
+    AccountService accountService;
+    @Autowired
+    TransactionService transactionService;
+    @Autowired
+    CustomerRepository customerRepository;
+    @Autowired
+    AccountRepository accountRepository;
+
+    @AfterEach
+    void signOut() {
+        BankingTestData.signOut();
+    }
+
+    @Test
+    void nodesSharingABinNeverIssueTheSameNumber() throws Exception {
+        // Two nodes with small blocks, so they go back to the high-water mark often
+        List<CardNumberGenerator> nodes = List.of(
+                new CardNumberGenerator(jdbcTemplate, transactionManager, "499999", 7),
+                new CardNumberGenerator(jdbcTemplate, transactionManager, "499999", 7));
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<?>> results = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            CardNumberGenerator node = nodes.get(thread % 2);
+            results.add(pool.submit(() -> {
+                for (int i = 0; i < PER_THREAD; i++) {
+                    assertThat(numbers.add(node.generate())).isTrue();
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        pool.shutdown();
+
+        assertThat(numbers).hasSize(4 * PER_THREAD).allSatisfy(number -> {
+            assertThat(number).hasSize(16).startsWith("499999");
+            assertThat(Luhn.isValid(number)).isTrue();
+        });
+        // Only the high-water mark is stored: the identifiers reserved, at most a part-used block per node
+        // beyond those issued
+        assertThat(jdbcTemplate.queryForObject("SELECT high_water FROM card_number_range WHERE bin = '499999'", Long.class))
+                .isBetween(4L * PER_THREAD, 4L * PER_THREAD + 2 * 7);
+    }
+
+    @Test
+    void aSmallerBlockSizeAfterARedeployDoesNotReissueNumbers() {
+        Set<String> numbers = new HashSet<>();
+        CardNumberGenerator before = new CardNumberGenerator(jdbcTemplate, transactionManager, "499998", 100);
+        for (int i = 0; i < 5; i++) {
+            numbers.add(before.generate());
+        }
+        // Restarted with a tenth of the block size: the rest of the old block is skipped, not reissued
+        CardNumberGenerator after = new CardNumberGenerator(jdbcTemplate, transactionManager, "499998", 10);
+        for (int i = 0; i < 50; i++) {
+            assertThat(numbers.add(after.generate())).isTrue();
+        }
+        // Both sizes side by side
+        for (int i = 0; i < 150; i++) {
+            assertThat(numbers.add(before.generate())).isTrue();
+            assertThat(numbers.add(after.generate())).isTrue();
+        }
+    }
+
+    @Test
+    void issuedCardsCanBeUsedForTransfers() {
+        CustomerEntity customer = BankingTestData.customer(customerRepository, 1);
+        BankingTestData.signIn(customer);
+        String firstAccount = accountService.createAccountForCurrentUser().getAccountNumber();
+        String secondAccount = accountService.createAccountForCurrentUser().getAccountNumber();
+
+        CardCreateResponse debit = cardService.createCardForCurrentUser(firstAccount);
+        CardCreateResponse credit = cardService.createCardForCurrentUser(secondAccount);
+        assertThat(debit.isSuccess()).isTrue();
+        assertThat(credit.isSuccess()).isTrue();
+        String debitCard = debit.getCard().getCardNumber();
+        String creditCard = credit.getCard().getCardNumber();
+        assertThat(List.of(debitCard, creditCard)).allSatisfy(number -> {
+            assertThat(number).hasSize(16).startsWith("412345");
+            assertThat(Luhn.isValid(number)).isTrue();
+        });
+
+        cardService.depositCard(new DepositCardRequest(debitCard, new BigDecimal("200.00")));
+        transactionService.transfer(debitCard, creditCard, new BigDecimal("75.00"));
+
+        assertThat(accountRepository.findByAccountNumber(firstAccount).orElseThrow().getBalance()).isEqualByComparingTo("125.00");
+        assertThat(accountRepository.findByAccountNumber(secondAccount).orElseThrow().getBalance()).isEqualByComparingTo("75.00");
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.bankingprojectfinal.Utils;
+
+import com.example.bankingprojectfinal.DTOS.Transaction.TransactionDto;
+import com.example.bankingprojectfinal.Model.Entity.AccountEntity;
+import com.example.bankingprojectfinal.Model.Entity.CardEntity;
+import com.example.bankingprojectfinal.Model.Entity.CustomerEntity;
+import com.example.bankingprojectfinal.Repository.AccountRepository;
+import com.example.bankingprojectfinal.Repository.CardRepository;
+import com.example.bankingprojectfinal.Repository.CustomerRepository;
+import com.example.bankingprojectfinal.Service.Abstraction.TransactionService;
+import com.example.bankingprojectfinal.support.BankingTestData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:time-ordered-uuid-test",
+        "spring.jpa.show-sql=false",
+        "banking.pending.poll-interval-ms=3600000"
+})
+class TimeOrderedUuidGeneratorTest {
+    private static final long NOW = 1_760_000_000_000L;
+    private static final int PER_THREAD = 5_000;
+
+    @Autowired
+    TransactionService transactionService;
+    @Autowired
+    CustomerRepository customerRepository;
+    @Autowired
+    AccountRepository accountRepository;
+    @Autowired
+    CardRepository cardRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void signOut() {
+        BankingTestData.signOut();
+    }
+
+    @Test
+    void idsAreVersion7AndCarryTheClock() {
+        UUID id = new TimeOrderedUuidGenerator(() -> NOW).generate();
+
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+        assertThat(TimeOrderedUuidGenerator.timestampOf(id)).isEqualTo(NOW);
+    }
+
+    @Test
+    void idsKeepIncreasingWhenTheClockStepsBackOrStandsStill() {
+        AtomicLong clock = new AtomicLong(NOW);
+        TimeOrderedUuidGenerator generator = new TimeOrderedUuidGenerator(clock::get);
+
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            // More ids than one millisecond's counter holds, then the clock jumps a second back
+            if (i == 6_000) {
+                clock.set(NOW - 1_000);
+            }
+            ids.add(generator.generate().toString());
+        }
+
+        assertThat(ids).isSorted().doesNotHaveDuplicates();
+        // The counter overflowed into the following milliseconds instead of wrapping
+        assertThat(TimeOrderedUuidGenerator.timestampOf(UUID.fromString(ids.get(ids.size() - 1)))).isGreaterThan(NOW);
+
+        // Once the clock passes the borrowed milliseconds, ids follow it again
+        clock.set(NOW + 60_000);
+        assertThat(TimeOrderedUuidGenerator.timestampOf(generator.generate())).isEqualTo(NOW + 60_000);
+    }
+
+    @Test
+    void concurrentCallersGetUniqueIdsInIncreasingOrder() throws Exception {
+        TimeOrderedUuidGenerator generator = new TimeOrderedUuidGenerator(System::currentTimeMillis);
+        Set<UUID> all = ConcurrentHashMap.newKeySet();
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<List<String>>> results = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            results.add(pool.submit(() -> {
+                List<String> ids = new ArrayList<>(PER_THREAD);
+                for (int i = 0; i < PER_THREAD; i++) {
+                    UUID id = generator.generate();
+                    all.add(id);
+                    ids.add(id.toString());
+                }
+                return ids;
+            }));
+        }
+        for (Future<List<String>> result : results) {
+            assertThat(result.get()).isSorted();
+        }
+        pool.shutdown();
+
+        assertThat(all).hasSize(4 * PER_THREAD);
+    }
+
+    @Test
+    void transactionsComeBackInCreationOrderWhenSortedById() {
+        CustomerEntity customer = BankingTestData.customer(customerRepository, 1);
+        AccountEntity from = BankingTestData.account(accountRepository, customer, 1, new BigDecimal("1000.00"));
+        AccountEntity to = BankingTestData.account(accountRepository, customer, 2, new BigDecimal("1000.00"));
+        CardEntity fromCard = BankingTestData.card(cardRepository, from, 1);
+        CardEntity toCard = BankingTestData.card(cardRepository, to, 2);
+        BankingTestData.signIn(customer);
+
+        List<String> created = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            TransactionDto transaction = transactionService.transfer(fromCard.getCardNumber(), toCard.getCardNumber(), BigDecimal.ONE);
+            created.add(transaction.getTransactionId());
+        }
+
+        // Compared by the database, not by java.util.UUID
+        List<String> byId = jdbcTemplate.queryForList(
+                "SELECT CAST(transaction_id AS VARCHAR) FROM transaction ORDER BY transaction_id", String.class);
+        assertThat(byId).isEqualTo(created);
+        assertThat(created).allSatisfy(id -> assertThat(UUID.fromString(id).version()).isEqualTo(7));
+    }
+}
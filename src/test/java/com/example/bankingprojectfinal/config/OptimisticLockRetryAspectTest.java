@@ -0,0 +1,224 @@
+package com.example.bankingprojectfinal.config;
+
+import com.example.bankingprojectfinal.DTOS.Card.DepositCardRequest;
+import com.example.bankingprojectfinal.DTOS.Card.DepositCardResponse;
+import com.example.bankingprojectfinal.Model.Entity.AccountEntity;
+import com.example.bankingprojectfinal.Model.Entity.CardEntity;
+import com.example.bankingprojectfinal.Model.Entity.CustomerEntity;
+import com.example.bankingprojectfinal.Model.Entity.TransactionEntity;
+import com.example.bankingprojectfinal.Repository.AccountRepository;
+import com.example.bankingprojectfinal.Repository.CardRepository;
+import com.example.bankingprojectfinal.Repository.CustomerRepository;
+import com.example.bankingprojectfinal.Service.Abstraction.CardService;
+import com.example.bankingprojectfinal.Service.Abstraction.TransactionService;
+import com.example.bankingprojectfinal.Service.Concrete.HotAccountBalances;
+import com.example.bankingprojectfinal.Service.Concrete.TransactionFeedWriter;
+import com.example.bankingprojectfinal.support.BankingTestData;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.reset;
+
+// Conflicts are forced by bumping an account's version from another transaction after the attempt has
+// read the account, so its commit fails the version check exactly as a concurrent writer would make it.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:optimistic-retry-test",
+        "spring.jpa.show-sql=false",
+        "banking.pending.poll-interval-ms=3600000",
+        "banking.retry.optimistic.max-attempts=4"
+})
+class OptimisticLockRetryAspectTest {
+    private static final BigDecimal OPENING_BALANCE = new BigDecimal("1000.00");
+
+    @Autowired
+    TransactionService transactionService;
+    @Autowired
+    CardService cardService;
+    @Autowired
+    OptimisticLockRetryAspect retryAspect;
+    @Autowired
+    CustomerRepository customerRepository;
+    @Autowired
+    AccountRepository accountRepository;
+    @Autowired
+    CardRepository cardRepository;
+    @Autowired
+    MeterRegistry meterRegistry;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @MockitoSpyBean
+    HotAccountBalances hotAccounts;
+    @MockitoSpyBean
+    TransactionFeedWriter feedWriter;
+
+    CustomerEntity alice;
+    AccountEntity aliceAccount;
+    AccountEntity bobAccount;
+    CardEntity aliceCard;
+    CardEntity bobCard;
+    // The entity manager of every attempt, recorded when the attempt credits an account
+    List<EntityManager> attempts = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        int seq = (int) customerRepository.count() + 1;
+        alice = BankingTestData.customer(customerRepository, seq);
+        CustomerEntity bob = BankingTestData.customer(customerRepository, seq + 1);
+        aliceAccount = BankingTestData.account(accountRepository, alice, seq, OPENING_BALANCE);
+        bobAccount = BankingTestData.account(accountRepository, bob, seq + 1, OPENING_BALANCE);
+        aliceCard = BankingTestData.card(cardRepository, aliceAccount, seq);
+        bobCard = BankingTestData.card(cardRepository, bobAccount, seq + 1);
+        BankingTestData.signIn(alice);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        BankingTestData.signOut();
+        reset(hotAccounts, feedWriter);
+    }
+
+    @Test
+    void aTransferThatLosesTheRaceIsRetriedInAFreshTransaction() {
+        Counts before = counts("transfer");
+        conflictOnCredit(1);
+
+        transactionService.transfer(aliceCard.getCardNumber(), bobCard.getCardNumber(), new BigDecimal("10.00"));
+
+        assertThat(balance(aliceAccount)).isEqualByComparingTo("990.00");
+        assertThat(balance(bobAccount)).isEqualByComparingTo("1010.00");
+        assertThat(attempts).hasSize(2);
+        // The retry wraps the transaction interceptor, so the second attempt did not reuse the first one's
+        // persistence context and its stale account
+        assertThat(new HashSet<>(attempts)).hasSize(2);
+        assertThat(counts("transfer").minus(before)).isEqualTo(new Counts(1, 1, 0));
+    }
+
+    @Test
+    void aDepositThatLosesTheRaceIsRetried() {
+        Counts before = counts("deposit");
+        conflictOnCredit(2);
+
+        DepositCardResponse response = cardService.depositCard(new DepositCardRequest(bobCard.getCardNumber(), new BigDecimal("25.00")));
+
+        assertThat(response.isSuccess()).isTrue();
+        assertThat(balance(bobAccount)).isEqualByComparingTo("1025.00");
+        assertThat(attempts).hasSize(3);
+        assertThat(counts("deposit").minus(before)).isEqualTo(new Counts(2, 2, 0));
+    }
+
+    @Test
+    void aConflictInsideTheDepositIsNotReportedAsADeclinedDeposit() {
+        Counts before = counts("deposit");
+        AtomicInteger failures = new AtomicInteger(1);
+        doAnswer(invocation -> {
+            if (failures.getAndDecrement() > 0) {
+                throw new ObjectOptimisticLockingFailureException(AccountEntity.class, bobAccount.getId());
+            }
+            return invocation.callRealMethod();
+        }).when(feedWriter).record(any(TransactionEntity.class));
+
+        DepositCardResponse response = cardService.depositCard(new DepositCardRequest(bobCard.getCardNumber(), new BigDecimal("25.00")));
+
+        assertThat(response.isSuccess()).isTrue();
+        // Credited once: the first attempt was rolled back, not committed without its feed row
+        assertThat(balance(bobAccount)).isEqualByComparingTo("1025.00");
+        assertThat(counts("deposit").minus(before)).isEqualTo(new Counts(1, 1, 0));
+    }
+
+    @Test
+    void theRetryGivesUpAfterTheLastAttempt() {
+        Counts before = counts("transfer");
+        conflictOnCredit(Integer.MAX_VALUE);
+
+        assertThatThrownBy(() -> transactionService.transfer(aliceCard.getCardNumber(), bobCard.getCardNumber(), new BigDecimal("10.00")))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+
+        assertThat(attempts).hasSize(4);
+        assertThat(balance(aliceAccount)).isEqualByComparingTo(OPENING_BALANCE);
+        assertThat(balance(bobAccount)).isEqualByComparingTo(OPENING_BALANCE);
+        assertThat(counts("transfer").minus(before)).isEqualTo(new Counts(4, 3, 1));
+    }
+
+    @Test
+    void theBackoffIsAJitteredDelayUnderAnExponentialCap() {
+        // backoff-ms=10 and max-backoff-ms=200: the cap doubles from 10 ms before the second attempt
+        long[] caps = {10, 20, 40, 80, 160, 200, 200};
+        for (int i = 0; i < caps.length; i++) {
+            int attempt = i + 2;
+            long longest = 0;
+            HashSet<Long> seen = new HashSet<>();
+            for (int sample = 0; sample < 2000; sample++) {
+                long delay = retryAspect.backoffBeforeAttempt(attempt);
+                assertThat(delay).isBetween(0L, caps[i]);
+                longest = Math.max(longest, delay);
+                seen.add(delay);
+            }
+            assertThat(longest).as("attempt %d reaches its cap", attempt).isGreaterThan(caps[i] / 2);
+            assertThat(seen).as("attempt %d is jittered", attempt).hasSizeGreaterThan(1);
+        }
+    }
+
+    // The first conflicts credits bump the account's version in a transaction of their own
+    private void conflictOnCredit(int conflicts) {
+        AtomicInteger remaining = new AtomicInteger(conflicts);
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        doAnswer(invocation -> {
+            attempts.add(EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory));
+            AccountEntity account = invocation.getArgument(0);
+            if (remaining.getAndDecrement() > 0) {
+                requiresNew.executeWithoutResult(status -> jdbcTemplate.update(
+                        "UPDATE account SET version = version + 1 WHERE id = ?", account.getId()));
+            }
+            return invocation.callRealMethod();
+        }).when(hotAccounts).credit(any(AccountEntity.class), any(BigDecimal.class));
+    }
+
+    private BigDecimal balance(AccountEntity account) {
+        return accountRepository.findBalanceById(account.getId());
+    }
+
+    private Counts counts(String endpoint) {
+        return new Counts(
+                count("banking.optimistic.conflicts", endpoint),
+                count("banking.optimistic.retries", endpoint),
+                count("banking.optimistic.giveups", endpoint));
+    }
+
+    private long count(String name, String endpoint) {
+        return (long) meterRegistry.counter(name, "endpoint", endpoint).count();
+    }
+
+    private record Counts(long conflicts, long retries, long giveups) {
+        Counts minus(Counts other) {
+            return new Counts(conflicts - other.conflicts, retries - other.retries, giveups - other.giveups);
+        }
+    }
+}
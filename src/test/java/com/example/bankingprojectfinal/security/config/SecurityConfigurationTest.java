@@ -0,0 +1,36 @@
+package com.example.bankingprojectfinal.security.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:security-configuration-test",
+        "spring.jpa.show-sql=false",
+        "banking.pending.poll-interval-ms=3600000"
+})
+@AutoConfigureMockMvc
+class SecurityConfigurationTest {
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    @WithMockUser(roles = "CUSTOMER")
+    void actuatorEndpointsAreClosedToNonAdmins() throws Exception {
+        mockMvc.perform(get("/actuator/transferstages")).andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/metrics")).andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void actuatorEndpointsAreOpenToAdmins() throws Exception {
+        mockMvc.perform(get("/actuator/transferstages")).andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/metrics")).andExpect(status().isOk());
+    }
+}
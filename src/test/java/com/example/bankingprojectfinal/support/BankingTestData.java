@@ -0,0 +1,70 @@
+package com.example.bankingprojectfinal.support;
+
+import com.example.bankingprojectfinal.Model.Entity.AccountEntity;
+import com.example.bankingprojectfinal.Model.Entity.CardEntity;
+import com.example.bankingprojectfinal.Model.Entity.CustomerEntity;
+import com.example.bankingprojectfinal.Model.Enums.AccountStatus;
+import com.example.bankingprojectfinal.Model.Enums.CardStatus;
+import com.example.bankingprojectfinal.Model.Enums.CustomerStatus;
+import com.example.bankingprojectfinal.Repository.AccountRepository;
+import com.example.bankingprojectfinal.Repository.CardRepository;
+import com.example.bankingprojectfinal.Repository.CustomerRepository;
+import com.example.bankingprojectfinal.security.model.User;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+// Seeds customers, accounts and cards directly through the repositories and signs a customer in
+// the way JwtAuthenticationFilter would, so services can be called without going through HTTP.
+public final class BankingTestData {
+
+    private BankingTestData() {
+    }
+
+    public static CustomerEntity customer(CustomerRepository customerRepository, int seq) {
+        return customerRepository.save(CustomerEntity.builder()
+                .firstName("Test")
+                .lastName("Customer" + seq)
+                .birthDate(LocalDate.of(1990, 1, 1))
+                .finCode(String.format("FIN%04d", seq))
+                .phoneNumber(String.format("+99450%07d", seq))
+                .registrationDate(LocalDate.now())
+                .status(CustomerStatus.REGULAR)
+                .build());
+    }
+
+    public static AccountEntity account(AccountRepository accountRepository, CustomerEntity customer, int seq, BigDecimal balance) {
+        return accountRepository.save(AccountEntity.builder()
+                .accountNumber(String.format("ACCTEST%08d", seq))
+                .customer(customer)
+                .balance(balance)
+                .openingDate(LocalDate.now())
+                .expireDate(LocalDate.now().plusYears(10))
+                .status(AccountStatus.ACTIVE)
+                .build());
+    }
+
+    public static CardEntity card(CardRepository cardRepository, AccountEntity account, int seq) {
+        return cardRepository.save(CardEntity.builder()
+                .cardNumber(String.format("4000%012d", seq))
+                .account(account)
+                .issueDate(LocalDate.now())
+                .expireDate(LocalDate.now().plusYears(5))
+                .status(CardStatus.ACTIVE)
+                .build());
+    }
+
+    public static void signIn(CustomerEntity customer) {
+        User user = new User("user" + customer.getId(), "user" + customer.getId() + "@test.local", "secret");
+        user.setCustomer(customer);
+        SecurityContextHolder.getContext()
+                .setAuthentication(new UsernamePasswordAuthenticationToken(user, null, List.of()));
+    }
+
+    public static void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.bankingprojectfinal.support;
+
+import java.math.BigDecimal;
+
+// What LoadSimulator seeds and runs. Every field can be overridden with a load.* system property,
+// e.g. gradle test --tests '*LoadSimulation*' -Dload.operations=50000 -Dload.rate=0
+// (rate 0 = as fast as the threads go). The weights pick the operation mix.
+public record LoadProfile(int customers,
+                          BigDecimal openingBalance,
+                          int threads,
+                          int operations,
+                          double rate,
+                          int transferWeight,
+                          int depositWeight,
+                          int historyWeight,
+                          int pendingWeight) {
+
+    public static LoadProfile fromSystemProperties() {
+        return new LoadProfile(
+                Integer.getInteger("load.customers", 20),
+                new BigDecimal(System.getProperty("load.opening-balance", "500.00")),
+                Integer.getInteger("load.threads", 8),
+                Integer.getInteger("load.operations", 600),
+                Double.parseDouble(System.getProperty("load.rate", "100")),
+                Integer.getInteger("load.weight.transfer", 70),
+                Integer.getInteger("load.weight.deposit", 15),
+                Integer.getInteger("load.weight.history", 10),
+                Integer.getInteger("load.weight.pending", 5));
+    }
+
+    int totalWeight() {
+        return transferWeight + depositWeight + historyWeight + pendingWeight;
+    }
+}
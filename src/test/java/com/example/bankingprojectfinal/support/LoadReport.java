@@ -0,0 +1,29 @@
+package com.example.bankingprojectfinal.support;
+
+import java.time.Duration;
+import java.util.Map;
+
+// Outcome of a LoadSimulator run. Errors are counted per operation and exception class.
+public record LoadReport(int operations,
+                         Duration elapsed,
+                         Map<LoadSimulator.Operation, Latency> latencies,
+                         Map<String, Long> errors) {
+
+    public record Latency(int count, double p50Ms, double p95Ms, double p99Ms, double maxMs) {
+    }
+
+    public double throughput() {
+        return operations / (elapsed.toNanos() / 1_000_000_000.0);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder(String.format("%d operations in %d ms, %.1f ops/s%n",
+                operations, elapsed.toMillis(), throughput()));
+        latencies.forEach((operation, latency) -> report.append(String.format(
+                "  %-9s n=%-6d p50=%8.2f ms  p95=%8.2f ms  p99=%8.2f ms  max=%8.2f ms%n",
+                operation, latency.count(), latency.p50Ms(), latency.p95Ms(), latency.p99Ms(), latency.maxMs())));
+        errors.forEach((error, count) -> report.append(String.format("  error %-50s %d%n", error, count)));
+        return report.toString();
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.bankingprojectfinal.support;
+
+import com.example.bankingprojectfinal.DTOS.Card.DepositCardRequest;
+import com.example.bankingprojectfinal.Model.Entity.AccountEntity;
+import com.example.bankingprojectfinal.Model.Entity.CustomerEntity;
+import com.example.bankingprojectfinal.Model.Entity.TransactionEntity;
+import com.example.bankingprojectfinal.Model.Enums.TransactionStatus;
+import com.example.bankingprojectfinal.Model.Enums.TransactionType;
+import com.example.bankingprojectfinal.Repository.AccountRepository;
+import com.example.bankingprojectfinal.Repository.CardRepository;
+import com.example.bankingprojectfinal.Repository.CustomerRepository;
+import com.example.bankingprojectfinal.Repository.TransactionRepository;
+import com.example.bankingprojectfinal.Service.Abstraction.CardService;
+import com.example.bankingprojectfinal.Service.Abstraction.TransactionService;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Drives a mix of transfers, deposits, history reads and pending transfers (picked up by
+// TransactionSchedule) against the services from many threads at a target rate. Each customer owns
+// one account with one card. Latency is measured from when an operation was due rather than when it
+// started, so a stalled system shows up in the percentiles instead of silently lowering the rate.
+public class LoadSimulator {
+    public enum Operation { TRANSFER, DEPOSIT, HISTORY, PENDING }
+
+    private final TransactionService transactionService;
+    private final CardService cardService;
+    private final CustomerRepository customerRepository;
+    private final AccountRepository accountRepository;
+    private final CardRepository cardRepository;
+    private final TransactionRepository transactionRepository;
+
+    private final List<CustomerEntity> customers = new ArrayList<>();
+    private final List<AccountEntity> accounts = new ArrayList<>();
+    private final List<String> cards = new ArrayList<>();
+    private BigDecimal seededTotal = BigDecimal.ZERO;
+    private final LongAdder depositedCents = new LongAdder();
+    private final List<UUID> pendingIds = Collections.synchronizedList(new ArrayList<>());
+
+    public LoadSimulator(TransactionService transactionService, CardService cardService,
+                         CustomerRepository customerRepository, AccountRepository accountRepository,
+                         CardRepository cardRepository, TransactionRepository transactionRepository) {
+        this.transactionService = transactionService;
+        this.cardService = cardService;
+        this.customerRepository = customerRepository;
+        this.accountRepository = accountRepository;
+        this.cardRepository = cardRepository;
+        this.transactionRepository = transactionRepository;
+    }
+
+    public void seed(LoadProfile profile) {
+        for (int i = 1; i <= profile.customers(); i++) {
+            CustomerEntity customer = BankingTestData.customer(customerRepository, i);
+            AccountEntity account = BankingTestData.account(accountRepository, customer, i, profile.openingBalance());
+            customers.add(customer);
+            accounts.add(account);
+            cards.add(BankingTestData.card(cardRepository, account, i).getCardNumber());
+            seededTotal = seededTotal.add(profile.openingBalance());
+        }
+    }
+
+    public LoadReport run(LoadProfile profile) throws Exception {
+        Map<Operation, List<Long>> latencies = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, Collections.synchronizedList(new ArrayList<>()));
+        }
+        Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+        AtomicLong tickets = new AtomicLong();
+        long intervalNanos = profile.rate() > 0 ? (long) (1_000_000_000L / profile.rate()) : 0;
+
+        ExecutorService pool = Executors.newFixedThreadPool(profile.threads());
+        long start = System.nanoTime();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < profile.threads(); t++) {
+            workers.add(pool.submit(() -> {
+                long ticket;
+                while ((ticket = tickets.getAndIncrement()) < profile.operations()) {
+                    long due = intervalNanos > 0 ? start + ticket * intervalNanos : System.nanoTime();
+                    LockSupport.parkNanos(due - System.nanoTime());
+                    Operation operation = pick(profile);
+                    try {
+                        execute(operation);
+                    } catch (RuntimeException e) {
+                        errors.computeIfAbsent(operation + " " + e.getClass().getSimpleName(), key -> new LongAdder()).increment();
+                    } finally {
+                        BankingTestData.signOut();
+                    }
+                    latencies.get(operation).add(System.nanoTime() - due);
+                }
+            }));
+        }
+        pool.shutdown();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        Map<String, Long> errorCounts = new TreeMap<>();
+        errors.forEach((key, count) -> errorCounts.put(key, count.sum()));
+        return new LoadReport(profile.operations(), elapsed, summarize(latencies), errorCounts);
+    }
+
+    private Operation pick(LoadProfile profile) {
+        int roll = ThreadLocalRandom.current().nextInt(profile.totalWeight());
+        if ((roll -= profile.transferWeight()) < 0) return Operation.TRANSFER;
+        if ((roll -= profile.depositWeight()) < 0) return Operation.DEPOSIT;
+        if (roll - profile.historyWeight() < 0) return Operation.HISTORY;
+        return Operation.PENDING;
+    }
+
+    private void execute(Operation operation) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(customers.size());
+        // Any other customer; with a single customer it transfers to itself and is rejected
+        int to = customers.size() == 1 ? from : (from + 1 + random.nextInt(customers.size() - 1)) % customers.size();
+        BigDecimal amount = BigDecimal.valueOf(random.nextLong(1, 500), 2);
+        switch (operation) {
+            case TRANSFER -> {
+                BankingTestData.signIn(customers.get(from));
+                transactionService.transfer(cards.get(from), cards.get(to), amount);
+            }
+            case DEPOSIT -> {
+                // depositCard reports its own failures instead of throwing
+                if (!cardService.depositCard(new DepositCardRequest(cards.get(to), amount)).isSuccess()) {
+                    throw new DepositRejectedException();
+                }
+                depositedCents.add(amount.unscaledValue().longValueExact());
+            }
+            case HISTORY -> {
+                BankingTestData.signIn(customers.get(from));
+                transactionService.getTransactionsByCurrentUser(0, 20);
+            }
+            case PENDING -> pendingIds.add(transactionRepository.save(TransactionEntity.builder()
+                    .debitAccount(accounts.get(from))
+                    .creditAccount(accounts.get(to))
+                    .amount(amount)
+                    .transactionDate(LocalDate.now())
+                    .status(TransactionStatus.PENDING)
+                    .transactionType(TransactionType.TRANSFER)
+                    .build()).getTransactionId());
+        }
+    }
+
+    // PENDING rows saved by the run, for the pending processor to complete or fail
+    public int pendingSaved() {
+        return pendingIds.size();
+    }
+
+    // The run's own rows that are still PENDING, looked up by id
+    public long pendingUnsettled() {
+        return transactionRepository.findByTransactionIdIn(List.copyOf(pendingIds)).stream()
+                .filter(transaction -> transaction.getStatus() == TransactionStatus.PENDING)
+                .count();
+    }
+
+    // What the accounts must add up to: the seeded balances plus every deposit that went through
+    public BigDecimal expectedTotalBalance() {
+        return seededTotal.add(BigDecimal.valueOf(depositedCents.sum(), 2));
+    }
+
+    public BigDecimal actualTotalBalance() {
+        return accountRepository.findAll().stream()
+                .map(AccountEntity::getBalance)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    private static Map<Operation, LoadReport.Latency> summarize(Map<Operation, List<Long>> latencies) {
+        Map<Operation, LoadReport.Latency> summary = new TreeMap<>();
+        latencies.forEach((operation, samples) -> {
+            if (samples.isEmpty()) {
+                return;
+            }
+            long[] sorted = samples.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sorted);
+            summary.put(operation, new LoadReport.Latency(sorted.length,
+                    percentileMs(sorted, 0.50), percentileMs(sorted, 0.95), percentileMs(sorted, 0.99),
+                    sorted[sorted.length - 1] / 1_000_000.0));
+        });
+        return summary;
+    }
+
+    private static double percentileMs(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    static class DepositRejectedException extends RuntimeException {
+        DepositRejectedException() {
+            super(null, null, false, false);
+        }
+    }
+}